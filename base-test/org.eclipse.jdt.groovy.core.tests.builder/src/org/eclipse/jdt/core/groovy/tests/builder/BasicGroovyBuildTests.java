@@ -19,15 +19,28 @@ import static org.eclipse.jdt.groovy.core.tests.GroovyBundle.isAtLeastGroovy;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeFalse;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import groovy.lang.GroovyClassLoader;
 
 import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.ClassNode;
@@ -39,10 +52,19 @@ import org.codehaus.groovy.ast.PropertyNode;
 import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.groovy.ast.stmt.ReturnStatement;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ResolveVisitor;
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.IGroovyLogger;
+import org.codehaus.groovy.eclipse.TraceCategory;
+import org.codehaus.groovy.tools.GroovyClass;
 import org.codehaus.groovy.vmplugin.VMPluginFactory;
+import org.codehaus.jdt.groovy.internal.compiler.GroovyClassLoaderFactory;
+import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
+import org.codehaus.jdt.groovy.internal.compiler.ast.UnresolvableTypeNames;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 import org.eclipse.core.resources.IFile;
@@ -57,6 +79,7 @@ import org.eclipse.jdt.core.tests.builder.Problem;
 import org.eclipse.jdt.groovy.core.Activator;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.groovy.search.VariableScope;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
 import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.builder.AbstractImageBuilder;
@@ -288,6 +311,187 @@ public final class BasicGroovyBuildTests extends BuilderTestSuite {
         // TODO: Can it be shown that config.groovy is not applied when parsing non-classpath resources?
     }
 
+    @Test
+    public void testParallelPhases() throws Exception {
+        Hashtable<String, String> newOptions = JavaCore.getOptions();
+        newOptions.put(CompilerOptions.OPTIONG_GroovyParallelPhases, JavaCore.ENABLED);
+        JavaCore.setOptions(newOptions);
+
+        IPath[] paths = createSimpleProject("Project", true);
+
+        env.addGroovyClass(paths[1], "p", "A",
+            "package p\n" +
+            "class A extends B {\n" +
+            "  C c = new C()\n" +
+            "}\n");
+        env.addGroovyClass(paths[1], "p", "B",
+            "package p\n" +
+            "@groovy.transform.ToString\n" +
+            "class B {\n" +
+            "  String name\n" +
+            "}\n");
+        env.addGroovyClass(paths[1], "p", "C",
+            "package p\n" +
+            "enum C {\n" +
+            "  ONE, TWO\n" +
+            "}\n");
+        IPath pathToD = env.addGroovyClass(paths[1], "p", "D",
+            "package p\n" +
+            "class D {\n" +
+            "  def x = \n" +
+            "}\n");
+
+        List<String> messages = new CopyOnWriteArrayList<>();
+        IGroovyLogger logger = new IGroovyLogger() {
+            @Override
+            public void log(TraceCategory category, String message) {
+                messages.add(message);
+            }
+            @Override
+            public boolean isCategoryEnabled(TraceCategory category) {
+                return category == TraceCategory.COMPILER;
+            }
+        };
+        GroovyLogManager.manager.addLogger(logger);
+        try {
+            fullBuild(paths[0]);
+            expectingCompiledClasses("p.A", "p.B", "p.C");
+            // sources parsed in parallel, except for the one that failed to parse and was left to serial processing
+            assertTrue(messages.toString(), messages.stream().anyMatch(message ->
+                message.startsWith("Parallel phases: parsed 3 of 4 groovy sources")));
+            assertTrue(env.getProblemsFor(pathToD).length > 0);
+            String parallelProblems = Arrays.toString(env.getProblemsFor(pathToD));
+
+            // problems of source that failed to parse should be the same as for serial processing
+            newOptions.put(CompilerOptions.OPTIONG_GroovyParallelPhases, JavaCore.DISABLED);
+            JavaCore.setOptions(newOptions);
+            messages.clear();
+
+            fullBuild(paths[0]);
+            expectingCompiledClasses("p.A", "p.B", "p.C");
+            assertFalse(messages.toString(), messages.stream().anyMatch(message -> message.startsWith("Parallel phases:")));
+            assertEquals(Arrays.toString(env.getProblemsFor(pathToD)), parallelProblems);
+        } finally {
+            GroovyLogManager.manager.removeLogger(logger);
+        }
+    }
+
+    @Test
+    public void testUnresolvableTypeNames() throws Exception {
+        IPath[] paths = createSimpleProject("Project", true);
+
+        IPath pathToA = env.addGroovyClass(paths[1], "p", "A",
+            "package p\n" +
+            "import q.*\n" +
+            "class A {\n" +
+            "  Foo foo\n" +
+            "}\n");
+        // second unit finds "q.Foo" in the cache of unresolvable names
+        IPath pathToB = env.addGroovyClass(paths[1], "p", "B",
+            "package p\n" +
+            "import q.*\n" +
+            "class B {\n" +
+            "  Foo foo\n" +
+            "}\n");
+
+        fullBuild(paths[0]);
+        assertTrue(env.getProblemsFor(pathToA).length > 0);
+        assertTrue(env.getProblemsFor(pathToB).length > 0);
+        assertTrue(UnresolvableTypeNames.contains("Project", "q.Foo"));
+
+        env.addGroovyClass(paths[1], "q", "Foo",
+            "package q\n" +
+            "class Foo {\n" +
+            "}\n");
+        // added type or package discards names that failed to resolve
+        assertFalse(UnresolvableTypeNames.contains("Project", "q.Foo"));
+
+        incrementalBuild(paths[0]);
+        expectingCompiledClasses("p.A", "p.B", "q.Foo");
+        expectingNoProblems();
+    }
+
+    @Test
+    public void testProjectsShareClassLoaders() throws Exception {
+        createSimpleProject("One", true);
+        createSimpleProject("Two", true);
+
+        GroovyClassLoader[] one = getProjectClassLoaders("One"), two = getProjectClassLoaders("Two");
+        // loaders of the archives are shared; loaders of the output folders are not
+        assertNotSame(one[0].getParent(), two[0].getParent());
+        assertSame(one[0].getParent().getParent(), two[0].getParent().getParent());
+        assertNotSame(one[1], two[1]);
+        assertSame(one[1].getParent(), two[1].getParent());
+
+        // loaders that are still in use are not closed when their projects release them
+        GroovyParser.clearCache("One");
+        GroovyParser.clearCache("Two");
+        assertNotNull(((URLClassLoader) one[1].getParent()).findResource("groovy/lang/GroovyObject.class"));
+
+        GroovyClassLoader[] next = getProjectClassLoaders("One");
+        assertNotSame(one[0], next[0]);
+        assertSame(one[1].getParent(), next[1].getParent());
+    }
+
+    @Test
+    public void testSharedBatchLoaders() throws Exception {
+        File dir = Files.createTempDirectory("batch").toFile();
+        try {
+            File folder = new File(dir, "classes"), archive = new File(dir, "lib.jar");
+            folder.mkdir();
+            Files.write(new File(folder, "Thing.class").toPath(), compileThing("folder"));
+            Files.write(new File(folder, "thing.txt").toPath(), "folder".getBytes(StandardCharsets.UTF_8));
+            try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(archive))) {
+                jar.putNextEntry(new JarEntry("Thing.class"));
+                jar.write(compileThing("archive"));
+                jar.putNextEntry(new JarEntry("thing.txt"));
+                jar.write("archive".getBytes(StandardCharsets.UTF_8));
+            }
+
+            FileSystem.Classpath[] classpaths = {
+                FileSystem.getClasspath(folder.getPath(), null, null),
+                FileSystem.getClasspath(archive.getPath(), null, null),
+            };
+            GroovyClassLoader one = newSharedBatchLoader(classpaths), two = newSharedBatchLoader(classpaths);
+            // loader of the archives is shared; loaders of the folders are not
+            assertNotSame(one, two);
+            assertSame(one.getParent(), two.getParent());
+
+            // folders are searched before the archives, even for types the archive loader has loaded
+            assertEquals("archive", one.getParent().loadClass("Thing").getMethod("where").invoke(null));
+            assertEquals("folder", one.loadClass("Thing").getMethod("where").invoke(null));
+            assertEquals("folder", two.loadClass("Thing").getMethod("where").invoke(null));
+            assertEquals("file", one.getResource("thing.txt").getProtocol());
+            assertEquals("jar", one.getParent().getResource("thing.txt").getProtocol());
+
+            // a folder after an archive keeps classpath order with a loader of its own
+            GroovyClassLoader three = newSharedBatchLoader(new FileSystem.Classpath[] {classpaths[1], classpaths[0]});
+            assertNotSame(one.getParent(), three.getParent());
+            assertEquals("archive", three.loadClass("Thing").getMethod("where").invoke(null));
+            assertEquals("jar", three.getResource("thing.txt").getProtocol());
+        } finally {
+            Files.walk(dir.toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static GroovyClassLoader newSharedBatchLoader(FileSystem.Classpath[] classpaths) {
+        return ReflectionUtils.executePrivateMethod(GroovyClassLoaderFactory.class, "newSharedBatchLoader",
+            new Class[] {FileSystem.Classpath[].class}, null, new Object[] {classpaths});
+    }
+
+    private static byte[] compileThing(String where) {
+        CompilationUnit unit = new CompilationUnit();
+        unit.addSource("Thing.groovy", "class Thing { static String where() { '" + where + "' } }");
+        unit.compile();
+        return ((GroovyClass) unit.getClasses().get(0)).getBytes();
+    }
+
+    private static GroovyClassLoader[] getProjectClassLoaders(String projectName) {
+        CompilerOptions options = new CompilerOptions(env.getJavaProject(projectName).getOptions(true));
+        options.groovyProjectName = projectName;
+        return new GroovyClassLoaderFactory(options, null).getGroovyClassLoaders(CompilerConfiguration.DEFAULT);
+    }
+
     @Test // https://github.com/groovy/groovy-eclipse/issues/550
     public void testProjectBasedirAsOutputLocation() throws Exception {
         IPath path = env.addProject("Project", "1.8");
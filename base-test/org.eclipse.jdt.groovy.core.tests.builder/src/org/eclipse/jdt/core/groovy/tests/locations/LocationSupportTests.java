@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
  */
 package org.eclipse.jdt.core.groovy.tests.locations;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.util.LinkedList;
@@ -31,6 +32,7 @@ import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
 import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
+import org.eclipse.jdt.groovy.core.util.GroovyUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.junit.Test;
 
@@ -308,4 +310,20 @@ public final class LocationSupportTests {
         assertEquals(content.indexOf('7'), decl.getRightExpression().getStart());
         assertEquals(content.indexOf('7')+1, decl.getRightExpression().getEnd());
     }
+
+    @Test
+    public void testLineSeparators() throws Exception {
+        String content = "def x = 7\r\n  x++\n\n  def y = []\r  y << x\r\n";
+        SourceUnit sourceUnit = new SourceUnit("Foo", content, new CompilerConfiguration(), new GroovyClassLoader(), new ErrorCollector(new CompilerConfiguration()));
+        sourceUnit.parse();
+        sourceUnit.completePhase();
+        sourceUnit.convert();
+        ModuleNode module = sourceUnit.getAST();
+
+        // separators recorded by the parser should match a scan of the source
+        LocationSupport locations = module.getNodeMetaData(LocationSupport.class);
+        assertEquals(content.length(), locations.getEnd());
+        assertArrayEquals(GroovyUtils.getSourceLineSeparatorsIn(content.toCharArray()), locations.getLineSeparators());
+        assertArrayEquals(new int[] {10, 16, 17, 30, 40}, locations.getLineSeparators());
+    }
 }
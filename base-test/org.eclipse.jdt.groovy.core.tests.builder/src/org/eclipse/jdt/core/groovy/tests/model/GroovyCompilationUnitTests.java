@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.ModuleNodeMapper;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -221,6 +222,55 @@ public final class GroovyCompilationUnitTests extends GroovyTypeRootTestSuite {
         assertSame("getModuleNode() should return the same object after a call to reconcile with no force problem detection", node1, node2);
     }
 
+    @Test
+    public void testGetModuleNode11() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        unit1.becomeWorkingCopy(null);
+        unit1.getModuleNode();
+        long hits = ModuleNodeMapper.getHitCount(), evictions = ModuleNodeMapper.getEvictionCount();
+        unit1.getModuleNode();
+        unit1.discardWorkingCopy();
+
+        assertTrue("getModuleNode() should have been answered from the cache", ModuleNodeMapper.getHitCount() > hits);
+        assertTrue("discardWorkingCopy() should have evicted the cached module node", ModuleNodeMapper.getEvictionCount() > evictions);
+    }
+
+    @Test
+    public void testGetModuleNode12() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        unit1.becomeWorkingCopy(null);
+        long version1 = unit1.getModuleInfo(true).version;
+        unit1.getBuffer().setContents("class Other { }");
+        unit1.reconcile(JavaConstants.AST_LEVEL, true, unit1.owner, null);
+        ModuleNodeInfo info2 = unit1.getModuleInfo(true);
+        unit1.discardWorkingCopy();
+
+        assertTrue("reconcile should have cached a module node with a newer version", info2.version > version1);
+        assertEquals("Other", info2.module.getClasses().get(0).getName());
+    }
+
+    @Test
+    public void testBinaryClassNodesNotShared() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        unit1.becomeWorkingCopy(null);
+        unit1.getBuffer().setContents("class Other { List<String> list; Map<String, Number> map }");
+        unit1.reconcile(JavaConstants.AST_LEVEL, true, unit1.owner, null);
+        ModuleNodeInfo info1 = unit1.getModuleInfo(true);
+        unit1.getBuffer().setContents("class Other { List<String> list; Map<String, Number> map; def x }");
+        unit1.reconcile(JavaConstants.AST_LEVEL, true, unit1.owner, null);
+        ModuleNodeInfo info2 = unit1.getModuleInfo(true);
+        unit1.discardWorkingCopy();
+
+        ClassNode list1 = info1.module.getClasses().get(0).getField("list").getType();
+        ClassNode list2 = info2.module.getClasses().get(0).getField("list").getType();
+        assertEquals("java.util.List", list2.getName());
+        assertNotSame("reconciles should not share binary class nodes", list1.redirect(), list2.redirect());
+        assertTrue("class node should initialize its members", list2.redirect().getMethods("add").size() > 0);
+    }
+
     @Test
     public void testGetNewModuleNode() throws Exception {
         IFile groovyFile = createSimpleGroovyProject();
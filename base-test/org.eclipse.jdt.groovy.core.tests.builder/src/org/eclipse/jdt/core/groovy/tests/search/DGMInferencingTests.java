@@ -657,6 +657,34 @@ public final class DGMInferencingTests extends InferencingTestSuite {
         assertDeclType(contents, "with", "org.codehaus.groovy.runtime.DefaultGroovyMethods");
     }
 
+    @Test // category methods are selected through the shared index by receiver hierarchy
+    public void testCategoryMethodIndex1() {
+        String contents =
+            "class Things extends ArrayList<String> {}\n" +
+            "new Things().collectMany { [it] }\n";
+        assertDeclType(contents, "collectMany", "org.codehaus.groovy.runtime.DefaultGroovyMethods");
+    }
+
+    @Test
+    public void testCategoryMethodIndex2() {
+        String contents =
+            "abstract class Things implements Iterable<String> {}\n" +
+            "void meth(Things things) { things.collectMany { [it] } }\n";
+        assertDeclType(contents, "collectMany", "org.codehaus.groovy.runtime.DefaultGroovyMethods");
+    }
+
+    @Test
+    public void testCategoryMethodIndex3() {
+        String contents =
+            "class Things extends ArrayList<String> {}\n" +
+            "new Things().collectMany { [it] }\n" +
+            "class Thing {}\n" +
+            "new Thing().collectMany { [it] }\n";
+        int offset = contents.lastIndexOf("collectMany");
+        assertDeclType(contents.substring(0, contents.indexOf("class Thing ")), "collectMany", "org.codehaus.groovy.runtime.DefaultGroovyMethods");
+        assertUnknownConfidence(contents, offset, offset + "collectMany".length(), "Thing", false);
+    }
+
     @Test // https://github.com/groovy/groovy-eclipse/issues/512
     public void testConflictWithDGM() {
         createUnit("Reflections", "import java.lang.reflect.*\n" +
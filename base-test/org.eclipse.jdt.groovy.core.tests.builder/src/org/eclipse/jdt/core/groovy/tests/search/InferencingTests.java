@@ -18,10 +18,17 @@ package org.eclipse.jdt.core.groovy.tests.search;
 import static org.eclipse.jdt.groovy.core.tests.GroovyBundle.isAtLeastGroovy;
 import static org.junit.Assume.assumeFalse;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
+import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+import org.eclipse.jdt.groovy.search.InferencingRecord;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -2961,4 +2968,64 @@ public final class InferencingTests extends InferencingTestSuite {
         MethodNode m = assertDeclaration(contents, offset, offset + 3, "Foo", "setBar", DeclarationKind.METHOD);
         Assert.assertEquals("Expected 'setBar(Date)' but was 'setBar(int)'", "java.util.Date", m.getParameters()[0].getType().toString(false));
     }
+
+    @Test
+    public void testInferencingRecord() throws Exception {
+        String contents = "def list = [1, 2]\nlist.each { println it }\n";
+        GroovyCompilationUnit unit = createUnit("Search", contents);
+        unit.becomeWorkingCopy(null);
+        try {
+            List<ASTNode> nodes = new ArrayList<>(), enclosing = new ArrayList<>();
+            factory.createVisitor(unit).visitCompilationUnit((node, result, element) -> {
+                nodes.add(node);
+                enclosing.add(result.scope.getEnclosingNode());
+                return VisitStatus.CONTINUE;
+            });
+
+            for (int i = 0; i < 2; i += 1) {
+                List<ASTNode> replayedNodes = new ArrayList<>(), replayedEnclosing = new ArrayList<>();
+                InferencingRecord.replay(unit, (node, result, element) -> {
+                    replayedNodes.add(node);
+                    replayedEnclosing.add(result.scope.getEnclosingNode());
+                    return VisitStatus.CONTINUE;
+                });
+                Assert.assertEquals(nodes.size(), replayedNodes.size());
+                Assert.assertEquals(enclosing.stream().filter(Objects::nonNull).count(),
+                    replayedEnclosing.stream().filter(Objects::nonNull).count());
+            }
+        } finally {
+            unit.discardWorkingCopy();
+        }
+    }
+
+    @Test
+    public void testInferencingRecordVariables() throws Exception {
+        String contents = "def x = 1\nx.intValue()\nx = 'two'\nx.length()\n";
+        GroovyCompilationUnit unit = createUnit("Search", contents);
+        unit.becomeWorkingCopy(null);
+        try {
+            List<String> types = new ArrayList<>();
+            factory.createVisitor(unit).visitCompilationUnit((node, result, element) -> {
+                if (node instanceof VariableExpression && "x".equals(((VariableExpression) node).getName())) {
+                    types.add(result.scope.lookupName("x").type.getName());
+                }
+                return VisitStatus.CONTINUE;
+            });
+            Assert.assertTrue(types.toString(), types.contains("java.lang.Integer") && types.contains("java.lang.String"));
+
+            // replayed scopes must answer with the type the variable had at each reference, not at the end
+            for (int i = 0; i < 2; i += 1) {
+                List<String> replayedTypes = new ArrayList<>();
+                InferencingRecord.replay(unit, (node, result, element) -> {
+                    if (node instanceof VariableExpression && "x".equals(((VariableExpression) node).getName())) {
+                        replayedTypes.add(result.scope.lookupName("x").type.getName());
+                    }
+                    return VisitStatus.CONTINUE;
+                });
+                Assert.assertEquals(types, replayedTypes);
+            }
+        } finally {
+            unit.discardWorkingCopy();
+        }
+    }
 }
@@ -16,6 +16,8 @@
 package org.eclipse.jdt.core.groovy.tests.search;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 
@@ -30,6 +32,7 @@ import org.eclipse.jdt.core.search.SearchEngine;
 import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.search.NamePrefilter;
 import org.eclipse.jdt.groovy.search.TypeRequestorFactory;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -427,6 +430,30 @@ public final class MethodReferenceSearchTests extends SearchTestSuite {
         assertLocation(searchRequestor.getMatch(0), contents.lastIndexOf("bar"), "bar".length());
     }
 
+    @Test
+    public void testNamePrefilter1() throws Exception {
+        GroovyCompilationUnit foo = createUnit("Foo", "class Foo {\n  static String getBar() {}\n}");
+        GroovyCompilationUnit baz = createUnit("Baz", "def baz = new Foo().toString()");
+        GroovyCompilationUnit qux = createUnit("Qux", "def qux = Foo.bar");
+
+        SearchPattern pattern = SearchPattern.createPattern(foo.getType("Foo").getMethods()[0], IJavaSearchConstants.REFERENCES);
+        long filtered = NamePrefilter.getFilteredCount();
+
+        assertFalse(NamePrefilter.mayMatch(new MockPossibleMatch(baz), pattern));
+        assertTrue(NamePrefilter.mayMatch(new MockPossibleMatch(qux), pattern));
+        assertEquals(filtered + 1, NamePrefilter.getFilteredCount());
+    }
+
+    @Test
+    public void testNamePrefilter2() throws Exception {
+        GroovyCompilationUnit foo = createUnit("Foo", "class Foo {\n  def plus(Foo that) {}\n}");
+        GroovyCompilationUnit baz = createUnit("Baz", "def baz = new Foo() + new Foo()");
+
+        SearchPattern pattern = SearchPattern.createPattern(foo.getType("Foo").getMethods()[0], IJavaSearchConstants.REFERENCES);
+
+        assertTrue(NamePrefilter.mayMatch(new MockPossibleMatch(baz), pattern));
+    }
+
     @Test
     public void testExplicitPropertyGetterSearch1() throws Exception {
         GroovyCompilationUnit bar = createUnit("foo", "Bar",
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.core.tests.basic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.codehaus.groovy.eclipse.CompileMetrics;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.junit.Test;
+
+/**
+ * Test cases for {@link CompileMetrics}.
+ */
+public final class CompileMetricsTests extends GroovyCompilerTestSuite {
+
+    private static final String SINGLETON = "org.codehaus.groovy.transform.SingletonASTTransformation";
+
+    private static CompileMetrics getMetrics(String filename) {
+        return getCUDeclFor(filename).getCompilationUnit().getMetrics();
+    }
+
+    private static CompileMetrics.Counter findCounter(CompileMetrics metrics, String name) {
+        return metrics.getCounters().stream().filter(c -> c.getName().equals(name)).findFirst().orElse(null);
+    }
+
+    @Test
+    public void testTransformMetrics() {
+        String[] sources = {
+            "Wibble.groovy",
+            "@Singleton class Wibble {\n" +
+            "  public String field = 'abcd'\n" +
+            "}\n",
+        };
+
+        runConformTest(sources);
+
+        CompileMetrics metrics = getMetrics("Wibble.groovy");
+        CompileMetrics.Counter counter = findCounter(metrics, SINGLETON);
+        assertEquals(CompileMetrics.Kind.LOCAL_TRANSFORM, counter.getKind());
+        assertEquals("CANONICALIZATION", counter.getPhase());
+        assertEquals(1, counter.getInvocations());
+        assertTrue(counter.getMaxNanos() <= counter.getTotalNanos());
+
+        assertTrue(metrics.getCounters().stream().anyMatch(c ->
+            c.getKind() == CompileMetrics.Kind.PHASE && c.getPhase().equals("CLASS_GENERATION")));
+    }
+
+    @Test
+    public void testMetricsPerCompilation() {
+        CompileMetrics.TOTAL.reset();
+
+        runConformTest(new String[] {
+            "Wibble.groovy",
+            "@Singleton class Wibble {\n" +
+            "}\n",
+        });
+        CompileMetrics first = getMetrics("Wibble.groovy");
+
+        runConformTest(new String[] {
+            "Wobble.groovy",
+            "class Wobble {\n" +
+            "}\n",
+        });
+        CompileMetrics second = getMetrics("Wobble.groovy");
+
+        assertTrue(first != second);
+        assertEquals(1, findCounter(first, SINGLETON).getInvocations());
+        assertEquals(null, findCounter(second, SINGLETON));
+        // TOTAL adds up the metrics of every compilation
+        assertEquals(1, findCounter(CompileMetrics.TOTAL, SINGLETON).getInvocations());
+    }
+
+    @Test
+    public void testMetricsReport() throws Exception {
+        File report = File.createTempFile("compile-metrics", ".json");
+        try {
+            Map<String, String> options = getCompilerOptions();
+            options.put(CompilerOptions.OPTIONG_GroovyCompileMetricsReport, report.getAbsolutePath());
+
+            runConformTest(new String[] {
+                "Wibble.groovy",
+                "@Singleton class Wibble {\n" +
+                "}\n",
+            }, null, options);
+
+            String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+            assertTrue(json, json.startsWith("{\"counters\":["));
+            assertTrue(json, json.contains("\"name\":\"" + SINGLETON + "\""));
+            assertTrue(json, json.contains("\"kind\":\"PHASE\""));
+        } finally {
+            report.delete();
+        }
+    }
+}
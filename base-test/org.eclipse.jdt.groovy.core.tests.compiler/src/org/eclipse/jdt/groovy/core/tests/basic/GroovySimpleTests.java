@@ -22,8 +22,10 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -32,11 +34,16 @@ import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.IGroovyLogger;
+import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.jdt.groovy.internal.compiler.ast.EventListener;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyClassScope;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.jdt.groovy.core.Activator;
 import org.eclipse.jdt.core.util.ClassFileBytesDisassembler;
 import org.eclipse.jdt.internal.compiler.ast.ASTNode;
 import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
@@ -5279,6 +5286,44 @@ public final class GroovySimpleTests extends GroovyCompilerTestSuite {
         "----------\n");
     }
 
+    @Test
+    public void testParserWarmUp() {
+        assumeTrue(isParrotParser());
+
+        IStatus status = Activator.warmUpParser();
+        assertTrue(status.getMessage(), status.isOK());
+    }
+
+    @Test
+    public void testParserPredictionModeTrace() {
+        assumeTrue(isParrotParser());
+
+        List<String> messages = new ArrayList<>();
+        IGroovyLogger logger = new IGroovyLogger() {
+            @Override
+            public void log(TraceCategory category, String message) {
+                messages.add(message);
+            }
+            @Override
+            public boolean isCategoryEnabled(TraceCategory category) {
+                return category == TraceCategory.COMPILER;
+            }
+        };
+        GroovyLogManager.manager.addLogger(logger);
+        try {
+            runConformTest(new String[] {
+                "Script.groovy",
+                "print 'ok'\n",
+            },
+            "ok");
+        } finally {
+            GroovyLogManager.manager.removeLogger(logger);
+        }
+
+        assertTrue(messages.toString(), messages.stream().anyMatch(message ->
+            message.startsWith("Parsed ") && message.contains("Script.groovy in SLL mode")));
+    }
+
     //--------------------------------------------------------------------------
 
     private void assertEventCount(int expectedCount, EventListener listener) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,8 @@ public class LocationSupport {
 
     private final int[] lineEndings;
 
+    private int[] lineSeparators;
+
     private static final int[] NO_LINE_ENDINGS = new int[0];
 
     public static final LocationSupport NO_LOCATIONS = new LocationSupport();
@@ -47,6 +49,15 @@ public class LocationSupport {
         this.lineEndings = lineEndings;
     }
 
+    /**
+     * @param lineSeparators offsets of the line separators (see {@link #getLineSeparators()})
+     *     if they cannot be derived from the line endings; may be {@code null}
+     */
+    public LocationSupport(int[] lineEndings, int[] lineSeparators) {
+        this(lineEndings);
+        this.lineSeparators = lineSeparators;
+    }
+
     public LocationSupport(List<? extends CharSequence> lines) {
         this(lines != null ? processLineEndings(lines) : NO_LINE_ENDINGS);
     }
@@ -101,6 +112,22 @@ public class LocationSupport {
         throw new RuntimeException("Location is after end of document.  Offset: " + offset);
     }
 
+    /**
+     * Returns the offset of each line separator, using the offset of the '\n'
+     * for "\r\n", which is the form of JDT's line separator positions.
+     */
+    public int[] getLineSeparators() {
+        if (lineSeparators == null) {
+            int n = Math.max(0, lineEndings.length - 2);
+            int[] separators = new int[n];
+            for (int i = 0; i < n; i += 1) {
+                separators[i] = lineEndings[i + 1] - 1;
+            }
+            lineSeparators = separators;
+        }
+        return lineSeparators;
+    }
+
     public boolean isPopulated() {
         return (lineEndings.length > 0);
     }
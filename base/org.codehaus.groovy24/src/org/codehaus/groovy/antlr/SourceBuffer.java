@@ -31,7 +31,8 @@ public class SourceBuffer {
     private final List<StringBuilder> lines;
     private StringBuilder current;
     // GRECLIPSE add
-    private final List<Integer> lineEndings = new ArrayList<Integer>();
+    private int[] lineEndings = new int[64];
+    private int lineEndingsCount;
     // GRECLIPSE-805: Support for unicode escape sequences
     private UnicodeEscapingReader unescaper = new NoEscaper();
     // GRECLIPSE end
@@ -43,7 +44,7 @@ public class SourceBuffer {
         current = new StringBuilder();
         lines.add(current);
         // GRECLIPSE add
-        lineEndings.add(0);
+        lineEndings[lineEndingsCount++] = 0;
         // GRECLIPSE end
     }
 
@@ -124,9 +125,9 @@ public class SourceBuffer {
             } else { // \r\n was found
                 // back out previous line and add a \n to the line
                 lines.get(lines.size() - 1).append('\n');
-                lineEndings.remove(lineEndings.size() - 1);
+                lineEndingsCount -= 1;
             }
-            lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
+            addLineEnding(col + unescaper.getUnescapedUnicodeOffsetCount());
             // GRECLIPSE end
         }
         // GRECLIPSE add
@@ -134,7 +135,7 @@ public class SourceBuffer {
         if (c == '\r') {
             current = new StringBuilder();
             lines.add(current);
-            lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
+            addLineEnding(col + unescaper.getUnescapedUnicodeOffsetCount());
             // this may be a \r\n, but may not be
             prevWasCarriageReturn = true;
         } else {
@@ -145,13 +146,16 @@ public class SourceBuffer {
     private int col;
     private boolean prevWasCarriageReturn;
 
-    public LocationSupport getLocationSupport() {
-        lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount()); // last line ends where the data runs out
-        int[] lineEndingsArray = new int[lineEndings.size()];
-        for (int i = 0, max = lineEndings.size(); i < max; i += 1) {
-            lineEndingsArray[i] = lineEndings.get(i).intValue();
+    private void addLineEnding(int offset) {
+        if (lineEndingsCount == lineEndings.length) {
+            lineEndings = java.util.Arrays.copyOf(lineEndings, lineEndingsCount * 2);
         }
-        return new LocationSupport(lineEndingsArray);
+        lineEndings[lineEndingsCount++] = offset;
+    }
+
+    public LocationSupport getLocationSupport() {
+        addLineEnding(col + unescaper.getUnescapedUnicodeOffsetCount()); // last line ends where the data runs out
+        return new LocationSupport(java.util.Arrays.copyOf(lineEndings, lineEndingsCount));
     }
 
     public void setUnescaper(UnicodeEscapingReader unicodeEscapingReader) {
@@ -151,7 +151,8 @@ public class ResolveVisitor extends ClassCodeExpressionTransformer {
      * part. There is also the case of a imported class, so this logic
      * can't be done in these cases...
      */
-    private static class ConstructedClassWithPackage extends ClassNode {
+    // GRECLIPSE private->protected
+    protected static class ConstructedClassWithPackage extends ClassNode {
         String prefix;
         String className;
         public ConstructedClassWithPackage(String pkg, String name) {
@@ -39,6 +39,7 @@ import org.codehaus.groovy.control.Phases;
 import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.control.messages.SimpleMessage;
 import org.codehaus.groovy.control.messages.WarningMessage;
+import org.codehaus.groovy.eclipse.CompileMetrics;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.runtime.DefaultGroovyMethods;
@@ -47,12 +48,11 @@ import org.codehaus.groovy.syntax.SyntaxException;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -201,8 +201,10 @@ public final class ASTTransformationVisitor extends ClassCodeVisitorSupport {
                                 source.getErrorCollector().transformActive = false;
                             }
                         }
+                        long nanos = System.nanoTime() - t0;
+                        context.getCompilationUnit().getMetrics().record(CompileMetrics.Kind.LOCAL_TRANSFORM, snt.getClass().getName(), phase.name(), nanos);
                         if (GroovyLogManager.manager.hasLoggers()) {
-                            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+                            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
                             String sourceName = DefaultGroovyMethods.last(source.getName().split("/|\\\\"));
                             GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM, "Local transform " + snt.getClass().getName() + " applied to " + sourceName + "(" + getTargetName(node[1], classNode) + ") in " + millis + "ms");
                         }
@@ -280,16 +282,23 @@ public final class ASTTransformationVisitor extends ClassCodeVisitorSupport {
         GroovyClassLoader transformLoader = compilationUnit.getTransformLoader();
         Map<String, URL> transformNames = new LinkedHashMap<String, URL>();
         try {
-            Enumeration<URL> globalServices = transformLoader.getResources("META-INF/services/org.codehaus.groovy.transform.ASTTransformation");
+            // GRECLIPSE edit -- read service files once for each transform classpath
+            /*Enumeration<URL> globalServices = transformLoader.getResources("META-INF/services/org.codehaus.groovy.transform.ASTTransformation");
             while (globalServices.hasMoreElements()) {
-                URL service = globalServices.nextElement();
+                URL service = globalServices.nextElement();*/
+            for (GlobalTransformServices.Definition definition : GlobalTransformServices.find(transformLoader, compilationUnit.getErrorCollector())) {
+                URL service = definition.service;
+            // GRECLIPSE end
                 String className;
                 // GRECLIPSE add -- don't consume our own META-INF entries
                 if (skipManifest(compilationUnit, service)) continue;
                 // GRECLIPSE end
                 BufferedReader svcIn = null;
                 try {
-                    svcIn = new BufferedReader(new InputStreamReader(service.openStream(), "UTF-8"));
+                    // GRECLIPSE edit
+                    //svcIn = new BufferedReader(new InputStreamReader(service.openStream(), "UTF-8"));
+                    svcIn = new BufferedReader(new StringReader(definition.text));
+                    // GRECLIPSE end
                     try {
                         className = svcIn.readLine();
                     } catch (IOException ioe) {
@@ -428,7 +437,10 @@ public final class ASTTransformationVisitor extends ClassCodeVisitorSupport {
         GroovyClassLoader transformLoader = compilationUnit.getTransformLoader();
         for (Map.Entry<String, URL> entry : transformNames.entrySet()) {
             try {
-                Class gTransClass = transformLoader.loadClass(entry.getKey(), false, true, false);
+                // GRECLIPSE edit
+                //Class gTransClass = transformLoader.loadClass(entry.getKey(), false, true, false);
+                Class gTransClass = GlobalTransformServices.loadClass(transformLoader, entry.getKey());
+                // GRECLIPSE end
                 GroovyASTTransformation transformAnnotation = (GroovyASTTransformation) gTransClass.getAnnotation(GroovyASTTransformation.class);
                 if (transformAnnotation == null) {
                     compilationUnit.getErrorCollector().addWarning(new WarningMessage(
@@ -470,8 +482,10 @@ public final class ASTTransformationVisitor extends ClassCodeVisitorSupport {
                                         source.getErrorCollector().transformActive = false;
                                     }
                                 }
+                                long nanos = System.nanoTime() - t0;
+                                compilationUnit.getMetrics().record(CompileMetrics.Kind.GLOBAL_TRANSFORM, instance.getClass().getName(), transformAnnotation.phase().name(), nanos);
                                 if (GroovyLogManager.manager.hasLoggers()) {
-                                    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+                                    long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
                                     String sourceName = DefaultGroovyMethods.last(source.getName().split("/|\\\\"));
                                     GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM, "Global transform " + instance.getClass().getName() + " applied to " + sourceName + " in " + millis + "ms");
                                 }
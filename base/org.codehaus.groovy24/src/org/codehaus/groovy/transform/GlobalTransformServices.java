@@ -0,0 +1,187 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.transform;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import groovy.lang.GroovyClassLoader;
+import org.codehaus.groovy.control.ErrorCollector;
+import org.codehaus.groovy.control.messages.SimpleMessage;
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
+
+/**
+ * Global transform service files and transform classes found through a
+ * transform loader.  Service files are read once for each distinct classpath;
+ * the classpath fingerprint includes the time stamp and size of every jar, so
+ * that a changed jar results in a new scan.  Transform classes are kept for as
+ * long as the loader that loaded them.
+ */
+final class GlobalTransformServices {
+
+    static final String SERVICE_PATH = "META-INF/services/org.codehaus.groovy.transform.ASTTransformation";
+
+    /** Service file location and contents. */
+    static final class Definition {
+        final URL service;
+        final String text;
+
+        Definition(URL service, String text) {
+            this.service = service;
+            this.text = text;
+        }
+    }
+
+    private static final class Discovery {
+        final List<Definition> definitions;
+        final long scanNanos;
+
+        Discovery(List<Definition> definitions, long scanNanos) {
+            this.definitions = definitions;
+            this.scanNanos = scanNanos;
+        }
+    }
+
+    private static final int MAX_DISCOVERIES = 32;
+
+    private static final Map<String, Discovery> discoveries = new ConcurrentHashMap<>();
+
+    private static final Map<ClassLoader, Map<String, Reference<Class<?>>>> loadedClasses = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private GlobalTransformServices() {
+    }
+
+    /**
+     * @return service files visible to the loader, in classpath order
+     */
+    static List<Definition> find(GroovyClassLoader transformLoader, ErrorCollector errorCollector) throws IOException {
+        long t0 = System.nanoTime();
+        String fingerprint = fingerprint(transformLoader);
+        Discovery discovery = discoveries.get(fingerprint);
+        if (discovery != null) {
+            if (GroovyLogManager.manager.hasLoggers()) {
+                long saved = TimeUnit.NANOSECONDS.toMillis(discovery.scanNanos - (System.nanoTime() - t0));
+                GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM, "Global transform discovery reused for " +
+                    discovery.definitions.size() + " service files; saved " + Math.max(saved, 0) + "ms");
+            }
+            return discovery.definitions;
+        }
+
+        long t1 = System.nanoTime();
+        boolean complete = true;
+        List<Definition> definitions = new ArrayList<>();
+        Enumeration<URL> globalServices = transformLoader.getResources(SERVICE_PATH);
+        while (globalServices.hasMoreElements()) {
+            URL service = globalServices.nextElement();
+            try (Reader reader = new InputStreamReader(service.openStream(), "UTF-8")) {
+                StringBuilder text = new StringBuilder();
+                char[] buffer = new char[1024];
+                for (int n; (n = reader.read(buffer)) != -1;) {
+                    text.append(buffer, 0, n);
+                }
+                definitions.add(new Definition(service, text.toString()));
+            } catch (IOException ioe) {
+                errorCollector.addError(new SimpleMessage(
+                    "IOException reading the service definition at " +
+                    service.toExternalForm() + " because of exception " + ioe.toString(), null));
+                complete = false;
+            }
+        }
+        definitions = Collections.unmodifiableList(definitions);
+        long scanNanos = System.nanoTime() - t1;
+
+        // leave incomplete scans to be repeated, so that read errors are reported for every compile
+        if (complete) {
+            if (discoveries.size() >= MAX_DISCOVERIES) {
+                discoveries.clear();
+            }
+            discoveries.put(fingerprint, new Discovery(definitions, scanNanos));
+        }
+        if (GroovyLogManager.manager.hasLoggers()) {
+            GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM, "Global transform discovery found " +
+                definitions.size() + " service files in " + TimeUnit.NANOSECONDS.toMillis(scanNanos) + "ms");
+        }
+        return definitions;
+    }
+
+    /**
+     * Loads a global transform class, reusing the class found by an earlier
+     * request to the same loader.
+     */
+    static Class<?> loadClass(GroovyClassLoader transformLoader, String className) throws ClassNotFoundException {
+        Map<String, Reference<Class<?>>> classes = loadedClasses.computeIfAbsent(transformLoader, loader -> new ConcurrentHashMap<>());
+        Reference<Class<?>> reference = classes.get(className);
+        Class<?> transformClass = (reference != null ? reference.get() : null);
+        if (transformClass == null) {
+            transformClass = transformLoader.loadClass(className, false, true, false);
+            // class is strongly reachable from its loader; weak reference keeps the key collectable
+            classes.put(className, new WeakReference<>(transformClass));
+        }
+        return transformClass;
+    }
+
+    /**
+     * Describes the loader's classpath: the URLs of each loader in the chain,
+     * with time stamp and size of the files they refer to.  Loaders that do not
+     * expose their classpath are identified by instance.
+     */
+    private static String fingerprint(ClassLoader transformLoader) {
+        StringBuilder sb = new StringBuilder();
+        for (ClassLoader loader = transformLoader; loader != null; loader = loader.getParent()) {
+            if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                    sb.append(url);
+                    if ("file".equals(url.getProtocol())) {
+                        File file = toFile(url);
+                        if (file.isDirectory()) {
+                            // folder changes are only relevant if they affect the service file
+                            file = new File(file, SERVICE_PATH);
+                        }
+                        sb.append('@').append(file.lastModified()).append(':').append(file.length());
+                    }
+                    sb.append('\n');
+                }
+            } else {
+                sb.append(loader.getClass().getName()).append('@').append(Integer.toHexString(System.identityHashCode(loader))).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static File toFile(URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return new File(url.getPath());
+        }
+    }
+}
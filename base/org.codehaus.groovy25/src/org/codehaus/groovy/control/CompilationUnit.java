@@ -44,6 +44,7 @@ import org.codehaus.groovy.control.io.ReaderSource;
 import org.codehaus.groovy.control.messages.ExceptionMessage;
 import org.codehaus.groovy.control.messages.Message;
 import org.codehaus.groovy.control.messages.SimpleMessage;
+import org.codehaus.groovy.eclipse.CompileMetrics;
 import org.codehaus.groovy.syntax.SyntaxException;
 import org.codehaus.groovy.tools.GroovyClass;
 import org.codehaus.groovy.transform.ASTTransformationVisitor;
@@ -600,6 +601,9 @@ public class CompilationUnit extends ProcessingUnit {
         throughPhase = Math.min(throughPhase, Phases.ALL);
 
         while (throughPhase >= phase && phase <= Phases.ALL) {
+            // GRECLIPSE add
+            long t0 = System.nanoTime();
+            // GRECLIPSE end
 
             if (phase == Phases.SEMANTIC_ANALYSIS) {
                 doPhaseOperation(resolve);
@@ -613,6 +617,9 @@ public class CompilationUnit extends ProcessingUnit {
             if (progressCallback != null) progressCallback.call(this, phase);
             completePhase();
             applyToSourceUnits(mark);
+            // GRECLIPSE add
+            metrics.record(CompileMetrics.Kind.PHASE, Phases.getDescription(phase), CompilePhase.fromPhaseNumber(phase).name(), System.nanoTime() - t0);
+            // GRECLIPSE end
 
             if (dequeued()) continue;
 
@@ -730,7 +737,12 @@ public class CompilationUnit extends ProcessingUnit {
      */
     private final SourceUnitOperation convert = new SourceUnitOperation() {
         public void call(SourceUnit source) throws CompilationFailedException {
-            source.convert();
+            // GRECLIPSE edit -- AST may have been built ahead of time on another thread
+            //source.convert();
+            if (source.getPhase() != Phases.CONVERSION || source.getAST() == null) {
+                source.convert();
+            }
+            // GRECLIPSE end
             CompilationUnit.this.ast.addModule(source.getAST());
 
 
@@ -1219,6 +1231,15 @@ public class CompilationUnit extends ProcessingUnit {
     }
 
     // GRECLIPSE add
+    private final CompileMetrics metrics = new CompileMetrics();
+
+    /**
+     * @return timings of the phases and AST transforms of this compilation
+     */
+    public CompileMetrics getMetrics() {
+        return metrics;
+    }
+
     public interface ProgressListener {
         void parseComplete(int phase, String sourceUnitName);
         void generateComplete(int phase, ClassNode classNode);
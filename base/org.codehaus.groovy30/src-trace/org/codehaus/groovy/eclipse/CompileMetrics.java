@@ -0,0 +1,176 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates timings of compile phases and of the AST transforms run within
+ * them.  Each compilation unit has its own metrics (see
+ * {@code CompilationUnit.getMetrics()}), which also add to the {@link #TOTAL}
+ * metrics for the life of the VM or until they are {@link #reset()}.  Unlike
+ * the trace log, metrics are collected whether or not a logger is attached.
+ */
+public final class CompileMetrics {
+
+    public enum Kind {
+        PHASE, GLOBAL_TRANSFORM, LOCAL_TRANSFORM
+    }
+
+    public static final class Counter {
+        private final Kind kind;
+        private final String name;
+        private final String phase;
+
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Counter(Kind kind, String name, String phase) {
+            this.kind = kind;
+            this.name = name;
+            this.phase = phase;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return transform class name or phase description
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return name of the compile phase, like "SEMANTIC_ANALYSIS"
+         */
+        public String getPhase() {
+            return phase;
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+
+    /** Metrics of all compilations. */
+    public static final CompileMetrics TOTAL = new CompileMetrics(null);
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final CompileMetrics parent;
+
+    /**
+     * Creates metrics for one compilation; what they record is also added to
+     * the {@link #TOTAL} metrics.
+     */
+    public CompileMetrics() {
+        this(TOTAL);
+    }
+
+    private CompileMetrics(CompileMetrics parent) {
+        this.parent = parent;
+    }
+
+    public void record(Kind kind, String name, String phase, long nanos) {
+        Counter counter = counters.computeIfAbsent(kind + "|" + name + "|" + phase, key -> new Counter(kind, name, phase));
+        counter.invocations.increment();
+        counter.totalNanos.add(nanos);
+        counter.maxNanos.accumulateAndGet(nanos, Math::max);
+        if (parent != null) {
+            parent.record(kind, name, phase, nanos);
+        }
+    }
+
+    /**
+     * @return snapshot of the counters, most time consuming first
+     */
+    public List<Counter> getCounters() {
+        List<Counter> list = new ArrayList<>(counters.values());
+        list.sort(Comparator.comparingLong(Counter::getTotalNanos).reversed());
+        return list;
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+    /**
+     * @return counters as a plain-text table for display
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-16s %-22s %8s %10s %10s  %s%n", "Kind", "Phase", "Count", "Total ms", "Max ms", "Name"));
+        for (Counter counter : getCounters()) {
+            sb.append(String.format("%-16s %-22s %8d %10d %10d  %s%n", counter.kind, counter.phase, counter.getInvocations(),
+                TimeUnit.NANOSECONDS.toMillis(counter.getTotalNanos()), TimeUnit.NANOSECONDS.toMillis(counter.getMaxNanos()), counter.name));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the counters as a JSON document of the form
+     * <code>{"counters":[{"kind":..., "name":..., "phase":..., "invocations":..., "totalNanos":..., "maxNanos":...}, ...]}</code>.
+     */
+    public void writeReport(Writer writer) throws IOException {
+        writer.write("{\"counters\":[");
+        String separator = "\n";
+        for (Counter counter : getCounters()) {
+            writer.write(separator);
+            writer.write("{\"kind\":" + quote(counter.kind.name()) + ",\"name\":" + quote(counter.name) + ",\"phase\":" + quote(counter.phase) +
+                ",\"invocations\":" + counter.getInvocations() + ",\"totalNanos\":" + counter.getTotalNanos() + ",\"maxNanos\":" + counter.getMaxNanos() + "}");
+            separator = ",\n";
+        }
+        writer.write("\n]}\n");
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0, n = value.length(); i < n; i += 1) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ public enum TraceCategory {
     REFACTORING("Refactoring"),
     AST_TRANSFORM("AST Transforms"),
     CONTENT_ASSIST("Content assist"),
+    CODE_MINING("Code minings"),
     ORGANIZE_IMPORTS("Clean imports");
 
     TraceCategory(String label) {
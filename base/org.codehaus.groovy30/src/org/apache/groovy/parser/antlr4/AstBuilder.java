@@ -141,6 +141,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -372,18 +373,29 @@ public class AstBuilder extends GroovyParserBaseVisitor<Object> {
 
         // GRECLIPSE add
         try (BufferedReader reader = new BufferedReader(sourceUnit.getSource().getReader())) {
-            // TODO: Can this be done without boxing/unboxing offsets or juggling temp arrays?
-            int chr, off = 0; List<Integer> ends = new ArrayList<>(32); ends.add(0);
-            while ((chr = reader.read()) != -1) { off += 1;
-                if (chr == '\n') ends.add(off);
+            // line endings follow the lexer, which ends lines at '\n' only; line separators
+            // (for JDT) also include each lone '\r', so they are tracked apart once one is seen
+            int[] ends = new int[64], seps = null;
+            int chr, prv = -1, off = 0, n = 1, m = 0;
+            while ((chr = reader.read()) != -1) {
+                if (prv == '\r' && chr != '\n') {
+                    if (seps == null) { seps = lineSeparators(ends, n); m = n - 1; }
+                    seps = append(seps, m++, off - 1);
+                }
+                off += 1;
+                if (chr == '\n') {
+                    ends = append(ends, n++, off);
+                    if (seps != null) seps = append(seps, m++, off - 1);
+                }
+                prv = chr;
             }
-            ends.add(off);
-
-            int[] arr = new int[ends.size()];
-            for (int i = 0, n = arr.length; i < n; i += 1) {
-                arr[i] = ends.get(i);
+            if (prv == '\r') {
+                if (seps == null) { seps = lineSeparators(ends, n); m = n - 1; }
+                seps = append(seps, m++, off - 1);
             }
-            this.locationSupport = new LocationSupport(arr);
+            ends = append(ends, n++, off);
+
+            this.locationSupport = new LocationSupport(Arrays.copyOf(ends, n), seps != null ? Arrays.copyOf(seps, m) : null);
         } catch (Exception e) {
             throw new RuntimeException("Error occurred reading the source code.", e);
         }
@@ -391,6 +403,22 @@ public class AstBuilder extends GroovyParserBaseVisitor<Object> {
     }
 
     // GRECLIPSE add
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, index * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    private static int[] lineSeparators(int[] lineEndings, int count) {
+        int[] separators = new int[Math.max(16, count * 2)];
+        for (int i = 1; i < count; i += 1) {
+            separators[i - 1] = lineEndings[i] - 1;
+        }
+        return separators;
+    }
+
     private <T extends ASTNode> T configureAST(T astNode) {
         if (astNode.getLineNumber() > 0) {
             astNode.setStart(locationSupport.findOffset(astNode.getLineNumber(), astNode.getColumnNumber()));
@@ -452,11 +480,17 @@ public class AstBuilder extends GroovyParserBaseVisitor<Object> {
             AtnManager.READ_LOCK.lock();
             try {
                 result = buildCST(PredictionMode.SLL);
+                // GRECLIPSE add
+                recordPredictionMode(PredictionMode.SLL, null);
+                // GRECLIPSE end
             } catch (Throwable t) {
                 // if some syntax error occurred in the lexer, no need to retry the powerful LL mode
                 if (t instanceof GroovySyntaxError && GroovySyntaxError.LEXER == ((GroovySyntaxError) t).getSource()) {
                     throw t;
                 }
+                // GRECLIPSE add
+                recordPredictionMode(PredictionMode.LL, t);
+                // GRECLIPSE end
 
                 result = buildCST(PredictionMode.LL);
             } finally {
@@ -469,6 +503,54 @@ public class AstBuilder extends GroovyParserBaseVisitor<Object> {
         return result;
     }
 
+    // GRECLIPSE add
+    /**
+     * SLL parses, LL fallbacks and the line of the last fallback, by source name.
+     */
+    private static final Map<String, long[]> PREDICTION_MODE_STATS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the number of parses of the named source that succeeded in SLL
+     * mode, the number that fell back to LL mode and the line of the token at
+     * which SLL parsing last failed (or 0).
+     */
+    public static long[] getPredictionModeStats(String sourceName) {
+        long[] stats = PREDICTION_MODE_STATS.get(sourceName);
+        if (stats == null) {
+            return new long[3];
+        }
+        synchronized (stats) {
+            return stats.clone();
+        }
+    }
+
+    public static void clearPredictionModeStats() {
+        PREDICTION_MODE_STATS.clear();
+    }
+
+    /**
+     * Counts the parse and puts the mode used and a snapshot of the counts on
+     * the module node ("prediction.mode" and "prediction.mode.stats"), where
+     * the IDE picks them up for its trace log.
+     */
+    private void recordPredictionMode(PredictionMode predictionMode, Throwable cause) {
+        long[] stats = PREDICTION_MODE_STATS.computeIfAbsent(sourceUnit.getName(), x -> new long[3]);
+        synchronized (stats) {
+            if (PredictionMode.SLL.equals(predictionMode)) {
+                stats[0] += 1;
+            } else {
+                stats[1] += 1;
+                if (cause instanceof ParseCancellationException) cause = cause.getCause();
+                if (cause instanceof RecognitionException && ((RecognitionException) cause).getOffendingToken() != null) {
+                    stats[2] = ((RecognitionException) cause).getOffendingToken().getLine();
+                }
+            }
+            moduleNode.putNodeMetaData("prediction.mode.stats", stats.clone());
+        }
+        moduleNode.putNodeMetaData("prediction.mode", predictionMode.name());
+    }
+    // GRECLIPSE end
+
     private GroovyParserRuleContext buildCST(PredictionMode predictionMode) {
         parser.getInterpreter().setPredictionMode(predictionMode);
 
@@ -0,0 +1,117 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.groovy.parser.antlr4.internal.atnmanager;
+
+import groovyjarjarantlr4.v4.runtime.atn.ATN;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Manage ATN to avoid memory leak
+ *
+ * @author <a href="mailto:realbluesun@hotmail.com">Daniel.Sun</a>
+ * Created on 2016/08/14
+ */
+public abstract class AtnManager {
+    private static final ReentrantReadWriteLock RRWL = new ReentrantReadWriteLock(true);
+    private static final ReentrantReadWriteLock.WriteLock WRITE_LOCK = RRWL.writeLock();
+    public static final ReentrantReadWriteLock.ReadLock READ_LOCK = RRWL.readLock();
+    /* GRECLIPSE edit -- clear DFA cache on memory pressure instead of every N parses
+    private static final String DFA_CACHE_THRESHOLD_OPT = "groovy.antlr4.cache.threshold";
+    private static final int DEFAULT_DFA_CACHE_THRESHOLD = 64;
+    private static final int MIN_DFA_CACHE_THRESHOLD = 2;
+    private static final int DFA_CACHE_THRESHOLD;
+
+    static {
+        int t = DEFAULT_DFA_CACHE_THRESHOLD;
+
+        try {
+            t = Integer.parseInt(System.getProperty(DFA_CACHE_THRESHOLD_OPT));
+
+            // cache threshold should be at least MIN_DFA_CACHE_THRESHOLD for better performance
+            t = t < MIN_DFA_CACHE_THRESHOLD ? MIN_DFA_CACHE_THRESHOLD : t;
+        } catch (Exception e) {
+            // ignored
+        }
+
+        DFA_CACHE_THRESHOLD = t;
+    }
+    */
+    private static final AtomicLong CLEAR_COUNT = new AtomicLong();
+
+    /**
+     * @return number of times the DFA cache of the lexer or parser was cleared
+     */
+    public static long getClearCount() {
+        return CLEAR_COUNT.get();
+    }
+    // GRECLIPSE end
+
+    public abstract ATN getATN();
+
+    protected abstract boolean shouldClearDfaCache();
+
+    protected class AtnWrapper {
+        private final ATN atn;
+        /* GRECLIPSE edit
+        private final AtomicLong counter = new AtomicLong(0);
+        */
+        private volatile SoftReference<Object> sentinel = new SoftReference<>(new Object());
+        // GRECLIPSE end
+
+        public AtnWrapper(ATN atn) {
+            this.atn = atn;
+        }
+
+        public ATN checkAndClear() {
+            if (!shouldClearDfaCache()) {
+                return atn;
+            }
+
+            /* GRECLIPSE edit
+            if (0 != counter.incrementAndGet() % DFA_CACHE_THRESHOLD) {
+                return atn;
+            }
+            */
+            // soft references are cleared before the VM runs out of memory
+            if (sentinel.get() != null) {
+                return atn;
+            }
+            // GRECLIPSE end
+
+            WRITE_LOCK.lock();
+            try {
+                // GRECLIPSE edit
+                //atn.clearDFA();
+                if (sentinel.get() == null) {
+                    atn.clearDFA();
+                    CLEAR_COUNT.incrementAndGet();
+                    sentinel = new SoftReference<>(new Object());
+                }
+                // GRECLIPSE end
+            } finally {
+                WRITE_LOCK.unlock();
+            }
+
+            return atn;
+        }
+    }
+}
@@ -30,7 +30,8 @@ import java.util.List;
 public class SourceBuffer {
     // GRECLIPSE edit
     private final List<StringBuilder> lines = new ArrayList<>();
-    private final List<Integer> lineEndings = new ArrayList<>();
+    private int[] lineEndings = new int[64];
+    private int lineEndingsCount;
     private StringBuilder current = new StringBuilder();
     // GRECLIPSE-805: Support for unicode escape sequences
     private UnicodeEscapingReader unescaper = new NoEscaper();
@@ -39,7 +40,7 @@ public class SourceBuffer {
     public SourceBuffer() {
         // GRECLIPSE edit
         lines.add(current);
-        lineEndings.add(0);
+        lineEndings[lineEndingsCount++] = 0;
         // GRECLIPSE end
     }
 
@@ -120,9 +121,9 @@ public class SourceBuffer {
             } else { // \r\n was found
                 // back out previous line and add a \n to the line
                 lines.get(lines.size() - 1).append('\n');
-                lineEndings.remove(lineEndings.size() - 1);
+                lineEndingsCount -= 1;
             }
-            lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
+            addLineEnding(col + unescaper.getUnescapedUnicodeOffsetCount());
             // GRECLIPSE end
         }
         // GRECLIPSE add
@@ -130,7 +131,7 @@ public class SourceBuffer {
         if (c == '\r') {
             current = new StringBuilder();
             lines.add(current);
-            lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
+            addLineEnding(col + unescaper.getUnescapedUnicodeOffsetCount());
             // this may be a \r\n, but may not be
             prevWasCarriageReturn = true;
         } else {
@@ -141,13 +142,16 @@ public class SourceBuffer {
     private int col;
     private boolean prevWasCarriageReturn;
 
-    public LocationSupport getLocationSupport() {
-        lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount()); // last line ends where the data runs out
-        int[] lineEndingsArray = new int[lineEndings.size()];
-        for (int i = 0, max = lineEndings.size(); i < max; i += 1) {
-            lineEndingsArray[i] = lineEndings.get(i).intValue();
+    private void addLineEnding(int offset) {
+        if (lineEndingsCount == lineEndings.length) {
+            lineEndings = java.util.Arrays.copyOf(lineEndings, lineEndingsCount * 2);
         }
-        return new LocationSupport(lineEndingsArray);
+        lineEndings[lineEndingsCount++] = offset;
+    }
+
+    public LocationSupport getLocationSupport() {
+        addLineEnding(col + unescaper.getUnescapedUnicodeOffsetCount()); // last line ends where the data runs out
+        return new LocationSupport(java.util.Arrays.copyOf(lineEndings, lineEndingsCount));
     }
 
     public void setUnescaper(UnicodeEscapingReader unicodeEscapingReader) {
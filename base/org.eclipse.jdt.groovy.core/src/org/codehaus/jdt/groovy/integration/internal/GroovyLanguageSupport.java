@@ -20,10 +20,20 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import groovy.lang.Binding;
 import groovy.lang.GroovyClassLoader;
@@ -38,6 +48,7 @@ import org.codehaus.groovy.control.Phases;
 import org.codehaus.groovy.control.ResolveVisitor;
 import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.codehaus.jdt.groovy.integration.EventHandler;
 import org.codehaus.jdt.groovy.integration.ISupplementalIndexer;
 import org.codehaus.jdt.groovy.integration.LanguageSupport;
@@ -54,6 +65,7 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
@@ -63,13 +75,16 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchPattern;
 import org.eclipse.jdt.core.search.SearchRequestor;
 import org.eclipse.jdt.core.util.CompilerUtils;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.GroovyUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.DeferredSearchRequestor;
 import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.NamePrefilter;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 import org.eclipse.jdt.groovy.search.TypeRequestorFactory;
@@ -203,11 +218,10 @@ public class GroovyLanguageSupport implements LanguageSupport {
             gcu.setResolveVisitor(resolver);
             gcu.addSource(groovySourceUnit);
 
-            compilationResult.lineSeparatorPositions = GroovyUtils.getSourceLineSeparatorsIn(icu.getContents()); // TODO: Get from Antlr
-
             GroovyCompilationUnitDeclaration decl = new GroovyCompilationUnitDeclaration(problemReporter, compilationResult, sourceLength, gcu, groovySourceUnit, problemReporter.options);
 
             decl.processToPhase(Phases.CONVERSION);
+            decl.initializeLineSeparatorPositions();
 
             // regardless of a successful outcome, build what is possible in the face of any errors
             if (decl.getModuleNode() != null) {
@@ -237,22 +251,13 @@ public class GroovyLanguageSupport implements LanguageSupport {
             Binding binding = new Binding();
             binding.setVariable("configuration", config);
 
-            CompilerConfiguration configuratorConfig = new CompilerConfiguration();
-            org.osgi.framework.Version v = GroovyUtils.getGroovyVersion();
-            if ((v.getMajor() == 2 && v.getMinor() >= 1) || v.getMajor() > 2) {
-                ImportCustomizer customizer = new ImportCustomizer().addStaticStars(
-                    "org.codehaus.groovy.control.customizers.builder.CompilerCustomizationBuilder");
-                configuratorConfig.addCompilationCustomizers(customizer);
-            }
-
-            GroovyShell shell = new GroovyShell(binding, configuratorConfig);
             try {
                 File configScript = new File(compilerOptions.groovyCompilerConfigScript);
                 if (!configScript.isAbsolute() && compilerOptions.groovyProjectName != null) {
                     IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(compilerOptions.groovyProjectName);
                     configScript = new File(project.getLocation().append(configScript.getPath()).toOSString());
                 }
-                shell.evaluate(configScript);
+                InvokerHelper.createScript(getConfigScriptClass(configScript), binding).run();
             } catch (Exception e) {
                 int severity = ProblemSeverities.Error;
                 CompilationResult compilationResult = null;
@@ -273,6 +278,55 @@ public class GroovyLanguageSupport implements LanguageSupport {
         return config;
     }
 
+    /**
+     * Compiled compiler config scripts by file path.  A configuration is created
+     * for each compilation unit (including each reconcile), so the script is only
+     * recompiled when its file changes; running the compiled script is cheap.
+     */
+    private static final Map<String, ConfigScript> configScripts = new ConcurrentHashMap<>();
+
+    private static class ConfigScript {
+        final long lastModified, length;
+        final Class<?> scriptClass;
+        final Exception compileError;
+
+        ConfigScript(File file) {
+            lastModified = file.lastModified();
+            length = file.length();
+
+            CompilerConfiguration configuratorConfig = new CompilerConfiguration();
+            org.osgi.framework.Version v = GroovyUtils.getGroovyVersion();
+            if ((v.getMajor() == 2 && v.getMinor() >= 1) || v.getMajor() > 2) {
+                ImportCustomizer customizer = new ImportCustomizer().addStaticStars(
+                    "org.codehaus.groovy.control.customizers.builder.CompilerCustomizationBuilder");
+                configuratorConfig.addCompilationCustomizers(customizer);
+            }
+
+            Class<?> type = null;
+            Exception error = null;
+            try {
+                type = new GroovyShell(configuratorConfig).getClassLoader().parseClass(file);
+            } catch (Exception e) {
+                error = e;
+            }
+            scriptClass = type;
+            compileError = error;
+        }
+
+        boolean isCurrent(File file) {
+            return (lastModified == file.lastModified() && length == file.length());
+        }
+    }
+
+    private static Class<?> getConfigScriptClass(File file) throws Exception {
+        ConfigScript configScript = configScripts.compute(file.getAbsolutePath(),
+            (path, cached) -> (cached != null && cached.isCurrent(file) ? cached : new ConfigScript(file)));
+        if (configScript.compileError != null) {
+            throw configScript.compileError;
+        }
+        return configScript.scriptClass;
+    }
+
     public static GroovyClassLoader newGroovyClassLoader(IJavaProject project, ClassLoader parentLoader) {
         Map<String, String> options = project.getOptions(true);
         CompilerUtils.configureOptionsBasedOnNature(options, project);
@@ -308,6 +362,9 @@ public class GroovyLanguageSupport implements LanguageSupport {
     @Override
     public boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor) {
         if (possibleMatch.openable != null && possibleMatch.openable.exists()) {
+            if (!NamePrefilter.mayMatch(possibleMatch, pattern)) {
+                return true; // searched name does not occur in source; nothing to report
+            }
             ITypeRequestor typeRequestor = new TypeRequestorFactory().createRequestor(possibleMatch, pattern, requestor);
             if (typeRequestor != null) {
                 TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(possibleMatch);
@@ -318,6 +375,99 @@ public class GroovyLanguageSupport implements LanguageSupport {
         return false;
     }
 
+    /**
+     * Worker pool for delegated search.  Each task creates its own type requestor
+     * and inferencing visitor and collects matches into its own buffer, so search
+     * state is confined to a single thread until results are replayed.  The buffer
+     * tells the type requestors which client the matches are for.
+     */
+    private static final ExecutorService searchExecutor;
+    static {
+        int n = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(n, n, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Groovy delegated search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        searchExecutor = executor;
+    }
+
+    @Override
+    public Set<PossibleMatch> performDelegatedSearch(PossibleMatch[] possibleMatches, SearchPattern pattern, SearchRequestor requestor, IProgressMonitor monitor) {
+        if (possibleMatches.length < 2 || Runtime.getRuntime().availableProcessors() < 2) {
+            return LanguageSupport.super.performDelegatedSearch(possibleMatches, pattern, requestor, monitor);
+        }
+
+        List<Future<List<SearchMatch>>> results = new ArrayList<>(possibleMatches.length);
+        for (PossibleMatch possibleMatch : possibleMatches) {
+            results.add(searchExecutor.submit(() -> {
+                if (monitor != null && monitor.isCanceled()) {
+                    return null;
+                }
+                DeferredSearchRequestor collector = new DeferredSearchRequestor(requestor);
+                try {
+                    return maybePerformDelegatedSearch(possibleMatch, pattern, collector) ? collector.getMatches() : null;
+                } catch (OperationCanceledException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    // a failure in one unit must not abort the search of the others
+                    Util.log(e, "Error searching in resource " + possibleMatch.resource);
+                    return collector.getMatches();
+                }
+            }));
+        }
+
+        Set<PossibleMatch> searched = new HashSet<>();
+        try {
+            // replay matches on the calling thread in the order of the possible matches
+            for (int i = 0, n = possibleMatches.length; i < n; i += 1) {
+                List<SearchMatch> matches = awaitSearchResult(results.get(i), monitor);
+                if (matches != null) {
+                    searched.add(possibleMatches[i]);
+                    for (SearchMatch match : matches) {
+                        try {
+                            requestor.acceptSearchMatch(match);
+                        } catch (Exception e) {
+                            Util.log(e, "Error reporting search match in resource " + match.getResource());
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (Future<?> result : results) {
+                result.cancel(false);
+            }
+        }
+        return searched;
+    }
+
+    private static <T> T awaitSearchResult(Future<T> result, IProgressMonitor monitor) {
+        try {
+            while (true) {
+                if (monitor != null && monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                try {
+                    return result.get(100, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException ignore) {
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
     @Override
     public EventHandler getEventHandler() {
         // FIXASC could be une singleton?
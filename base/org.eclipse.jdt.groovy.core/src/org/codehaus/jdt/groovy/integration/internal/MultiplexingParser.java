@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -48,6 +48,11 @@ public class MultiplexingParser extends Parser {
         }
     }
 
+    @Override
+    public void prepareToParse(ICompilationUnit[] sourceUnits, int maxUnits) {
+        groovyParser.prepareToParse(sourceUnits, maxUnits);
+    }
+
     @Override
     public void reset() {
         groovyParser.reset();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,18 +18,21 @@ package org.codehaus.jdt.groovy.internal.compiler;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Stream;
+import java.util.function.Function;
 
 import groovy.lang.GroovyClassLoader;
 
@@ -61,21 +64,49 @@ public final class GroovyClassLoaderFactory {
 
     /*
      * Each project is allowed a GroovyClassLoader that will be used to load transform definitions and supporting classes. A cache
-     * is maintained from project names to the current classpath and associated loader. If the classpath matches the cached version
-     * on a call to build a parser then it is reused. If it does not match then a new loader is created and stored (storing it
-     * orphans the previously cached one). When either a full build or a clean or project close occurs, we also discard the loader
-     * instances associated with the project.
+     * is maintained from project names to the current classpath and associated loaders. If the classpath matches the cached version
+     * on a call to build a parser then it is reused. If it does not match then new loaders are created and the previous ones are
+     * released. When either a full build or a clean or project close occurs, we also release the loaders associated with the project.
      */
-    private static Map<String, Map.Entry<IClasspathEntry[], GroovyClassLoader[]>> projectClassLoaderCache = new ConcurrentHashMap<>();
+    private static Map<String, ProjectClassLoaders> projectClassLoaderCache = new ConcurrentHashMap<>();
+
+    /*
+     * The URL class loaders for the archives of the project loaders are pooled by classpath segment (library containers, project
+     * entries and transform path) and fingerprint of the segment's archives. Projects with the same dependencies share loaders, so
+     * each jar is opened once and transform classes are loaded once. Folders, like a project's own output and source folders, are
+     * specific to a project and may change at any time, so each project has child loaders for them.
+     *
+     * A pooled loader is closed when the last project that uses it releases it. A project releases its loaders once its cache entry
+     * is replaced or cleared and nothing uses them any more, since a compile on another thread may still be running with them.
+     */
+    private static final Map<String, PooledClassLoader> classLoaderPool = new HashMap<>();
+
+    private static final ReferenceQueue<ClassLoader> releasedLoaders = new ReferenceQueue<>();
+
+    private static final Set<ReleasedClassLoader> pendingReleases = ConcurrentHashMap.newKeySet();
 
     public static void clearCache() {
-        projectClassLoaderCache.clear(); // TODO: Close class loaders?
+        for (String projectName : projectClassLoaderCache.keySet()) {
+            clearCache(projectName);
+        }
     }
 
     public static void clearCache(String projectName) {
-        Map.Entry<?, GroovyClassLoader[]> entry = projectClassLoaderCache.remove(projectName);
+        ProjectClassLoaders entry = projectClassLoaderCache.remove(projectName);
         if (entry != null) {
-            Stream.of(entry.getValue()).filter(Objects::nonNull).forEach(GroovyClassLoaderFactory::close);
+            entry.release();
+        }
+        expungeReleasedLoaders();
+    }
+
+    /**
+     * Releases the pooled loaders of project loaders that are no longer used.
+     */
+    private static void expungeReleasedLoaders() {
+        ReleasedClassLoader released;
+        while ((released = (ReleasedClassLoader) releasedLoaders.poll()) != null) {
+            pendingReleases.remove(released);
+            releaseClassLoader(released.pooled);
         }
     }
 
@@ -90,8 +121,93 @@ public final class GroovyClassLoaderFactory {
         if (classLoader instanceof GroovyClassLoader) {
             ((GroovyClassLoader) classLoader).clearCache();
         }
-        if (classLoader.getParent() instanceof URLClassLoader) {
-            close(classLoader.getParent());
+    }
+
+    private static PooledClassLoader acquireClassLoader(String segment, Set<String> classpath, PooledClassLoader parent, Function<ClassLoader, URLClassLoader> factory) {
+        String key = segment + '@' + (parent != null ? parent.key : "") + '[' + fingerprint(classpath) + ']';
+        synchronized (classLoaderPool) {
+            PooledClassLoader pooled = classLoaderPool.get(key);
+            if (pooled == null) {
+                if (parent != null) parent.references += 1;
+                pooled = new PooledClassLoader(key, factory.apply(parent != null ? parent.loader : null), parent);
+                classLoaderPool.put(key, pooled);
+            } else if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.CLASSPATH, "Sharing " + segment + " loader for " + classpath.size() + " archives");
+            }
+            pooled.references += 1;
+            return pooled;
+        }
+    }
+
+    private static void releaseClassLoader(PooledClassLoader pooled) {
+        synchronized (classLoaderPool) {
+            while (pooled != null && --pooled.references == 0) {
+                classLoaderPool.remove(pooled.key);
+                close(pooled.loader);
+
+                pooled = pooled.parent;
+            }
+        }
+    }
+
+    /**
+     * Identifies the contents of a classpath segment by the location, size and
+     * modification time of each of its archives (and location of directories).
+     */
+    private static String fingerprint(Set<String> classpath) {
+        StringBuilder sb = new StringBuilder();
+        for (String path : classpath) {
+            File file = new File(path);
+            sb.append(path);
+            if (file.isFile()) {
+                sb.append(':').append(file.length()).append(':').append(file.lastModified());
+            }
+            sb.append(File.pathSeparatorChar);
+        }
+        return sb.toString();
+    }
+
+    private static final class PooledClassLoader {
+        final String key;
+        final URLClassLoader loader;
+        final PooledClassLoader parent;
+        int references; // guarded by classLoaderPool
+
+        PooledClassLoader(String key, URLClassLoader loader, PooledClassLoader parent) {
+            this.key = key;
+            this.loader = loader;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Releases a pooled loader once the project loader on top of it is unreachable.
+     */
+    private static final class ReleasedClassLoader extends PhantomReference<ClassLoader> {
+        final PooledClassLoader pooled;
+
+        ReleasedClassLoader(ClassLoader loader, PooledClassLoader pooled) {
+            super(loader, releasedLoaders);
+            this.pooled = pooled;
+        }
+    }
+
+    private static final class ProjectClassLoaders {
+        final IClasspathEntry[] classpathEntries;
+        final GroovyClassLoader[] classLoaders;
+        /** pooled parents of the project loader and transform loader */
+        final PooledClassLoader[] pooledLoaders;
+
+        ProjectClassLoaders(IClasspathEntry[] classpathEntries, GroovyClassLoader[] classLoaders, PooledClassLoader... pooledLoaders) {
+            this.classpathEntries = classpathEntries;
+            this.classLoaders = classLoaders;
+            this.pooledLoaders = pooledLoaders;
+        }
+
+        void release() {
+            for (int i = 0; i < classLoaders.length; i += 1) {
+                pendingReleases.add(new ReleasedClassLoader(classLoaders[i], pooledLoaders[i]));
+            }
         }
     }
 
@@ -124,10 +240,7 @@ public final class GroovyClassLoaderFactory {
                 if (nameEnvironment instanceof FileSystem) {
                     FileSystem.Classpath[] classpaths = ReflectionUtils.getPrivateField(FileSystem.class, "classpaths", nameEnvironment);
                     if (classpaths != null) {
-                        batchLoader = new GroovyClassLoader();
-                        for (FileSystem.Classpath classpath : classpaths) {
-                            batchLoader.addClasspath(classpath.getPath());
-                        }
+                        batchLoader = (SHARE_BATCH_LOADERS ? newSharedBatchLoader(classpaths) : newBatchLoader(classpaths));
                     }
                 }
             } catch (Exception e) {
@@ -137,14 +250,74 @@ public final class GroovyClassLoaderFactory {
         return new GroovyClassLoader[] {new GrapeAwareGroovyClassLoader(batchLoader, compilerConfiguration), batchLoader};
     }
 
+    private static GroovyClassLoader newBatchLoader(FileSystem.Classpath[] classpaths) {
+        GroovyClassLoader batchLoader = new GroovyClassLoader();
+        for (FileSystem.Classpath classpath : classpaths) {
+            batchLoader.addClasspath(classpath.getPath());
+        }
+        return batchLoader;
+    }
+
+    /**
+     * Creates a batch loader for the folders of the classpath whose parent, a
+     * loader for the archives of the classpath, is shared by compiles with the
+     * same archives (same fingerprint).  Folders, like the output folders of
+     * upstream modules, may change between compiles and are not shared.
+     * <p>
+     * The folder loader looks at its own entries before asking the archive
+     * loader, which keeps classpath order as long as all folders come before
+     * the archives (as they do on Maven classpaths).  Any other classpath gets
+     * a loader of its own.
+     */
+    private static GroovyClassLoader newSharedBatchLoader(FileSystem.Classpath[] classpaths) {
+        Set<String> archives = new LinkedHashSet<>(), folders = new LinkedHashSet<>();
+        for (FileSystem.Classpath classpath : classpaths) {
+            String path = classpath.getPath();
+            if (new File(path).isFile()) {
+                archives.add(path);
+            } else if (archives.isEmpty()) {
+                folders.add(path);
+            } else {
+                return newBatchLoader(classpaths);
+            }
+        }
+
+        String key = fingerprint(archives);
+        GroovyClassLoader archiveLoader;
+        synchronized (batchLoaderPool) {
+            archiveLoader = batchLoaderPool.get(key);
+            if (archiveLoader == null) {
+                if (batchLoaderPool.size() >= MAX_BATCH_LOADERS) {
+                    // compiles that share loaders are run one at a time, so evicted loaders are no longer in use
+                    batchLoaderPool.values().forEach(GroovyClassLoaderFactory::close);
+                    batchLoaderPool.clear();
+                }
+                archiveLoader = new GroovyClassLoader();
+                for (String path : archives) {
+                    archiveLoader.addClasspath(path);
+                }
+                batchLoaderPool.put(key, archiveLoader);
+            } else if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.CLASSPATH, "Reusing batch loader for " + archives.size() + " archives");
+            }
+        }
+
+        GroovyClassLoader batchLoader = new FoldersFirstClassLoader(archiveLoader);
+        for (String path : folders) {
+            batchLoader.addClasspath(path);
+        }
+        return batchLoader;
+    }
+
     private GroovyClassLoader[] getProjectGroovyClassLoaders(CompilerConfiguration compilerConfiguration) {
+        expungeReleasedLoaders();
         String projectName = compilerOptions.groovyProjectName;
         IProject project = findProject(projectName);
         try {
             IJavaProject javaProject = JavaCore.create(project);
             IClasspathEntry[] classpathEntries = javaProject.exists() ? javaProject.getResolvedClasspath(true) : new IClasspathEntry[0];
 
-            Map.Entry<IClasspathEntry[], GroovyClassLoader[]> entry = projectClassLoaderCache.computeIfAbsent(projectName, key -> {
+            ProjectClassLoaders entry = projectClassLoaderCache.computeIfAbsent(projectName, key -> {
                 Set<String> classPaths = new LinkedHashSet<>(), xformPaths = new LinkedHashSet<>();
                 if (javaProject.exists()) calculateClasspath(javaProject, classPaths, xformPaths);
 
@@ -153,23 +326,40 @@ public final class GroovyClassLoaderFactory {
                         "Transform classpath: " + String.join(File.pathSeparator, xformPaths));
                 }
 
-                ClassLoader parentClassLoader = null; // no parent loader by default
                 // FIXME: This is a stopgap measure to provide basic support for Java 9+
-                if (classPaths.stream().anyMatch(path -> path.endsWith("jrt-fs.jar"))) {
-                    parentClassLoader = GroovyParser.class.getClassLoader();
-                }
-
-                return new java.util.AbstractMap.SimpleEntry<>(classpathEntries, new GroovyClassLoader[] {
-                    new GrapeAwareGroovyClassLoader(newClassLoader(classPaths, parentClassLoader), compilerConfiguration),
-                    new GroovyClassLoader(newClassLoader(xformPaths, GroovyParser.class.getClassLoader())/*, compilerConfiguration*/),
-                });
+                boolean jrt = classPaths.stream().anyMatch(path -> path.endsWith("jrt-fs.jar"));
+
+                // library containers and project entries are loaded by separate (shareable) loaders
+                Set<String> projectPaths = new LinkedHashSet<>(xformPaths);
+                projectPaths.removeAll(classPaths);
+
+                Set<String> libraryArchives = new LinkedHashSet<>(), projectArchives = new LinkedHashSet<>(),
+                    transformArchives = new LinkedHashSet<>(), projectFolders = new LinkedHashSet<>(), transformFolders = new LinkedHashSet<>();
+                splitClasspath(classPaths, libraryArchives, projectFolders);
+                splitClasspath(projectPaths, projectArchives, projectFolders);
+                splitClasspath(xformPaths, transformArchives, transformFolders);
+
+                PooledClassLoader libraryLoader = acquireClassLoader(jrt ? "jrt" : "lib", libraryArchives, null,
+                    parent -> newClassLoader(libraryArchives, jrt ? GroovyParser.class.getClassLoader() : null)); // no parent loader by default
+                PooledClassLoader projectLoader = acquireClassLoader("cp", projectArchives, libraryLoader,
+                    parent -> newClassLoader(projectArchives, parent));
+                PooledClassLoader transformLoader = acquireClassLoader("xform", transformArchives, null,
+                    parent -> newClassLoader(transformArchives, GroovyParser.class.getClassLoader()));
+                releaseClassLoader(libraryLoader); // held by project loader
+
+                return new ProjectClassLoaders(classpathEntries, new GroovyClassLoader[] {
+                    new GrapeAwareGroovyClassLoader(newFoldersLoader(projectFolders, projectLoader.loader), compilerConfiguration),
+                    newFoldersLoader(transformFolders, transformLoader.loader),
+                }, projectLoader, transformLoader);
             });
 
-            if (Arrays.equals(classpathEntries, entry.getKey())) {
-                return entry.getValue();
+            if (Arrays.equals(classpathEntries, entry.classpathEntries)) {
+                return entry.classLoaders;
             } else {
-                // project classpath has changed; remove and reload
-                projectClassLoaderCache.remove(projectName);
+                // project classpath has changed; release and reload
+                if (projectClassLoaderCache.remove(projectName, entry)) {
+                    entry.release();
+                }
                 return getProjectGroovyClassLoaders(compilerConfiguration);
             }
         } catch (Exception e) {
@@ -193,8 +383,8 @@ public final class GroovyClassLoaderFactory {
                     paths.add(getAbsoluteLocation(resolved));
                 }
             }
-            classPaths.addAll(xformPaths);
             assert classPaths.stream().allMatch(path -> new File(path).isAbsolute());
+            assert xformPaths.stream().allMatch(path -> new File(path).isAbsolute());
         }
         catch (RuntimeException e) { throw e; } catch (Exception e) { throw new RuntimeException(e); }
     }
@@ -223,6 +413,28 @@ public final class GroovyClassLoaderFactory {
         return location;
     }
 
+    private static void splitClasspath(Set<String> classpath, Set<String> archives, Set<String> folders) {
+        for (String path : classpath) {
+            if (new File(path).isFile()) {
+                archives.add(path);
+            } else {
+                folders.add(path);
+            }
+        }
+    }
+
+    /**
+     * Creates a project-specific loader for the folders of a classpath on top
+     * of a pooled loader for its archives.  The folders are searched first.
+     */
+    private static GroovyClassLoader newFoldersLoader(Set<String> folders, ClassLoader archiveLoader) {
+        GroovyClassLoader loader = new FoldersFirstClassLoader(archiveLoader);
+        for (String path : folders) {
+            loader.addClasspath(path);
+        }
+        return loader;
+    }
+
     private static URLClassLoader newClassLoader(Set<String> classpath, ClassLoader parent) {
         URL[] urls = classpath.stream().map(file -> {
             try {
@@ -240,6 +452,16 @@ public final class GroovyClassLoaderFactory {
         }
     }
 
+    /**
+     * Set by long-lived batch compilers, like the Maven compiler daemon, so that
+     * transform classes and archive indexes are kept from one compile to the next.
+     */
+    private static final boolean SHARE_BATCH_LOADERS = Boolean.getBoolean("greclipse.shareBatchLoaders");
+
+    private static final int MAX_BATCH_LOADERS = 16;
+
+    private static final Map<String, GroovyClassLoader> batchLoaderPool = new HashMap<>();
+
     private static final boolean NONLOCKING = Boolean.getBoolean("greclipse.nonlocking");
     static {
         if (NONLOCKING) {
@@ -249,6 +471,42 @@ public final class GroovyClassLoaderFactory {
 
     //--------------------------------------------------------------------------
 
+    /**
+     * Finds classes and resources in its own entries before those of its parent.
+     */
+    private static final class FoldersFirstClassLoader extends GroovyClassLoader {
+
+        FoldersFirstClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        public Class<?> loadClass(String name, boolean lookupScriptFiles, boolean preferClassOverScript, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith("java.")) {
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> type = findLoadedClass(name);
+                    if (type == null) {
+                        try {
+                            type = findClass(name);
+                        } catch (ClassNotFoundException ignore) {
+                        }
+                    }
+                    if (type != null) {
+                        if (resolve) resolveClass(type);
+                        return type;
+                    }
+                }
+            }
+            return super.loadClass(name, lookupScriptFiles, preferClassOverScript, resolve);
+        }
+
+        @Override
+        public URL getResource(String name) {
+            URL url = findResource(name);
+            return (url != null ? url : super.getResource(name));
+        }
+    }
+
     @SuppressWarnings("rawtypes")
     public static class GrapeAwareGroovyClassLoader extends GroovyClassLoader {
 
@@ -36,6 +36,7 @@ import groovy.lang.GroovyRuntimeException;
 import groovy.transform.PackageScopeTarget;
 
 import org.codehaus.groovy.GroovyBugError;
+import org.codehaus.groovy.antlr.LocationSupport;
 import org.codehaus.groovy.ast.AnnotatedNode;
 import org.codehaus.groovy.ast.AnnotationNode;
 import org.codehaus.groovy.ast.ClassHelper;
@@ -451,6 +452,8 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
         // unit and so we ignore it. If we do deal with it then we remember that we did (in errorsRecorded) and remove it from
         // the list of those to process.
 
+        initializeLineSeparatorPositions();
+
         List<Message> errorsRecorded = new ArrayList<>();
         // FIXASC poor way to get the errors attached to the files
         // FIXASC does groovy ever produce warnings? How are they treated here?
@@ -583,6 +586,24 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
         return gcus;
     }
 
+    /**
+     * Sets the compilation result's line separator positions, if not already
+     * set, from those recorded by the parser.  If parsing stopped short of the
+     * end of the source, the source is scanned for them instead.
+     */
+    public void initializeLineSeparatorPositions() {
+        if (compilationResult.lineSeparatorPositions == null) {
+            ModuleNode moduleNode = getModuleNode();
+            LocationSupport locations = (moduleNode != null ? moduleNode.getNodeMetaData(LocationSupport.class) : null);
+            if (locations != null && locations.isPopulated() && locations.getEnd() == sourceEnd + 1) {
+                compilationResult.lineSeparatorPositions = locations.getLineSeparators();
+            } else {
+                char[] contents = (compilationResult.compilationUnit != null ? compilationResult.compilationUnit.getContents() : null);
+                compilationResult.lineSeparatorPositions = GroovyUtils.getSourceLineSeparatorsIn(contents != null ? contents : CharOperation.NO_CHAR);
+            }
+        }
+    }
+
     public ModuleNode getModuleNode() {
         return java.util.Optional.ofNullable(getSourceUnit()).map(SourceUnit::getAST).orElse(null);
     }
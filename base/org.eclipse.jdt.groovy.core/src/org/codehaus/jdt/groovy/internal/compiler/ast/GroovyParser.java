@@ -15,9 +15,23 @@
  */
 package org.codehaus.jdt.groovy.internal.compiler.ast;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import groovy.lang.GroovyClassLoader;
@@ -28,6 +42,9 @@ import org.codehaus.groovy.control.CompilationUnit.ProgressListener;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.Phases;
 import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.eclipse.CompileMetrics;
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.jdt.groovy.control.EclipseSourceUnit;
 import org.codehaus.jdt.groovy.integration.internal.GroovyLanguageSupport;
 import org.codehaus.jdt.groovy.internal.compiler.GroovyClassLoaderFactory;
@@ -38,7 +55,7 @@ import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.CharOperation;
-import org.eclipse.jdt.groovy.core.util.GroovyUtils;
+import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.groovy.core.util.ScriptFolderSelector;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
@@ -58,6 +75,7 @@ import org.eclipse.jdt.internal.compiler.problem.ProblemSeverities;
 import org.eclipse.jdt.internal.core.builder.AbstractImageBuilder;
 import org.eclipse.jdt.internal.core.builder.BuildNotifier;
 import org.eclipse.jdt.internal.core.builder.SourceFile;
+import org.eclipse.jdt.internal.core.util.Util;
 
 /**
  * The mapping layer between the groovy parser and the JDT. This class communicates
@@ -73,6 +91,7 @@ public class GroovyParser {
 
     private CompilationUnit compilationUnit;
     private CompilerOptions compilerOptions;
+    private Map<ICompilationUnit, PreparedSource> preparedSources;
 
     public CompilerOptions getCompilerOptions() {
         return compilerOptions;
@@ -83,6 +102,7 @@ public class GroovyParser {
     public static void clearCache(String projectName) {
         scriptFolderSelectorCache.remove(projectName);
         GroovyClassLoaderFactory.clearCache(projectName);
+        UnresolvableTypeNames.clear(projectName);
     }
 
     //--------------------------------------------------------------------------
@@ -129,46 +149,52 @@ public class GroovyParser {
     }
 
     public void reset() {
+        if (compilerOptions.groovyCompileMetricsReport != null && compilationUnit != null) {
+            // report covers this compile only
+            writeCompileMetrics(compilationUnit.getMetrics(), new File(compilerOptions.groovyCompileMetricsReport));
+        }
+
         compilationUnit = null;
+        preparedSources = null;
         resolver = null;
     }
 
-    public GroovyCompilationUnitDeclaration dietParse(ICompilationUnit iCompilationUnit, CompilationResult compilationResult) {
-        String fileName = String.valueOf(iCompilationUnit.getFileName());
-        final IPath filePath = new Path(fileName);
-        final IFile eclipseFile;
-        final boolean isScript;
-        // try to turn this into a 'real' absolute file system reference (this is because Grails 1.5 expects it)
-        // GRECLIPSE-1269 ensure get plugin is not null to ensure the workspace is open (ie- not in batch mode)
-        // needs 2 segments: a project and file name or eclipse throws assertion failed here
-        if (filePath.segmentCount() > 1 && ResourcesPlugin.getPlugin() != null) {
-            eclipseFile = ResourcesPlugin.getWorkspace().getRoot().getFile(filePath);
-            IPath location = eclipseFile.getLocation();
-            if (location != null) {
-                fileName = location.toFile().getAbsolutePath();
-            }
-            isScript = isScript(eclipseFile, compilerOptions.groovyProjectName);
-        } else {
-            eclipseFile = null;
-            isScript = false;
+    /**
+     * Writes the phase and transform timings of a compilation as JSON.
+     */
+    private static void writeCompileMetrics(CompileMetrics metrics, File report) {
+        File folder = report.getAbsoluteFile().getParentFile();
+        if (folder != null) {
+            folder.mkdirs();
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(report), StandardCharsets.UTF_8)) {
+            metrics.writeReport(writer);
+        } catch (IOException e) {
+            Util.log(e, "Failed to write compile metrics to " + report);
         }
+    }
+
+    public GroovyCompilationUnitDeclaration dietParse(ICompilationUnit iCompilationUnit, CompilationResult compilationResult) {
+        SourceInfo info = new SourceInfo(iCompilationUnit, compilerOptions);
 
         if (problemReporter.referenceContext == null) {
             problemReporter.referenceContext = new ReferenceContextImpl(compilationResult);
         }
 
         if (compilationUnit == null) {
-            if (isScript || (eclipseFile != null && eclipseFile.getProject().isAccessible() &&
-                    !JavaCore.create(eclipseFile.getProject()).isOnClasspath(eclipseFile))) {
-                compilerOptions.groovyCompilerConfigScript = null;
-            }
-            compilationUnit = unitFactory.get();
+            initCompilationUnit(info);
         }
 
-        char[] sourceCode = Optional.ofNullable(iCompilationUnit.getContents()).orElse(CharOperation.NO_CHAR);
-        SourceUnit sourceUnit = new EclipseSourceUnit(eclipseFile, fileName, String.valueOf(sourceCode), compilationUnit.isReconcile,
-            compilationUnit.getConfiguration(), compilationUnit.getClassLoader(), new GroovyErrorCollectorForJDT(compilationUnit.getConfiguration()), resolver);
-
+        char[] sourceCode;
+        SourceUnit sourceUnit;
+        PreparedSource prepared = (preparedSources != null ? preparedSources.remove(iCompilationUnit) : null);
+        if (prepared != null) {
+            sourceCode = prepared.sourceCode;
+            sourceUnit = prepared.sourceUnit;
+        } else {
+            sourceCode = Optional.ofNullable(iCompilationUnit.getContents()).orElse(CharOperation.NO_CHAR);
+            sourceUnit = newSourceUnit(info, sourceCode);
+        }
         compilationUnit.addSource(sourceUnit);
 
         if (requestor instanceof Compiler) {
@@ -178,8 +204,8 @@ public class GroovyParser {
                 if (builder.notifier != null) {
                     compilationUnit.setProgressListener(new ProgressListenerImpl(builder.notifier));
                 }
-                if (eclipseFile != null) {
-                    SourceFile sourceFile = (SourceFile) builder.fromIFile(eclipseFile);
+                if (info.eclipseFile != null) {
+                    SourceFile sourceFile = (SourceFile) builder.fromIFile(info.eclipseFile);
                     if (sourceFile != null) {
                         compilationUnit.getConfiguration().setTargetDirectory(sourceFile.getOutputLocation().toFile());
                     }
@@ -192,12 +218,21 @@ public class GroovyParser {
             }
         }
 
-        compilationResult.lineSeparatorPositions = GroovyUtils.getSourceLineSeparatorsIn(sourceCode); // TODO: Get from Antlr
-
         GroovyCompilationUnitDeclaration gcuDeclaration = new GroovyCompilationUnitDeclaration(
             problemReporter, compilationResult, sourceCode.length, compilationUnit, sourceUnit, compilerOptions);
 
         gcuDeclaration.processToPhase(Phases.CONVERSION);
+        gcuDeclaration.initializeLineSeparatorPositions();
+
+        if (GroovyLogManager.manager.hasLoggers() && sourceUnit.getAST() != null) {
+            // Antlr4 parser records the prediction mode it needed and its counts for the source
+            long[] stats = sourceUnit.getAST().getNodeMetaData("prediction.mode.stats");
+            if (stats != null) {
+                GroovyLogManager.manager.log(TraceCategory.COMPILER, String.format(
+                    "Parsed %s in %s mode: %d SLL parses, %d LL fallbacks (last at line %d)", sourceUnit.getName(),
+                    sourceUnit.getAST().getNodeMetaData("prediction.mode"), stats[0], stats[1], stats[2]));
+            }
+        }
 
         // ModuleNode is null when there is a fatal error
         if (gcuDeclaration.getModuleNode() != null) {
@@ -207,7 +242,7 @@ public class GroovyParser {
             }
         }
         // remember scripts so that class file output can be suppressed
-        if (isScript) {
+        if (info.isScript) {
             gcuDeclaration.tagAsScript();
         }
         if (debugRequestor != null) {
@@ -216,6 +251,82 @@ public class GroovyParser {
         return gcuDeclaration;
     }
 
+    /**
+     * Parses and converts the Groovy sources of a batch compile concurrently,
+     * if enabled by the compiler options.  {@link #dietParse} picks up each
+     * prepared source and drives it through the remaining phases as usual, so
+     * phase operations that span sources (resolution, transforms, etc.) stay
+     * serialized.  A source that has any problems is discarded and processed
+     * again by {@code dietParse} so that its problems are reported as usual.
+     */
+    public void prepareToParse(ICompilationUnit[] iCompilationUnits, int maxUnits) {
+        if (!compilerOptions.groovyParallelPhases || (compilationUnit != null && compilationUnit.isReconcile)) {
+            return;
+        }
+        List<ICompilationUnit> groovyUnits = new ArrayList<>();
+        for (int i = 0; i < maxUnits; i += 1) {
+            if (ContentTypeUtils.isGroovyLikeFileName(iCompilationUnits[i].getFileName())) {
+                groovyUnits.add(iCompilationUnits[i]);
+            }
+        }
+        if (groovyUnits.size() < 2) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<ICompilationUnit, PreparedSource> prepared = new IdentityHashMap<>(groovyUnits.size());
+        for (ICompilationUnit iCompilationUnit : groovyUnits) {
+            SourceInfo info = new SourceInfo(iCompilationUnit, compilerOptions);
+            if (compilationUnit == null) {
+                initCompilationUnit(info);
+            }
+            char[] sourceCode = Optional.ofNullable(iCompilationUnit.getContents()).orElse(CharOperation.NO_CHAR);
+            prepared.put(iCompilationUnit, new PreparedSource(sourceCode, newSourceUnit(info, sourceCode)));
+        }
+
+        int parallelism = Math.min(groovyUnits.size(), Runtime.getRuntime().availableProcessors());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Callable<Long>> tasks = new ArrayList<>(prepared.size());
+            for (PreparedSource source : prepared.values()) {
+                tasks.add(source::parseAndConvert);
+            }
+            long serialTime = 0;
+            for (Future<Long> task : pool.invokeAll(tasks)) {
+                serialTime += task.get();
+            }
+            prepared.values().removeIf(source -> !source.isValid);
+            preparedSources = prepared;
+
+            if (GroovyLogManager.manager.hasLoggers()) {
+                long elapsedTime = System.nanoTime() - start;
+                GroovyLogManager.manager.log(TraceCategory.COMPILER, String.format(
+                    "Parallel phases: parsed %d of %d groovy sources in %dms using %d threads (%dms serial, %.1fx speedup)",
+                    prepared.size(), groovyUnits.size(), TimeUnit.NANOSECONDS.toMillis(elapsedTime), parallelism,
+                    TimeUnit.NANOSECONDS.toMillis(serialTime), (double) serialTime / Math.max(1, elapsedTime)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Util.log(e, "Parallel parsing of groovy sources failed");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void initCompilationUnit(SourceInfo info) {
+        if (info.isScript || (info.eclipseFile != null && info.eclipseFile.getProject().isAccessible() &&
+                !JavaCore.create(info.eclipseFile.getProject()).isOnClasspath(info.eclipseFile))) {
+            compilerOptions.groovyCompilerConfigScript = null;
+        }
+        compilationUnit = unitFactory.get();
+    }
+
+    private SourceUnit newSourceUnit(SourceInfo info, char[] sourceCode) {
+        return new EclipseSourceUnit(info.eclipseFile, info.fileName, String.valueOf(sourceCode), compilationUnit.isReconcile,
+            compilationUnit.getConfiguration(), compilationUnit.getClassLoader(), new GroovyErrorCollectorForJDT(compilationUnit.getConfiguration()), resolver);
+    }
+
     /**
      * Determines if file matches any groovy script filter in the project.
      */
@@ -229,6 +340,61 @@ public class GroovyParser {
         return false;
     }
 
+    private static class SourceInfo {
+
+        final String fileName;
+        final IFile eclipseFile;
+        final boolean isScript;
+
+        SourceInfo(ICompilationUnit iCompilationUnit, CompilerOptions compilerOptions) {
+            String fileName = String.valueOf(iCompilationUnit.getFileName());
+            IPath filePath = new Path(fileName);
+            // try to turn this into a 'real' absolute file system reference (this is because Grails 1.5 expects it)
+            // GRECLIPSE-1269 ensure get plugin is not null to ensure the workspace is open (ie- not in batch mode)
+            // needs 2 segments: a project and file name or eclipse throws assertion failed here
+            if (filePath.segmentCount() > 1 && ResourcesPlugin.getPlugin() != null) {
+                eclipseFile = ResourcesPlugin.getWorkspace().getRoot().getFile(filePath);
+                IPath location = eclipseFile.getLocation();
+                if (location != null) {
+                    fileName = location.toFile().getAbsolutePath();
+                }
+                isScript = isScript(eclipseFile, compilerOptions.groovyProjectName);
+            } else {
+                eclipseFile = null;
+                isScript = false;
+            }
+            this.fileName = fileName;
+        }
+    }
+
+    private static class PreparedSource {
+
+        final char[] sourceCode;
+        final SourceUnit sourceUnit;
+        volatile boolean isValid;
+
+        PreparedSource(char[] sourceCode, SourceUnit sourceUnit) {
+            this.sourceCode = sourceCode;
+            this.sourceUnit = sourceUnit;
+        }
+
+        /**
+         * @return time spent in nanoseconds
+         */
+        long parseAndConvert() {
+            long start = System.nanoTime();
+            try {
+                sourceUnit.parse();
+                sourceUnit.completePhase();
+                sourceUnit.convert();
+                isValid = !sourceUnit.getErrorCollector().hasErrors();
+            } catch (Exception | AssertionError e) {
+                // source will be processed again to report the problem
+            }
+            return System.nanoTime() - start;
+        }
+    }
+
     /**
      * ProgressListener is called back when parsing of a file or generation of a classfile completes. By calling back to the build
      * notifier we ignore those long pauses where it look likes it has hung!
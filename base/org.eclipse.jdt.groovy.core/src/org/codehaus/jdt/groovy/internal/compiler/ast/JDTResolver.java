@@ -56,9 +56,11 @@ import org.eclipse.jdt.internal.core.builder.AbortIncrementalBuildException;
  * Resolver lifecycle:<br>
  * The JDTResolver is created at the same time as the (Groovy) CompilationUnit. The CompilationUnit knows about all the code that is
  * to be compiled together. The resolver maintains a cache from Binding to JDTClassNode and the cache contents have the same
- * lifetime as the JDTResolver. The resolver does type lookups through the currently active scope - the active scope is set when the
- * method 'commencingResolution()' is called. This is called by the superclass (ResolveVisitor) when it is about to start resolving
- * every reference in a type.
+ * lifetime as the JDTResolver. Nodes are not shared between resolvers (i.e. across reconciles) because a JDTClassNode initializes
+ * its members lazily through the resolver and the lookup environment that created it; a shared node would keep that environment
+ * alive and let other threads use it and the resolver's (unsynchronized) caches. The resolver
+ * does type lookups through the currently active scope - the active scope is set when the method 'commencingResolution()' is
+ * called. This is called by the superclass (ResolveVisitor) when it is about to start resolving every reference in a type.
  */
 public class JDTResolver extends ResolveVisitor {
 
@@ -141,7 +143,8 @@ public class JDTResolver extends ResolveVisitor {
     // Cache from bindings to JDTClassNodes to avoid unnecessary JDTClassNode creation
     private Map<TypeBinding, JDTClassNode> nodeCache = new IdentityHashMap<>();
 
-    private Set<ClassNode> resolvedClassNodes = new HashSet<>();
+    // Classes of this compilation unit that have been resolved, by name
+    private Map<String, ClassNode> resolvedClassNodes = new HashMap<>();
 
     /**
      * Records the type names that aren't resolvable for the current resolution.
@@ -206,7 +209,7 @@ public class JDTResolver extends ResolveVisitor {
     protected boolean commencingResolution() {
         GroovyTypeDeclaration typeDecl = scopes.remove(currentClass);
         if (typeDecl == null) {
-            if (resolvedClassNodes.contains(currentClass)) {
+            if (resolvedClassNodes.containsKey(currentClass.getName())) {
                 // already resolved
                 return false;
             }
@@ -242,7 +245,7 @@ public class JDTResolver extends ResolveVisitor {
 
     @Override
     protected void finishedResolution() {
-        resolvedClassNodes.add(currentClass);
+        resolvedClassNodes.putIfAbsent(currentClass.getName(), currentClass);
     }
 
     public synchronized void cleanUp() {
@@ -268,10 +271,9 @@ public class JDTResolver extends ResolveVisitor {
             name = name.substring(0, i);
         }
         if (name.indexOf('?') < 0) {
-            for (ClassNode node : resolvedClassNodes) {
-                if (node.getName().equals(name)) {
-                    return node;
-                }
+            ClassNode node = resolvedClassNodes.get(name);
+            if (node != null) {
+                return node;
             }
 
             List<ModuleNode> modules = compilationUnit.getAST().getModules();
@@ -375,7 +377,9 @@ public class JDTResolver extends ResolveVisitor {
 
     @Override
     protected boolean resolveToOuter(ClassNode type) {
-        if (activeScope != null) {
+        // package-qualified candidates (from default, star and package imports) do not depend on the scope they are looked up from
+        String projectName = (activeScope != null && type instanceof ConstructedClassWithPackage ? activeScope.compilerOptions().groovyProjectName : null);
+        if (activeScope != null && !UnresolvableTypeNames.contains(projectName, type.getName())) {
             // ask the JDT for a binary or source type, visible from this scope
             char[][] compoundName = CharOperation.splitOn('.', type.getName().toCharArray());
             TypeBinding jdtBinding = null;
@@ -390,10 +394,12 @@ public class JDTResolver extends ResolveVisitor {
                 ProblemReferenceBinding prBinding = (ProblemReferenceBinding) jdtBinding;
                 if (prBinding.problemId() == ProblemReasons.InternalNameProvided) {
                     jdtBinding = prBinding.closestMatch();
-                } else if (prBinding.problemId() == ProblemReasons.NotFound &&
-                    prBinding.closestMatch() instanceof MissingTypeBinding && currImportNode != null && currImportNode.isStar()) {
-                    MissingTypeBinding mtBinding = (MissingTypeBinding) prBinding.closestMatch();
-                    mtBinding.fPackage.knownTypes.put(compoundName[compoundName.length - 1], null);
+                } else if (prBinding.problemId() == ProblemReasons.NotFound) {
+                    if (prBinding.closestMatch() instanceof MissingTypeBinding && currImportNode != null && currImportNode.isStar()) {
+                        MissingTypeBinding mtBinding = (MissingTypeBinding) prBinding.closestMatch();
+                        mtBinding.fPackage.knownTypes.put(compoundName[compoundName.length - 1], null);
+                    }
+                    UnresolvableTypeNames.add(projectName, type.getName());
                 }
             }
 
@@ -409,6 +415,11 @@ public class JDTResolver extends ResolveVisitor {
                 type.setRedirect(node);
                 return true;
             }
+        } else if (activeScope != null) {
+            // lookup is skipped, but the dependency is kept so that this unit is rebuilt when the type is added
+            char[][] compoundName = CharOperation.splitOn('.', type.getName().toCharArray());
+            activeScope.recordQualifiedReference(compoundName);
+            activeScope.recordSimpleReference(compoundName[compoundName.length - 1]);
         }
 
         // Rudimentary grab support - if the compilation unit has our special classloader and as grab has occurred, try and find the class through it
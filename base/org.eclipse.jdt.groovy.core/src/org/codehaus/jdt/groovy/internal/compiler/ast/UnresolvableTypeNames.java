@@ -0,0 +1,124 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Package-qualified type names, like those formed from default imports and
+ * star imports, that the JDT lookup environment of a project could not find.
+ * Entries outlive compilation units, so that each reconcile does not probe
+ * the name environment for the same missing names again.  Names are dropped
+ * for all projects when a Java model delta might have made any of them
+ * resolvable (added types, packages or roots, and classpath or jar changes).
+ * <p>
+ * The cache is only active while the listener is registered, which is done by
+ * the plug-in activator; batch compiles do not use it.
+ */
+public final class UnresolvableTypeNames {
+
+    private static final int MAX_NAMES_PER_PROJECT = 10000;
+
+    private static final Map<String, Set<String>> projectNames = new ConcurrentHashMap<>();
+
+    private static volatile boolean active;
+
+    private UnresolvableTypeNames() {
+    }
+
+    public static boolean contains(String projectName, String typeName) {
+        if (!active || projectName == null) {
+            return false;
+        }
+        Set<String> names = projectNames.get(projectName);
+        return (names != null && names.contains(typeName));
+    }
+
+    public static void add(String projectName, String typeName) {
+        if (active && projectName != null) {
+            Set<String> names = projectNames.computeIfAbsent(projectName, x -> ConcurrentHashMap.newKeySet());
+            if (names.size() >= MAX_NAMES_PER_PROJECT) {
+                names.clear();
+            }
+            names.add(typeName);
+        }
+    }
+
+    public static void clear(String projectName) {
+        projectNames.remove(projectName);
+    }
+
+    public static void clearAll() {
+        projectNames.clear();
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static final IElementChangedListener listener = (ElementChangedEvent event) -> {
+        if (!projectNames.isEmpty() && mayAddTypes(event.getDelta())) {
+            clearAll();
+        }
+    };
+
+    public static void start() {
+        JavaCore.addElementChangedListener(listener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+        active = true;
+    }
+
+    public static void stop() {
+        active = false;
+        JavaCore.removeElementChangedListener(listener);
+        clearAll();
+    }
+
+    private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED |
+        IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_OPENED;
+
+    private static boolean mayAddTypes(IJavaElementDelta delta) {
+        int type = delta.getElement().getElementType();
+        switch (delta.getKind()) {
+        case IJavaElementDelta.ADDED:
+            return (type != IJavaElement.JAVA_MODEL && type <= IJavaElement.TYPE);
+        case IJavaElementDelta.REMOVED:
+            // a removed type cannot make a missing name resolvable
+            return false;
+        }
+
+        int flags = delta.getFlags();
+        if ((flags & CLASSPATH_FLAGS) != 0) {
+            return true;
+        }
+        // changed source without details, like a save or an edit outside of the IDE
+        if ((type == IJavaElement.COMPILATION_UNIT || type == IJavaElement.CLASS_FILE) &&
+                (flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0) {
+            return true;
+        }
+        for (IJavaElementDelta child : delta.getAffectedChildren()) {
+            if (mayAddTypes(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -122,12 +122,22 @@ public class GroovyCompilationUnit extends CompilationUnit {
             if (!isConsistent()) {
                 makeConsistent(null);
             }
+            if (!force || isWorkingCopy()) {
+                // module node mapper is thread-safe; no need to lock for lookup
+                JavaModelManager.PerWorkingCopyInfo info = getPerWorkingCopyInfo();
+                if (info != null) {
+                    return ModuleNodeMapper.getInstance().get(info);
+                }
+                if (!force) {
+                    return null;
+                }
+            }
             boolean becameWorkingCopy = false;
             ModuleNodeMapper.getInstance().lock();
             // discard the working copy after finishing
             // if there was no working copy to begin with
             try {
-                becameWorkingCopy = (force && !isWorkingCopy());
+                becameWorkingCopy = !isWorkingCopy();
                 if (becameWorkingCopy) {
                     becomeWorkingCopy(null);
                 }
@@ -288,6 +298,8 @@ public class GroovyCompilationUnit extends CompilationUnit {
             }
 
             GroovyCompilationUnitDeclaration compilationUnitDeclaration = null;
+            // stamp the module node with the contents it is built from, not with the time parsing completes
+            long version = ModuleNodeMapper.nextVersion();
             CompilationUnit source = cloneCachingContents();
             try {
                 // GROOVY
@@ -353,7 +365,7 @@ public class GroovyCompilationUnit extends CompilationUnit {
 
                 // GROOVY
                 // if this is a working copy, then we have more work to do
-                maybeCacheModuleNode(perWorkingCopyInfo, compilationUnitDeclaration);
+                maybeCacheModuleNode(perWorkingCopyInfo, compilationUnitDeclaration, version);
 
                 // create the DOM AST from the compiler AST
                 if (createAST) {
@@ -401,8 +413,8 @@ public class GroovyCompilationUnit extends CompilationUnit {
         }
     }
 
-    protected void maybeCacheModuleNode(JavaModelManager.PerWorkingCopyInfo perWorkingCopyInfo, GroovyCompilationUnitDeclaration compilationUnitDeclaration) {
-        ModuleNodeMapper.getInstance().maybeCacheModuleNode(perWorkingCopyInfo, compilationUnitDeclaration);
+    protected void maybeCacheModuleNode(JavaModelManager.PerWorkingCopyInfo perWorkingCopyInfo, GroovyCompilationUnitDeclaration compilationUnitDeclaration, long version) {
+        ModuleNodeMapper.getInstance().maybeCacheModuleNode(perWorkingCopyInfo, compilationUnitDeclaration, version);
     }
 
     /*
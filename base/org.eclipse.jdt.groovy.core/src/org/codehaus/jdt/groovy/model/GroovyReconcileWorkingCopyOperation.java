@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -71,6 +71,7 @@ public class GroovyReconcileWorkingCopyOperation extends ReconcileWorkingCopyOpe
         CompilationUnitDeclaration unit = null;
         try {
             JavaModelManager.getJavaModelManager().abortOnMissingSource.set(Boolean.TRUE);
+            long version = ModuleNodeMapper.nextVersion(); // GROOVY
             CompilationUnit source = workingCopy.cloneCachingContents();
             // find problems if needed
             if (JavaProject.hasJavaNature(workingCopy.getJavaProject().getProject())
@@ -88,7 +89,7 @@ public class GroovyReconcileWorkingCopyOperation extends ReconcileWorkingCopyOpe
                         this.progressMonitor);
                 // GROOVY cache the ModuleNode in the ModuleNodeMapper
                 if (unit instanceof GroovyCompilationUnitDeclaration && !(workingCopy instanceof GroovyClassFileWorkingCopy)) {
-                    ModuleNodeMapper.getInstance().maybeCacheModuleNode(workingCopy.getPerWorkingCopyInfo(), (GroovyCompilationUnitDeclaration) unit);
+                    ModuleNodeMapper.getInstance().maybeCacheModuleNode(workingCopy.getPerWorkingCopyInfo(), (GroovyCompilationUnitDeclaration) unit, version);
                 }
                 // GROOVY end
                 if (this.progressMonitor != null) this.progressMonitor.worked(1);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,10 +15,11 @@
  */
 package org.codehaus.jdt.groovy.model;
 
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.codehaus.groovy.ast.ModuleNode;
@@ -28,10 +29,6 @@ import org.codehaus.groovy.ast.stmt.ReturnStatement;
 import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
 import org.eclipse.jdt.internal.core.JavaModelManager.PerWorkingCopyInfo;
@@ -39,7 +36,10 @@ import org.eclipse.jdt.internal.core.JavaModelManager.PerWorkingCopyInfo;
 /**
  * Stores module nodes for groovy compilation units This class is not meant to be accessed externally.
  * <p>
- * One module node is stored per working copy of a unit.
+ * One module node is stored per working copy of a unit. Entries are held in a concurrent map so that reconcile, semantic
+ * highlighting, code select and content assist do not serialize on a single lock. Each entry carries a version stamp so
+ * that a late put of an older module node cannot replace a newer one. Entries are purged when their working copy is
+ * discarded; a sweep for entries orphaned by other means is run only when the map grows past its high-water mark.
  */
 public class ModuleNodeMapper {
 
@@ -57,11 +57,53 @@ public class ModuleNodeMapper {
         return INSTANCE.infoToModuleMap.size();
     }
 
+    /**
+     * @return number of lookups that found a cached module node
+     */
+    public static long getHitCount() {
+        return INSTANCE.hits.get();
+    }
+
+    /**
+     * @return number of lookups that did not find a cached module node
+     */
+    public static long getMissCount() {
+        return INSTANCE.misses.get();
+    }
+
+    /**
+     * @return number of entries removed because their working copy was discarded or found to be stale
+     */
+    public static long getEvictionCount() {
+        return INSTANCE.evictions.get();
+    }
+
+    /**
+     * Answers a version stamp for a module node that is about to be created.
+     * Callers take the stamp before parsing, so that the stamp orders module
+     * nodes by the source contents they were built from, not by the time
+     * their (possibly slower) parse completed.
+     */
+    static long nextVersion() {
+        return VERSION.incrementAndGet();
+    }
+
     //
 
-    private final Map<PerWorkingCopyInfo, ModuleNodeInfo> infoToModuleMap = new HashMap<>();
+    private static final int MIN_SWEEP_THRESHOLD = 32;
+
+    private static final AtomicLong VERSION = new AtomicLong();
+
+    private final ConcurrentMap<PerWorkingCopyInfo, ModuleNodeInfo> infoToModuleMap = new ConcurrentHashMap<>();
 
-    private final ReentrantLock lock = new ReentrantLock(true);
+    private final AtomicInteger sweepThreshold = new AtomicInteger(MIN_SWEEP_THRESHOLD);
+
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+
+    /**
+     * Guards working copy creation and disposal; lookups and updates of the map do not require it.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
 
     public void lock() {
         lock.lock();
@@ -74,74 +116,57 @@ public class ModuleNodeMapper {
     //--------------------------------------------------------------------------
 
     ModuleNodeInfo get(PerWorkingCopyInfo info) {
-        lock.lock();
-        try {
-            sweepAndPurgeModuleNodes();
-            return infoToModuleMap.get(info);
-        } finally {
-            lock.unlock();
-        }
+        ModuleNodeInfo moduleInfo = infoToModuleMap.get(info);
+        (moduleInfo != null ? hits : misses).incrementAndGet();
+        return moduleInfo;
     }
 
     ModuleNodeInfo put(PerWorkingCopyInfo info, ModuleNodeInfo tuple) {
-        lock.lock();
-        try {
+        ModuleNodeInfo[] previous = new ModuleNodeInfo[1];
+        infoToModuleMap.compute(info, (key, val) -> {
+            previous[0] = val;
+            // keep the newer of the two module nodes
+            return (val != null && val.version > tuple.version) ? val : tuple;
+        });
+        if (infoToModuleMap.size() > sweepThreshold.get()) {
             sweepAndPurgeModuleNodes();
-            return infoToModuleMap.put(info, tuple);
-        } finally {
-            lock.unlock();
         }
+        return previous[0];
     }
 
     ModuleNodeInfo remove(PerWorkingCopyInfo info) {
-        lock.lock();
-        try {
-            sweepAndPurgeModuleNodes();
-            return infoToModuleMap.remove(info);
-        } finally {
-            lock.unlock();
+        ModuleNodeInfo moduleInfo = infoToModuleMap.remove(info);
+        if (moduleInfo != null) {
+            evictions.incrementAndGet();
         }
+        return moduleInfo;
     }
 
     /**
      * Cache the module node if this is a working copy.
+     *
+     * @param version stamp from {@link #nextVersion()} taken before the unit was parsed
      */
-    void maybeCacheModuleNode(PerWorkingCopyInfo info, GroovyCompilationUnitDeclaration gcud) {
+    void maybeCacheModuleNode(PerWorkingCopyInfo info, GroovyCompilationUnitDeclaration gcud, long version) {
         if (info != null && gcud != null) {
-            if (lock.tryLock()) {
-                try {
-                    ModuleNode module = gcud.getModuleNode();
-                    if (module != null) {
-                        put(info, new ModuleNodeInfo(module, (JDTResolver) gcud.getCompilationUnit().getResolveVisitor(), gcud.compilationResult()));
-                    }
-                } finally {
-                    lock.unlock();
-                }
-            } else {
-                // lock grabbed by someone else. rerun this operation later
-                new Job("Cache module node") {
-                    @Override
-                    protected IStatus run(IProgressMonitor monitor) {
-                        maybeCacheModuleNode(info, gcud);
-                        return Status.OK_STATUS;
-                    }
-                }.schedule();
+            ModuleNode module = gcud.getModuleNode();
+            if (module != null) {
+                put(info, new ModuleNodeInfo(module, (JDTResolver) gcud.getCompilationUnit().getResolveVisitor(), gcud.compilationResult(), version));
             }
         }
     }
 
     // GRECLIPSE-804 check to see that the stored nodes are correct and purge any stale elements
     private void sweepAndPurgeModuleNodes() {
-        for (Iterator<PerWorkingCopyInfo> it = infoToModuleMap.keySet().iterator(); it.hasNext();) {
-            PerWorkingCopyInfo info = it.next();
-
+        infoToModuleMap.keySet().removeIf(info -> {
             Integer useCount = ReflectionUtils.getPrivateField(PerWorkingCopyInfo.class, "useCount", info);
             if (useCount != null && useCount <= 0) {
-                it.remove();
-
-                System.err.println("Bad module node map entry: " + info.getWorkingCopy().getElementName());
+                evictions.incrementAndGet();
+                return true;
             }
-        }
+            return false;
+        });
+        sweepThreshold.set(Math.max(MIN_SWEEP_THRESHOLD, infoToModuleMap.size() * 2));
     }
 
     //--------------------------------------------------------------------------
@@ -151,15 +176,24 @@ public class ModuleNodeMapper {
         public final ModuleNode module;
         public final JDTResolver resolver;
         public final CompilationResult result;
+        /**
+         * Monotonically increasing stamp; greater values denote module nodes built from more recent source contents.
+         */
+        public final long version;
 
         public ModuleNodeInfo(ModuleNode module, JDTResolver resolver) {
             this(module, resolver, null);
         }
 
         public ModuleNodeInfo(ModuleNode module, JDTResolver resolver, CompilationResult result) {
+            this(module, resolver, result, nextVersion());
+        }
+
+        public ModuleNodeInfo(ModuleNode module, JDTResolver resolver, CompilationResult result, long version) {
             this.module = module;
             this.resolver = resolver;
             this.result = result;
+            this.version = version;
         }
 
         public final boolean isEmpty() {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,13 +20,21 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.jdt.groovy.internal.compiler.ast.UnresolvableTypeNames;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ProjectScope;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.jdt.groovy.core.util.GroovyUtils;
 import org.eclipse.jdt.internal.core.util.Util;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Version;
 import org.osgi.service.prefs.BackingStoreException;
 
 public class Activator extends Plugin {
@@ -61,10 +69,63 @@ public class Activator extends Plugin {
     @Override
     public void start(BundleContext context) throws Exception {
         super.start(context);
+        UnresolvableTypeNames.start();
+
+        if (isParrotParser()) {
+            Job.createSystem("Groovy parser warm-up", monitor -> {
+                IStatus status = warmUpParser();
+                if (!status.isOK()) {
+                    Util.log(status);
+                }
+            }).schedule();
+        }
+    }
+
+    private static boolean isParrotParser() {
+        Version version = GroovyUtils.getGroovyVersion();
+        return (Boolean.getBoolean("groovy.antlr4") && (version.getMajor() * 10 + version.getMinor()) >= 26);
+    }
+
+    /**
+     * Populates the (shared) DFA cache of the Antlr4 parser, so the first
+     * reconciles do not pay for building it.  The snippet is parsed like any
+     * other source unit, through the configured parser plug-in.
+     *
+     * @return error status if the snippet could not be parsed
+     */
+    public static IStatus warmUpParser() {
+        SourceUnit unit = SourceUnit.create("WarmUp.groovy", String.join("\n",
+            "package p",
+            "import static java.util.Collections.*",
+            "@groovy.transform.CompileStatic",
+            "class C<T extends Number> extends Object implements Serializable {",
+            "  private final List<T> list = []",
+            "  def map = [a: 1, 'b': 2.0G]",
+            "  static main(String[] args) {",
+            "    def c = new C<Integer>()",
+            "    c.list << 1; c.map.each { k, v -> println \"$k=${v}\" }",
+            "    for (int i = 0; i < args.length; i += 1) { if (args[i] ==~ /x/) break }",
+            "    try { assert c?.list*.intValue() != null : 'msg' } catch (e) { throw e } finally { }",
+            "    switch (args) { case String[]: return; default: println(args as List) }",
+            "    Runnable r = () -> { c.&toString; this.@list }",
+            "  }",
+            "}"));
+        try {
+            unit.parse();
+            unit.completePhase();
+            unit.convert();
+        } catch (CompilationFailedException e) {
+            return new Status(IStatus.WARNING, PLUGIN_ID, "Groovy parser warm-up failed", e);
+        }
+        if (unit.getErrorCollector().hasErrors() || unit.getAST().getClasses().isEmpty()) {
+            return new Status(IStatus.WARNING, PLUGIN_ID, "Groovy parser warm-up failed: " + unit.getErrorCollector().getErrors());
+        }
+        return Status.OK_STATUS;
     }
 
     @Override
     public void stop(BundleContext context) throws Exception {
+        UnresolvableTypeNames.stop();
         super.stop(context);
     }
 
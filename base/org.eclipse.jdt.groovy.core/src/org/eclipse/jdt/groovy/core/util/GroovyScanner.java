@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@ package org.eclipse.jdt.groovy.core.util;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import groovyjarjarantlr.Token;
 import groovyjarjarantlr.TokenStream;
@@ -32,7 +34,7 @@ import org.eclipse.jface.text.IDocument;
 public class GroovyScanner {
 
     private TokenStream stream;
-    private GroovyLexer lexer;
+    private StatefulLexer lexer;
     private boolean whiteSpaceIncluded;
 
     public GroovyScanner(Reader input) {
@@ -43,9 +45,24 @@ public class GroovyScanner {
         init(input, whiteSpaceIncluded);
     }
 
+    /**
+     * Creates a scanner that resumes lexing part way through a source text.
+     *
+     * @param input the source text starting at the resume position
+     * @param line antlr style line number (starts at 1) of the resume position
+     * @param col antlr style col number (starts at 1) of the resume position
+     * @param state lexer state captured by {@link #getState()} at the resume position
+     */
+    public GroovyScanner(Reader input, boolean whiteSpaceIncluded, int line, int col, LexerState state) {
+        init(input, whiteSpaceIncluded);
+        lexer.setLine(line);
+        lexer.setColumn(col);
+        lexer.restoreState(state);
+    }
+
     private void init(Reader input, boolean whiteSpaceIncluded) {
         this.whiteSpaceIncluded = whiteSpaceIncluded;
-        lexer = new GroovyLexer(input);
+        lexer = new StatefulLexer(input);
         lexer.setWhitespaceIncluded(whiteSpaceIncluded);
         this.stream = lexer.plumb();
         /*
@@ -62,6 +79,15 @@ public class GroovyScanner {
         return stream.nextToken();
     }
 
+    /**
+     * Captures the state of the lexer after the most recently returned token.
+     * Scanning may be resumed from this point by passing the state to
+     * {@link #GroovyScanner(Reader, boolean, int, int, LexerState)}.
+     */
+    public LexerState getState() {
+        return lexer.saveState();
+    }
+
     /**
      * Attempt to recover after a scanning error. We will recreate the Antlr lexer one character past the place where we got an
      * error and try to continue scanning from there.
@@ -93,4 +119,69 @@ public class GroovyScanner {
         return document.getLineOffset(line - 1) + col - 1;
     }
 
+    //--------------------------------------------------------------------------
+
+    /**
+     * Snapshot of the context-sensitive state of a {@link GroovyLexer}: nesting
+     * of parens and braces, string constructor mode and last significant token.
+     */
+    public static final class LexerState {
+
+        private final int parenLevel;
+        private final int suppressNewline;
+        private final int stringCtorState;
+        private final int lastSigTokenType;
+        private final Object[] parenLevelStack;
+
+        private LexerState(int parenLevel, int suppressNewline, int stringCtorState, int lastSigTokenType, Object[] parenLevelStack) {
+            this.parenLevel = parenLevel;
+            this.suppressNewline = suppressNewline;
+            this.stringCtorState = stringCtorState;
+            this.lastSigTokenType = lastSigTokenType;
+            this.parenLevelStack = parenLevelStack;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LexerState)) {
+                return false;
+            }
+            LexerState that = (LexerState) obj;
+            return (this.parenLevel == that.parenLevel && this.suppressNewline == that.suppressNewline &&
+                this.stringCtorState == that.stringCtorState && this.lastSigTokenType == that.lastSigTokenType &&
+                Arrays.equals(this.parenLevelStack, that.parenLevelStack));
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = parenLevel;
+            hash = 31 * hash + stringCtorState;
+            hash = 31 * hash + lastSigTokenType;
+            hash = 31 * hash + parenLevelStack.length;
+            return hash;
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static class StatefulLexer extends GroovyLexer {
+
+        StatefulLexer(Reader input) {
+            super(input);
+        }
+
+        LexerState saveState() {
+            return new LexerState(parenLevel, suppressNewline, stringCtorState, lastSigTokenType, parenLevelStack.toArray());
+        }
+
+        void restoreState(LexerState state) {
+            parenLevel = state.parenLevel;
+            suppressNewline = state.suppressNewline;
+            stringCtorState = state.stringCtorState;
+            lastSigTokenType = state.lastSigTokenType;
+            parenLevelStack = new ArrayList(Arrays.asList(state.parenLevelStack));
+        }
+    }
 }
@@ -74,26 +74,31 @@ public class GroovyUtils {
         return new Version(version);
     }
 
-    // FIXASC don't use this any more?
+    /**
+     * Scans source code for line separators; prefer the positions recorded by
+     * the parser ({@code LocationSupport}) when they are available.
+     */
     public static int[] getSourceLineSeparatorsIn(char[] code) {
-        List<Integer> lineSeparatorsCollection = new ArrayList<>();
+        int[] lineSepPositions = new int[64];
+        int count = 0;
         for (int i = 0, max = code.length; i < max; i += 1) {
+            int position;
             if (code[i] == '\r') {
-                if ((i + 1) < max && code[i + 1] == '\n') {// \r\n
-                    lineSeparatorsCollection.add(i + 1); // add the position of the \n
-                    i += 1;
-                } else {
-                    lineSeparatorsCollection.add(i); // add the position of the \r
+                if ((i + 1) < max && code[i + 1] == '\n') { // \r\n
+                    i += 1; // use the position of the \n
                 }
+                position = i;
             } else if (code[i] == '\n') {
-                lineSeparatorsCollection.add(i);
+                position = i;
+            } else {
+                continue;
             }
+            if (count == lineSepPositions.length) {
+                lineSepPositions = Arrays.copyOf(lineSepPositions, count * 2);
+            }
+            lineSepPositions[count++] = position;
         }
-        int[] lineSepPositions = new int[lineSeparatorsCollection.size()];
-        for (int i = 0; i < lineSeparatorsCollection.size(); i += 1) {
-            lineSepPositions[i] = lineSeparatorsCollection.get(i);
-        }
-        return lineSepPositions;
+        return Arrays.copyOf(lineSepPositions, count);
     }
 
     /**
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.runtime.DefaultGroovyMethods;
+import org.eclipse.jdt.groovy.core.util.GroovyUtils;
+
+/**
+ * Index of the category methods of a category class that is part of the Groovy
+ * runtime (for example {@code DefaultGroovyMethods} or {@code StringGroovyMethods}).
+ * Methods are indexed by name and, as receivers are looked up, by the type
+ * hierarchy of the receivers their first (self type) parameter accepts.  Indexes
+ * are computed once per category class and, since the runtime classes are shared
+ * by all projects, once per Groovy compiler version.
+ */
+public final class CategoryMethodIndex {
+
+    private static final ClassValue<CategoryMethodIndex> INDEXES = new ClassValue<CategoryMethodIndex>() {
+        @Override
+        protected CategoryMethodIndex computeValue(Class<?> type) {
+            return new CategoryMethodIndex(new ClassNode(type));
+        }
+    };
+
+    /**
+     * @return the shared index for the given category or {@code null} if the
+     *         category is not provided by the Groovy runtime
+     */
+    public static CategoryMethodIndex forCategory(ClassNode category) {
+        if (category.hasClass()) {
+            return forClass(category.getTypeClass());
+        }
+        return null;
+    }
+
+    /**
+     * @return shared (and fully initialized) class node for a runtime category
+     *         or a new class node for any other category class
+     */
+    public static ClassNode getCategoryNode(Class<?> type) {
+        CategoryMethodIndex index = forClass(type);
+        return (index != null ? index.category : new ClassNode(type));
+    }
+
+    private static CategoryMethodIndex forClass(Class<?> type) {
+        if (type.getClassLoader() == DefaultGroovyMethods.class.getClassLoader()) {
+            return INDEXES.get(type);
+        }
+        return null;
+    }
+
+    //--------------------------------------------------------------------------
+
+    private final ClassNode category;
+
+    /** Static methods with at least one parameter, by name, in declaration order. */
+    private final Map<String, List<MethodNode>> methodsByName = new HashMap<>();
+
+    /**
+     * Methods by receiver hierarchy and name.  Self type compatibility depends
+     * only on the names of the receiver's supertypes, so receivers of different
+     * projects with the same hierarchy share their entries.
+     */
+    private final Map<String, Map<String, List<MethodNode>>> methodsByReceiverAndName = new ConcurrentHashMap<>();
+
+    private static final int MAX_RECEIVERS = 1000;
+
+    private final Set<MethodNode> deprecated = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private CategoryMethodIndex(ClassNode category) {
+        this.category = category;
+        for (MethodNode method : category.getMethods()) {
+            Parameter[] parameters = method.getParameters();
+            if (method.isStatic() && parameters != null && parameters.length > 0) {
+                methodsByName.computeIfAbsent(method.getName(), x -> new ArrayList<>(2)).add(method);
+                if (GroovyUtils.isDeprecated(method)) {
+                    deprecated.add(method);
+                }
+            }
+        }
+    }
+
+    public ClassNode getCategory() {
+        return category;
+    }
+
+    /**
+     * @return static methods of the given name that have a self type parameter
+     */
+    public List<MethodNode> getMethods(String name) {
+        List<MethodNode> methods = methodsByName.get(name);
+        return (methods != null ? Collections.unmodifiableList(methods) : Collections.emptyList());
+    }
+
+    /**
+     * @return static methods of the given name whose self type parameter accepts
+     *         the receiver type (which must not be a primitive or {@code Class})
+     */
+    public List<MethodNode> getMethods(String name, ClassNode receiver) {
+        List<MethodNode> methods = methodsByName.get(name);
+        if (methods == null) {
+            return Collections.emptyList();
+        }
+        String key = getHierarchyKey(receiver);
+        if (key == null) {
+            return selectCompatible(methods, receiver);
+        }
+        if (methodsByReceiverAndName.size() > MAX_RECEIVERS) {
+            methodsByReceiverAndName.clear();
+        }
+        return methodsByReceiverAndName.computeIfAbsent(key, x -> new ConcurrentHashMap<>())
+            .computeIfAbsent(name, x -> selectCompatible(methods, receiver));
+    }
+
+    private static List<MethodNode> selectCompatible(List<MethodNode> methods, ClassNode receiver) {
+        List<MethodNode> compatible = new ArrayList<>(methods.size());
+        for (MethodNode method : methods) {
+            if (CategoryTypeLookup.isTypeCompatible(receiver, method.getParameters()[0].getType())) {
+                compatible.add(method);
+            }
+        }
+        return Collections.unmodifiableList(compatible);
+    }
+
+    /**
+     * @return names of the receiver's superclasses and interfaces or {@code null}
+     *         if compatibility of the receiver does not depend on its hierarchy alone
+     */
+    private static String getHierarchyKey(ClassNode receiver) {
+        if (receiver.isArray()) {
+            String key = getHierarchyKey(receiver.getComponentType());
+            return (key != null ? "[" + key : null);
+        }
+        if (receiver == VariableScope.NULL_TYPE || receiver.isGenericsPlaceHolder() || receiver.isPrimitive()) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        Set<String> interfaces = new TreeSet<>();
+        for (ClassNode node = receiver; node != null; node = node.getSuperClass()) {
+            key.append(node.getName()).append(',');
+            collectInterfaces(node, interfaces);
+        }
+        return key.append(interfaces).toString();
+    }
+
+    private static void collectInterfaces(ClassNode node, Set<String> names) {
+        ClassNode[] interfaces = node.getInterfaces();
+        if (interfaces != null) {
+            for (ClassNode face : interfaces) {
+                if (names.add(face.getName())) {
+                    collectInterfaces(face, names);
+                }
+            }
+        }
+    }
+
+    public boolean isDeprecated(MethodNode method) {
+        return deprecated.contains(method);
+    }
+}
@@ -53,27 +53,28 @@ public class CategoryTypeLookup implements ITypeLookup {
             List<MethodNode> candidates = new ArrayList<>();
 
             for (ClassNode category : scope.getCategoryNames()) {
+                CategoryMethodIndex index = CategoryMethodIndex.forCategory(category);
                 if (scope.isMethodCall() || isMethodPointer) {
-                    for (MethodNode method : category.getMethods(simpleName)) {
-                        if (isCompatibleCategoryMethod(method, selfType, scope)) {
+                    for (MethodNode method : getCategoryMethods(category, index, simpleName, selfType)) {
+                        if (isCompatibleCategoryMethod(method, selfType, scope, index)) {
                             candidates.add(method);
                         }
                     }
                 }
                 String getterName = AccessorSupport.GETTER.createAccessorName(simpleName);
                 if (getterName != null && !isMethodPointer) {
-                    for (MethodNode method : category.getMethods(getterName)) {
+                    for (MethodNode method : getCategoryMethods(category, index, getterName, selfType)) {
                         if (AccessorSupport.findAccessorKind(method, true) == AccessorSupport.GETTER &&
-                                isCompatibleCategoryMethod(method, selfType, scope)) {
+                                isCompatibleCategoryMethod(method, selfType, scope, index)) {
                             candidates.add(method);
                         }
                     }
                 }
                 String setterName = AccessorSupport.SETTER.createAccessorName(simpleName);
                 if (setterName != null && !isMethodPointer) {
-                    for (MethodNode method : category.getMethods(setterName)) {
+                    for (MethodNode method : getCategoryMethods(category, index, setterName, selfType)) {
                         if (AccessorSupport.findAccessorKind(method, true) == AccessorSupport.SETTER &&
-                                isCompatibleCategoryMethod(method, selfType, scope)) {
+                                isCompatibleCategoryMethod(method, selfType, scope, index)) {
                             candidates.add(method);
                         }
                     }
@@ -97,6 +98,25 @@ public class CategoryTypeLookup implements ITypeLookup {
         return null;
     }
 
+    private static List<MethodNode> getCategoryMethods(ClassNode category, CategoryMethodIndex index, String name, ClassNode selfType) {
+        if (index == null) {
+            return category.getMethods(name);
+        }
+        // static methods of Class are matched against the class itself, not its hierarchy
+        if (VariableScope.CLASS_CLASS_NODE.equals(selfType)) {
+            return index.getMethods(name);
+        }
+        return index.getMethods(name, selfType);
+    }
+
+    private static boolean isCompatibleCategoryMethod(MethodNode method, ClassNode selfType, VariableScope scope, CategoryMethodIndex index) {
+        if (index == null || VariableScope.CLASS_CLASS_NODE.equals(selfType)) {
+            return isCompatibleCategoryMethod(method, selfType, scope);
+        }
+        // methods from the index are static and accept the self type
+        return !isDefaultGroovyMethod(method, scope) || !index.isDeprecated(method);
+    }
+
     protected static boolean isCompatibleConstantExpression(Expression node, VariableScope scope, ClassNode selfType) {
         if (node instanceof ConstantExpression && !scope.isTopLevel()) {
             org.codehaus.groovy.ast.ASTNode enclosingNode = scope.getEnclosingNode();
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+/**
+ * Collects the matches of a search that runs on a worker thread, so they can
+ * be reported to the client's requestor from the thread that started the
+ * search.  Search requestors that tailor their matches to the client (for
+ * example, refactorings and call hierarchy want accurate matches) must check
+ * {@link #getClient(SearchRequestor)} rather than the requestor they report to.
+ */
+public class DeferredSearchRequestor extends SearchRequestor {
+
+    private final SearchRequestor client;
+
+    private final List<SearchMatch> matches = new ArrayList<>();
+
+    public DeferredSearchRequestor(SearchRequestor client) {
+        this.client = client;
+    }
+
+    /**
+     * @return the requestor that receives the matches in the end
+     */
+    public static SearchRequestor getClient(SearchRequestor requestor) {
+        return (requestor instanceof DeferredSearchRequestor ? ((DeferredSearchRequestor) requestor).client : requestor);
+    }
+
+    @Override
+    public void acceptSearchMatch(SearchMatch match) {
+        matches.add(match);
+    }
+
+    public List<SearchMatch> getMatches() {
+        return matches;
+    }
+}
@@ -187,6 +187,6 @@ public class FieldReferenceSearchRequestor implements ITypeRequestor {
      * in the refactoring wizard of "possible matches".
      */
     private boolean shouldAlwaysBeAccurate() {
-        return requestor.getClass().getPackage().getName().indexOf("refactoring") != -1;
+        return DeferredSearchRequestor.getClient(requestor).getClass().getPackage().getName().indexOf("refactoring") != -1;
     }
 }
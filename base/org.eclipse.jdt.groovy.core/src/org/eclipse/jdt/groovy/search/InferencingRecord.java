@@ -0,0 +1,150 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+
+/**
+ * Lookup results of a complete type inferencing pass over one version of a
+ * Groovy compilation unit, kept in visit order.  Semantic highlighting, code
+ * minings, mark occurrences and the like all visit the same unmodified module
+ * after a reconcile; the record lets them share a single inferencing pass.
+ * <p>
+ * A record is stored with the module node it was produced from, so it is
+ * discarded along with the module when the unit is reconciled again.
+ */
+public final class InferencingRecord {
+
+    /**
+     * Sends the type lookup results for the current version of the unit to the
+     * requestor, running type inferencing only if no record exists for it yet.
+     * The requestor's {@link VisitStatus} is honored as closely as a recorded
+     * visit permits: branches are skipped by source range and members by
+     * enclosing element.
+     */
+    public static void replay(GroovyCompilationUnit unit, ITypeRequestor requestor) {
+        if (!unit.isWorkingCopy()) {
+            // module node is rebuilt for each request; nothing to share
+            factory.createVisitor(unit).visitCompilationUnit(requestor);
+            return;
+        }
+        ModuleNode module = unit.getModuleNode();
+        if (module != null) {
+            InferencingRecord record;
+            synchronized (module) {
+                record = module.getNodeMetaData(InferencingRecord.class);
+                if (record == null) {
+                    record = new InferencingRecord();
+                    TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+                    visitor.visitCompilationUnit(record::record);
+                    // visitor may have seen a newer module if the unit was reconciled concurrently
+                    if (visitor.getEnclosingModule() == module) {
+                        module.putNodeMetaData(InferencingRecord.class, record);
+                    }
+                }
+            }
+            record.replay(requestor);
+        }
+    }
+
+    private static final TypeInferencingVisitorFactory factory = new TypeInferencingVisitorFactory();
+
+    //--------------------------------------------------------------------------
+
+    private static final class Entry {
+        final ASTNode node;
+        final TypeLookupResult result;
+        final IJavaElement enclosingElement;
+        final VariableScope.TraversalState state;
+
+        Entry(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+            this.node = node;
+            this.result = result;
+            this.enclosingElement = enclosingElement;
+            this.state = (result.scope != null ? result.scope.saveTraversalState() : null);
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private InferencingRecord() {
+    }
+
+    private VisitStatus record(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+        entries.add(new Entry(node, result, enclosingElement));
+        return VisitStatus.CONTINUE;
+    }
+
+    /**
+     * Replays are serialized since lookup results share their scopes' state.
+     */
+    private synchronized void replay(ITypeRequestor requestor) {
+        ASTNode cancelledBranch = null;
+        IJavaElement cancelledMember = null;
+        for (Entry entry : entries) {
+            if (cancelledMember != null) {
+                if (cancelledMember.equals(entry.enclosingElement)) {
+                    continue;
+                }
+                cancelledMember = null;
+            }
+            if (cancelledBranch != null) {
+                if (isWithin(entry.node, cancelledBranch)) {
+                    continue;
+                }
+                cancelledBranch = null;
+            }
+
+            VisitStatus status = accept(requestor, entry);
+            switch (status) {
+            case CONTINUE:
+                break;
+            case CANCEL_BRANCH:
+                cancelledBranch = entry.node;
+                break;
+            case CANCEL_MEMBER:
+                cancelledMember = entry.enclosingElement;
+                break;
+            case STOP_VISIT:
+                return;
+            }
+        }
+    }
+
+    private static VisitStatus accept(ITypeRequestor requestor, Entry entry) {
+        VariableScope scope = entry.result.scope;
+        VariableScope.TraversalState saved = (entry.state != null ? scope.restoreTraversalState(entry.state) : null);
+        try {
+            return requestor.acceptASTNode(entry.node, entry.result, entry.enclosingElement);
+        } finally {
+            if (saved != null) {
+                scope.restoreTraversalState(saved);
+            }
+        }
+    }
+
+    private static boolean isWithin(ASTNode node, ASTNode branch) {
+        return (branch.getEnd() > 0 && node.getEnd() > 0 &&
+            node.getStart() >= branch.getStart() && node.getEnd() <= branch.getEnd());
+    }
+}
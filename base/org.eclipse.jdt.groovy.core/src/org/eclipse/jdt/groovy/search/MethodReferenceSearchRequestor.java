@@ -119,7 +119,7 @@ public class MethodReferenceSearchRequestor implements ITypeRequestor {
 
         findReferences = (Boolean) ReflectionUtils.getPrivateField(MethodPattern.class, "findReferences", pattern);
         findDeclarations = (Boolean) ReflectionUtils.getPrivateField(MethodPattern.class, "findDeclarations", pattern);
-        skipPseudoProperties = requestor.getClass().getName().equals("org.eclipse.jdt.internal.corext.refactoring.rename.MethodOccurenceCollector");
+        skipPseudoProperties = DeferredSearchRequestor.getClient(requestor).getClass().getName().equals("org.eclipse.jdt.internal.corext.refactoring.rename.MethodOccurenceCollector");
     }
 
     protected static String[] getParameterTypeNames(MethodPattern pattern, String[] parameterTypeSignatures, IType declaringType) {
@@ -413,7 +413,7 @@ public class MethodReferenceSearchRequestor implements ITypeRequestor {
 
     private int getAccuracy(TypeConfidence confidence) {
         //                                        improves call hierarchy and prevents "possible matches" warnings in refactoring wizard
-        if (confidence == TypeConfidence.EXACT || ACCURATE_REQUESTOR.matcher(requestor.getClass().getName()).find()) {
+        if (confidence == TypeConfidence.EXACT || ACCURATE_REQUESTOR.matcher(DeferredSearchRequestor.getClient(requestor).getClass().getName()).find()) {
             return SearchMatch.A_ACCURATE;
         }
         return SearchMatch.A_INACCURATE;
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.core.ILocalVariable;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.core.search.matching.ConstructorPattern;
+import org.eclipse.jdt.internal.core.search.matching.FieldPattern;
+import org.eclipse.jdt.internal.core.search.matching.LocalVariablePattern;
+import org.eclipse.jdt.internal.core.search.matching.MethodPattern;
+import org.eclipse.jdt.internal.core.search.matching.OrPattern;
+import org.eclipse.jdt.internal.core.search.matching.PossibleMatch;
+import org.eclipse.jdt.internal.core.search.matching.TypeDeclarationPattern;
+import org.eclipse.jdt.internal.core.search.matching.TypeReferencePattern;
+import org.eclipse.jdt.internal.core.search.matching.VariablePattern;
+
+/**
+ * Cheap check that rejects possible matches whose source text does not contain
+ * the searched name as an identifier token, so that type inferencing can be
+ * skipped for them.  The check is conservative: names are compared without
+ * regard to case (to cover property/accessor forms) and tokens within strings
+ * and comments are not excluded.  Patterns that can match without naming the
+ * target (e.g. operator methods, wildcard patterns) are never filtered.
+ */
+public final class NamePrefilter {
+
+    private NamePrefilter() {
+    }
+
+    private static final AtomicLong CHECKED = new AtomicLong();
+    private static final AtomicLong FILTERED = new AtomicLong();
+
+    /** Match rule bits that still imply an exact simple name. */
+    private static final int EXACT_NAME_RULES = SearchPattern.R_CASE_SENSITIVE |
+        SearchPattern.R_ERASURE_MATCH | SearchPattern.R_EQUIVALENT_MATCH | SearchPattern.R_FULL_MATCH;
+
+    /** Methods that may be called through operators or other implicit syntax. */
+    private static final Set<String> IMPLICIT_METHODS = new HashSet<>(Arrays.asList(
+        "and", "asBoolean", "asType", "bitwiseNegate", "call", "compareTo", "div", "equals", "getAt", "getProperty",
+        "invokeMethod", "isCase", "iterator", "leftShift", "methodMissing", "minus", "mod", "multiply", "negative",
+        "next", "or", "plus", "positive", "power", "previous", "propertyMissing", "putAt", "rightShift",
+        "rightShiftUnsigned", "setProperty", "xor"));
+
+    /**
+     * @return {@code false} if the possible match cannot contain a match for the
+     *     pattern; {@code true} if it may contain one or the pattern is not supported
+     */
+    public static boolean mayMatch(PossibleMatch possibleMatch, SearchPattern pattern) {
+        Set<String> names = new LinkedHashSet<>();
+        if (!collectNames(pattern, names)) {
+            return true;
+        }
+        char[] contents = possibleMatch.getContents();
+        if (contents == null) {
+            return true;
+        }
+
+        CHECKED.incrementAndGet();
+        if (containsToken(contents, names)) {
+            return true;
+        }
+        FILTERED.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return number of possible matches that have been checked against a name
+     */
+    public static long getCheckedCount() {
+        return CHECKED.get();
+    }
+
+    /**
+     * @return number of possible matches that have been skipped because they do not contain the name
+     */
+    public static long getFilteredCount() {
+        return FILTERED.get();
+    }
+
+    public static void resetCounts() {
+        CHECKED.set(0);
+        FILTERED.set(0);
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Adds the lower-case forms of the names that any match of the pattern must
+     * have in its source text.
+     *
+     * @return {@code false} if the pattern cannot be reduced to a set of names
+     */
+    private static boolean collectNames(SearchPattern pattern, Set<String> names) {
+        if (pattern instanceof OrPattern) {
+            SearchPattern[] patterns = ReflectionUtils.getPrivateField(OrPattern.class, "patterns", pattern);
+            for (SearchPattern orPattern : patterns) {
+                if (orPattern != null && !collectNames(orPattern, names)) {
+                    return false;
+                }
+            }
+            return !names.isEmpty();
+        }
+        if ((pattern.getMatchRule() & ~EXACT_NAME_RULES) != 0) {
+            return false;
+        }
+
+        char[] name;
+        if (pattern instanceof TypeReferencePattern) {
+            name = ReflectionUtils.getPrivateField(TypeReferencePattern.class, "simpleName", pattern);
+        } else if (pattern instanceof TypeDeclarationPattern) {
+            name = ((TypeDeclarationPattern) pattern).simpleName;
+        } else if (pattern instanceof ConstructorPattern) {
+            name = ((ConstructorPattern) pattern).declaringSimpleName;
+        } else if (pattern instanceof MethodPattern) {
+            name = ((MethodPattern) pattern).selector;
+            if (name != null && IMPLICIT_METHODS.contains(String.valueOf(name))) {
+                return false;
+            }
+        } else if (pattern instanceof FieldPattern) {
+            name = ReflectionUtils.getPrivateField(VariablePattern.class, "name", pattern);
+        } else if (pattern instanceof LocalVariablePattern) {
+            ILocalVariable localVar = ReflectionUtils.getPrivateField(LocalVariablePattern.class, "localVariable", pattern);
+            name = localVar.getElementName().toCharArray();
+        } else {
+            return false;
+        }
+        if (name == null || name.length == 0 || isWildcard(name)) {
+            return false;
+        }
+
+        String string = String.valueOf(CharOperation.toLowerCase(name));
+        names.add(string);
+        if (pattern instanceof FieldPattern) {
+            // property may be accessed through its getter or setter
+            names.add("get" + string);
+            names.add("set" + string);
+            names.add("is" + string);
+        } else if (pattern instanceof MethodPattern) {
+            // accessor may be called using property syntax
+            for (String prefix : new String[] {"get", "set", "is"}) {
+                if (string.length() > prefix.length() && string.startsWith(prefix)) {
+                    names.add(string.substring(prefix.length()));
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWildcard(char[] name) {
+        for (char c : name) {
+            if (c == '*' || c == '?') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsToken(char[] contents, Set<String> names) {
+        int maxLength = 0;
+        for (String name : names) {
+            maxLength = Math.max(maxLength, name.length());
+        }
+        for (int i = 0, n = contents.length; i < n;) {
+            if (!Character.isJavaIdentifierStart(contents[i])) {
+                i += 1;
+                continue;
+            }
+            int start = i;
+            do {
+                i += 1;
+            } while (i < n && Character.isJavaIdentifierPart(contents[i]));
+
+            int length = i - start;
+            if (length <= maxLength) {
+                for (String name : names) {
+                    if (name.length() == length && regionMatches(name, contents, start)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(String name, char[] contents, int offset) {
+        for (int i = 0, n = name.length(); i < n; i += 1) {
+            if (Character.toLowerCase(contents[offset + i]) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -224,6 +224,10 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
         }
     }
 
+    /*package*/ ModuleNode getEnclosingModule() {
+        return enclosingModule;
+    }
+
     //--------------------------------------------------------------------------
 
     public void visitCompilationUnit(ITypeRequestor requestor) {
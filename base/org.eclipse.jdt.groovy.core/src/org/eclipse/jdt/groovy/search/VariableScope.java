@@ -390,6 +390,12 @@ public class VariableScope implements Iterable<VariableScope.VariableInfo> {
     private GenericsType[]  methodCallGenericsTypes;
     private final Map<String, VariableInfo> nameVariableMap = new HashMap<>();
 
+    /**
+     * Copy of {@link #nameVariableMap} taken by {@link #saveTraversalState()};
+     * reset when a variable is added or updated.
+     */
+    private Map<String, VariableInfo> variablesSnapshot;
+
     //--------------------------------------------------------------------------
 
     public VariableScope(VariableScope parent, ASTNode enclosingNode, boolean isStatic) {
@@ -481,7 +487,7 @@ public class VariableScope implements Iterable<VariableScope.VariableInfo> {
             categories = scopeNode.getNodeMetaData(DefaultGroovyMethods.class);
             if (categories == null) {
                 GrapeAwareGroovyClassLoader gcl = (GrapeAwareGroovyClassLoader) ((ModuleNode) scopeNode).getUnit().getClassLoader();
-                categories = gcl.getDefaultCategories().stream().map(ClassNode::new).collect(Collectors.toCollection(LinkedHashSet::new));
+                categories = gcl.getDefaultCategories().stream().map(CategoryMethodIndex::getCategoryNode).collect(Collectors.toCollection(LinkedHashSet::new));
 
                 scopeNode.putNodeMetaData(DefaultGroovyMethods.class, Collections.unmodifiableSet(categories));
             }
@@ -694,6 +700,7 @@ public class VariableScope implements Iterable<VariableScope.VariableInfo> {
     public void addVariable(String name, ClassNode type, ClassNode declaringType) {
         if (declaringType == null) declaringType = getEnclosingTypeDeclaration();
         nameVariableMap.put(name, new VariableInfo(name, type, declaringType));
+        variablesSnapshot = null;
     }
 
     /**
@@ -735,6 +742,7 @@ public class VariableScope implements Iterable<VariableScope.VariableInfo> {
         }
         if (info != null) {
             nameVariableMap.put(name, merge(info, type, declaringType));
+            variablesSnapshot = null;
             // if variable is declared in a parent scope, mark it dirty
             if (info.scopeNode != this.scopeNode) {
                 if (dirtyNames == null)
@@ -757,6 +765,7 @@ public class VariableScope implements Iterable<VariableScope.VariableInfo> {
     /*package*/ void updateVariableSoft(String name, ClassNode type) {
         VariableInfo info = merge(parent.lookupName(name), type, null);
         info = nameVariableMap.put(name, info);
+        variablesSnapshot = null;
         assert info == null;
     }
 
@@ -1049,6 +1058,74 @@ public class VariableScope implements Iterable<VariableScope.VariableInfo> {
         enclosingCallStackDepth -= 1;
     }
 
+    /**
+     * Traversal state that requestors can observe through a lookup result's
+     * scope: the current and enclosing node, the enclosing method calls and the
+     * variables of this and the enclosing scopes.
+     */
+    /*package*/ static final class TraversalState {
+        private final List<ASTNode> nodeStack;
+        private final List<CallAndType> enclosingCallStack;
+        private final int enclosingCallStackDepth;
+        /** variables of this scope, followed by those of each enclosing scope */
+        private final List<Map<String, VariableInfo>> variables;
+
+        private TraversalState(List<ASTNode> nodeStack, List<CallAndType> enclosingCallStack, int enclosingCallStackDepth, List<Map<String, VariableInfo>> variables) {
+            this.nodeStack = nodeStack;
+            this.enclosingCallStack = enclosingCallStack;
+            this.enclosingCallStackDepth = enclosingCallStackDepth;
+            this.variables = variables;
+        }
+    }
+
+    /*package*/ TraversalState saveTraversalState() {
+        int n = shared.nodeStack.size();
+        return new TraversalState(new ArrayList<>(shared.nodeStack.subList(Math.max(0, n - 2), n)), new ArrayList<>(shared.enclosingCallStack), enclosingCallStackDepth, saveVariables());
+    }
+
+    /**
+     * Reinstates traversal state captured by {@link #saveTraversalState()}.
+     *
+     * @return the state that was replaced
+     */
+    /*package*/ TraversalState restoreTraversalState(TraversalState state) {
+        TraversalState replaced = new TraversalState(new ArrayList<>(shared.nodeStack), new ArrayList<>(shared.enclosingCallStack), enclosingCallStackDepth, saveVariables());
+        shared.nodeStack.clear();
+        shared.nodeStack.addAll(state.nodeStack);
+        shared.enclosingCallStack.clear();
+        shared.enclosingCallStack.addAll(state.enclosingCallStack);
+        enclosingCallStackDepth = state.enclosingCallStackDepth;
+        restoreVariables(state.variables);
+        return replaced;
+    }
+
+    /**
+     * Copies the variables of this and the enclosing scopes.  A scope's copy is
+     * shared by all saved states until one of its variables is added or updated.
+     */
+    private List<Map<String, VariableInfo>> saveVariables() {
+        List<Map<String, VariableInfo>> variables = new ArrayList<>();
+        for (VariableScope scope = this; scope != null; scope = scope.parent) {
+            if (scope.variablesSnapshot == null) {
+                scope.variablesSnapshot = Collections.unmodifiableMap(new HashMap<>(scope.nameVariableMap));
+            }
+            variables.add(scope.variablesSnapshot);
+        }
+        return variables;
+    }
+
+    private void restoreVariables(List<Map<String, VariableInfo>> variables) {
+        VariableScope scope = this;
+        for (Map<String, VariableInfo> snapshot : variables) {
+            if (scope.variablesSnapshot != snapshot) {
+                scope.nameVariableMap.clear();
+                scope.nameVariableMap.putAll(snapshot);
+                scope.variablesSnapshot = snapshot;
+            }
+            scope = scope.parent;
+        }
+    }
+
     /**
      * Does the following name exist in this scope (does not recur up to parent scopes).
      *
@@ -0,0 +1,4 @@
+@Singleton
+class Wibble {
+    String field = 'abcd'
+}
@@ -0,0 +1,9 @@
+class A {
+    def foo() {
+        2
+    }
+
+    def bar() {
+        3
+    }
+}
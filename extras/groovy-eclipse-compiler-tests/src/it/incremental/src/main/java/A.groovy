@@ -0,0 +1,5 @@
+class A {
+    def foo() {
+        1
+    }
+}
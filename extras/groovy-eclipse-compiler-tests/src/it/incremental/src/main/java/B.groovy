@@ -0,0 +1,5 @@
+class B {
+    def b() {
+        new A().foo()
+    }
+}
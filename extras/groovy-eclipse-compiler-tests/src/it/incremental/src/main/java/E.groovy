@@ -0,0 +1,4 @@
+class E {
+    // a class expression while D exists, a dynamic property once it is gone
+    def d = D
+}
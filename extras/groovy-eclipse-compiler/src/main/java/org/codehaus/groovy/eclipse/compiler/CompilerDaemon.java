@@ -0,0 +1,320 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.jdt.internal.compiler.batch.FileSystem;
+import org.eclipse.jdt.internal.compiler.batch.Main;
+
+/**
+ * Long-lived batch compiler process used by {@link GroovyEclipseCompiler} when
+ * the <code>daemon</code> compiler argument is set.  The process keeps the JIT
+ * warm, keeps the classpath archives of the compiler open along with their
+ * package indexes (see {@link SharedArchives}) and shares Groovy transform
+ * loaders among compiles with the same classpath archives; see the
+ * <code>greclipse.shareBatchLoaders</code> property.
+ * <p>
+ * The daemon listens on a loopback port, which it writes along with a random
+ * token to its state file.  Requests are served one at a time and the process
+ * exits once no request has arrived for the idle timeout.  Only requests that
+ * start with the token are served, and the state file is readable by its owner
+ * only (see {@link CompilerDaemonClient}), so other users of the machine cannot
+ * use the daemon.  Problems serving requests go to the log file next to the
+ * state file.
+ * <p>
+ * Usage: <code>CompilerDaemon &lt;state file&gt; &lt;idle timeout millis&gt;</code>
+ */
+public class CompilerDaemon {
+
+    // protocol: request := token, cwd, argc, argv*, graph file -- response := success, errors, warnings, output
+    // token is TOKEN_LENGTH ASCII bytes; argc < 0 requests shutdown; strings are length-prefixed UTF-8 since arguments may exceed 64K
+
+    static final int SHUTDOWN = -1;
+
+    static final int TOKEN_LENGTH = 32;
+
+    /** Limits what a request may make the daemon allocate. */
+    static final int MAX_ARGUMENTS = 1 << 20, MAX_STRING_LENGTH = 1 << 24;
+
+    /** Milliseconds to wait for a client to send its request. */
+    private static final int REQUEST_TIMEOUT = 30000;
+
+    /** Compiler options whose value is a file or a path list. */
+    private static final Set<String> PATH_OPTIONS = new HashSet<>(Arrays.asList(
+        "-bootclasspath", "-classpath", "-cp", "-d", "-endorseddirs", "-extdirs", "-log", "-processorpath", "-s", "-sourcepath",
+        "--module-path", "-p", "--module-source-path", "--processor-module-path", "--system", "--upgrade-module-path"));
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompilerDaemon <state file> <idle timeout millis>");
+            System.exit(2);
+        }
+        File stateFile = new File(args[0]);
+        File logFile = getLogFile(stateFile);
+        int idleTimeout = Integer.parseInt(args[1]);
+
+        System.setProperty("greclipse.shareBatchLoaders", "true");
+
+        byte[] bytes = new byte[TOKEN_LENGTH / 2];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder token = new StringBuilder();
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b & 0xFF));
+        }
+
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(idleTimeout);
+            String state = server.getLocalPort() + " " + token;
+            writeState(stateFile, state);
+            log(logFile, "Listening on port " + server.getLocalPort(), null);
+
+            while (true) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    break;
+                }
+                try (Socket s = socket) {
+                    s.setSoTimeout(REQUEST_TIMEOUT);
+                    if (!serve(s, token.toString(), logFile)) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    // client went away or sent a bad request; keep serving others
+                    log(logFile, "Unable to serve request", e);
+                }
+            }
+
+            // a newer daemon may have replaced the state file
+            if (state.equals(readState(stateFile))) {
+                stateFile.delete();
+            }
+            log(logFile, "Exiting", null);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * @return {@code false} if the daemon should shut down
+     */
+    private static boolean serve(Socket socket, String token, File logFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        // check the token before reading anything of variable size
+        byte[] bytes = new byte[TOKEN_LENGTH];
+        in.readFully(bytes);
+        if (!MessageDigest.isEqual(bytes, token.getBytes(StandardCharsets.US_ASCII))) {
+            log(logFile, "Rejected request without valid token", null);
+            return true;
+        }
+        File cwd = new File(readString(in, MAX_STRING_LENGTH));
+        int argc = in.readInt();
+        if (argc == SHUTDOWN) {
+            return false;
+        }
+        if (argc < 0 || argc > MAX_ARGUMENTS) {
+            throw new IOException("Invalid argument count: " + argc);
+        }
+        String[] argv = new String[argc];
+        for (int i = 0; i < argc; i += 1) {
+            argv[i] = readString(in, MAX_STRING_LENGTH);
+        }
+        String graphFile = readString(in, MAX_STRING_LENGTH);
+        // the daemon has its own working directory
+        argv = resolvePaths(argv, cwd);
+        if (!graphFile.isEmpty() && !new File(graphFile).isAbsolute()) {
+            graphFile = new File(cwd, graphFile).getPath();
+        }
+        socket.setSoTimeout(0);
+
+        StringWriter output = new StringWriter();
+        boolean success = false;
+        int errors = 0, warnings = 0;
+        try {
+            Main main;
+            if (graphFile.isEmpty()) {
+                main = new Main(new PrintWriter(output), new PrintWriter(output), /*systemExit:*/ false, /*options:*/ null, /*progress:*/ null) {
+                    @Override
+                    public FileSystem getLibraryAccess() {
+                        checkedClasspaths = SharedArchives.share(checkedClasspaths);
+                        return super.getLibraryAccess();
+                    }
+                };
+            } else {
+                main = new RecordingMain(new PrintWriter(output), new PrintWriter(output), /*progress:*/ null, new File(graphFile)) {
+                    @Override
+                    public FileSystem getLibraryAccess() {
+                        checkedClasspaths = SharedArchives.share(checkedClasspaths);
+                        return super.getLibraryAccess();
+                    }
+                };
+            }
+            success = main.compile(argv);
+            errors = main.globalErrorsCount;
+            warnings = main.globalWarningsCount;
+        } catch (RuntimeException | LinkageError e) {
+            PrintWriter writer = new PrintWriter(output);
+            writer.println("Internal error in compiler daemon:");
+            e.printStackTrace(writer);
+            writer.flush();
+            errors = 1;
+            log(logFile, "Internal error in compiler", e);
+        }
+
+        out.writeBoolean(success);
+        out.writeInt(errors);
+        out.writeInt(warnings);
+        writeString(out, output.toString());
+        out.flush();
+        return true;
+    }
+
+    /**
+     * Makes the paths in the compiler arguments absolute: option values that
+     * are files or path lists, argument files and source files.  Class path
+     * entries with access rules are left alone.
+     */
+    static String[] resolvePaths(String[] args, File cwd) {
+        String[] resolved = args.clone();
+        for (int i = 0; i < resolved.length; i += 1) {
+            String arg = resolved[i];
+            if (PATH_OPTIONS.contains(arg) && i + 1 < resolved.length) {
+                i += 1;
+                if (!("-d".equals(arg) && "none".equals(resolved[i]))) {
+                    StringBuilder sb = new StringBuilder();
+                    for (String entry : resolved[i].split(File.pathSeparator, -1)) {
+                        if (sb.length() > 0) sb.append(File.pathSeparatorChar);
+                        sb.append(resolvePath(entry, cwd));
+                    }
+                    resolved[i] = sb.toString();
+                }
+            } else if (arg.startsWith("@")) {
+                resolved[i] = "@" + resolvePath(arg.substring(1), cwd);
+            } else if (!arg.startsWith("-") && (arg.endsWith(".groovy") || arg.endsWith(".java"))) {
+                resolved[i] = resolvePath(arg, cwd);
+            }
+        }
+        return resolved;
+    }
+
+    private static String resolvePath(String path, File cwd) {
+        if (path.isEmpty() || path.indexOf('[') >= 0 || new File(path).isAbsolute()) {
+            return path;
+        }
+        return new File(cwd, path).getPath();
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * @param maxLength largest number of bytes the string may take
+     */
+    static String readString(DataInputStream in, int maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > maxLength) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @return contents of the state file or {@code null} if it cannot be read
+     */
+    static String readState(File stateFile) {
+        try {
+            return new String(Files.readAllBytes(stateFile.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeState(File stateFile, String state) throws IOException {
+        Path temp = new File(stateFile.getPath() + ".tmp").toPath();
+        Files.deleteIfExists(temp);
+        createPrivateFile(temp);
+        Files.write(temp, state.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static File getLogFile(File stateFile) {
+        return new File(stateFile.getPath().replaceFirst("\\.state$", ".log"));
+    }
+
+    /**
+     * Creates the file, if it does not exist, so that only its owner can read
+     * and write it (where the file system supports POSIX permissions).
+     */
+    static void createPrivateFile(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            try {
+                if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                    Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+                } else {
+                    Files.createFile(file);
+                }
+            } catch (FileAlreadyExistsException ignore) {
+            }
+        }
+    }
+
+    private static void log(File logFile, String message, Throwable t) {
+        try {
+            createPrivateFile(logFile.toPath());
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(logFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.APPEND))) {
+                writer.println(new Date() + " " + message);
+                if (t != null) {
+                    t.printStackTrace(writer);
+                }
+            }
+        } catch (IOException ignore) {
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Sends compile requests to a {@link CompilerDaemon}, starting one if there
+ * is none for the same Java executable, VM arguments and compiler archives.
+ * A daemon is identified by the fingerprint (location, size and time stamp) of
+ * the archives it runs from, so a new version of groovy-eclipse-batch gets a
+ * new daemon and the old one exits once idle.
+ * <p>
+ * The state files that tell the port and token of a daemon are kept in a
+ * folder of the user's home that only the user may access; the client checks
+ * the folder before it trusts (or creates) any daemon.
+ */
+final class CompilerDaemonClient {
+
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    private static final int STARTUP_TIMEOUT = 30000;
+
+    /** Milliseconds to wait for the daemon to answer; a compile that takes longer is assumed to hang. */
+    private static final int RESPONSE_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(30);
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private final Logger logger;
+    private final File stateFile;
+    private final List<String> command;
+
+    /**
+     * @param executable java executable used to start the daemon
+     * @param vmArgs arguments of the daemon VM, like memory settings
+     * @param classpath archives of the daemon: this plug-in and groovy-eclipse-batch
+     * @param idleTimeout milliseconds the daemon waits for a request before it exits
+     */
+    CompilerDaemonClient(Logger logger, String executable, List<String> vmArgs, List<String> classpath, long idleTimeout) throws IOException {
+        this.logger = logger;
+
+        StringBuilder fingerprint = new StringBuilder(executable);
+        for (String vmArg : vmArgs) {
+            fingerprint.append(' ').append(vmArg);
+        }
+        StringBuilder path = new StringBuilder();
+        for (String entry : classpath) {
+            File file = new File(entry);
+            fingerprint.append(File.pathSeparatorChar).append(entry).append(':').append(file.length()).append(':').append(file.lastModified());
+            if (path.length() > 0) path.append(File.pathSeparatorChar);
+            path.append(entry);
+        }
+
+        File folder = getStateFolder();
+        this.stateFile = new File(folder, DependencyGraph.digest(fingerprint.toString()) + ".state");
+
+        command = new ArrayList<>();
+        command.add(executable);
+        command.addAll(vmArgs);
+        command.add("-cp");
+        command.add(path.toString());
+        command.add(CompilerDaemon.class.getName());
+        command.add(stateFile.getAbsolutePath());
+        command.add(String.valueOf(idleTimeout));
+    }
+
+    /**
+     * Compiles using a running daemon or one started for this request.
+     *
+     * @param graphFile dependency graph to update or {@code null} if compilation is not incremental
+     * @param out receives the compiler output
+     */
+    InternalCompiler.Result compile(String[] args, File graphFile, StringBuilder out) throws IOException {
+        Socket socket = connect();
+        if (socket == null) {
+            socket = start();
+        }
+        try (Socket s = socket) {
+            File cwd = new File("").getAbsoluteFile();
+            String[] paths = CompilerDaemon.resolvePaths(args, cwd);
+
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            request.write(token(CompilerDaemon.readState(stateFile)).getBytes(StandardCharsets.US_ASCII));
+            CompilerDaemon.writeString(request, cwd.getPath());
+            request.writeInt(paths.length);
+            for (String arg : paths) {
+                CompilerDaemon.writeString(request, arg);
+            }
+            CompilerDaemon.writeString(request, graphFile != null ? graphFile.getAbsolutePath() : "");
+            request.flush();
+
+            DataInputStream response = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            boolean success = response.readBoolean();
+            int errors = response.readInt();
+            int warnings = response.readInt();
+            out.append(CompilerDaemon.readString(response, Integer.MAX_VALUE));
+
+            return new InternalCompiler.Result(success, errors, warnings);
+        }
+    }
+
+    /**
+     * @return connection to the running daemon or {@code null} if there is none
+     */
+    private Socket connect() {
+        String state = CompilerDaemon.readState(stateFile);
+        if (state == null || state.indexOf(' ') < 0) {
+            return null;
+        }
+        Socket socket = new Socket();
+        try {
+            int port = Integer.parseInt(state.substring(0, state.indexOf(' ')));
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT);
+            socket.setSoTimeout(RESPONSE_TIMEOUT);
+            return socket;
+        } catch (IOException | RuntimeException e) {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+            return null;
+        }
+    }
+
+    private Socket start() throws IOException {
+        // builds running in parallel must not start more than one daemon
+        File lockFile = new File(stateFile.getPath() + ".lock");
+        CompilerDaemon.createPrivateFile(lockFile.toPath());
+        try (RandomAccessFile file = new RandomAccessFile(lockFile, "rw"); FileLock lock = file.getChannel().lock()) {
+            Socket socket = connect();
+            if (socket != null) {
+                return socket;
+            }
+            stateFile.delete();
+
+            logger.info("Starting Groovy-Eclipse compiler daemon");
+            if (logger.isDebugEnabled()) {
+                logger.debug("Daemon command: " + command);
+            }
+            File logFile = CompilerDaemon.getLogFile(stateFile);
+            CompilerDaemon.createPrivateFile(logFile.toPath());
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.appendTo(logFile)).start();
+
+            long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+            while (System.currentTimeMillis() < deadline) {
+                socket = connect();
+                if (socket != null) {
+                    return socket;
+                }
+                try {
+                    int exitValue = process.exitValue();
+                    throw new IOException("Compiler daemon exited with " + exitValue + "; see " + logFile);
+                } catch (IllegalThreadStateException running) {
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            throw new IOException("Compiler daemon did not start; see " + logFile);
+        }
+    }
+
+    /**
+     * Returns the folder of the daemon state files, creating it if need be.
+     * Anyone who can read a state file can send requests to the daemon, and
+     * anyone who can write one can direct requests to another process, so the
+     * folder must belong to the current user and be closed to everyone else.
+     */
+    static File getStateFolder() throws IOException {
+        Path folder = Paths.get(System.getProperty("user.home"), ".groovy-eclipse-compiler", "daemon");
+        boolean posix = folder.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (!Files.isDirectory(folder, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(folder.getParent());
+            try {
+                if (posix) {
+                    Files.createDirectory(folder, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+                } else {
+                    Files.createDirectory(folder);
+                }
+            } catch (FileAlreadyExistsException e) {
+                if (!Files.isDirectory(folder, LinkOption.NOFOLLOW_LINKS)) {
+                    throw new IOException("Daemon folder " + folder + " is not a directory");
+                }
+            }
+        }
+        if (posix) {
+            // other file systems (Windows) protect the user's home by default
+            UserPrincipal user = folder.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+            UserPrincipal owner = Files.getOwner(folder, LinkOption.NOFOLLOW_LINKS);
+            if (!owner.equals(user)) {
+                throw new IOException("Daemon folder " + folder + " is owned by " + owner.getName() + " instead of " + user.getName());
+            }
+            if (!Files.getPosixFilePermissions(folder, LinkOption.NOFOLLOW_LINKS).equals(OWNER_ONLY)) {
+                Files.setPosixFilePermissions(folder, OWNER_ONLY);
+            }
+        }
+        return folder.toFile();
+    }
+
+    private static String token(String state) throws IOException {
+        if (state == null || state.indexOf(' ') < 0) {
+            throw new IOException("Compiler daemon stopped");
+        }
+        String token = state.substring(state.indexOf(' ') + 1);
+        if (token.length() != CompilerDaemon.TOKEN_LENGTH) {
+            throw new IOException("Invalid compiler daemon state");
+        }
+        return token;
+    }
+}
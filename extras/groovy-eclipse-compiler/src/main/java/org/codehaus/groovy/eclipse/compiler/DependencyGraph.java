@@ -0,0 +1,208 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Dependency information of a module's sources, kept between builds for
+ * incremental compilation.  For each source it records the time stamp it was
+ * compiled at, the types it produced (by class file name, like "p/A$B") with a
+ * hash of their API, and the qualified and simple names it referenced, as
+ * reported by the batch compiler.
+ * <p>
+ * A source with a time stamp of {@link #STALE} must be compiled by the next
+ * build, for example because the API of a type it references has changed.
+ */
+final class DependencyGraph {
+
+    static final long STALE = -1;
+
+    private static final int VERSION = 1;
+
+    static final class Source {
+        long lastModified = STALE;
+        /** class file name to API hash */
+        final Map<String, String> types = new TreeMap<>();
+        final Set<String> qualifiedReferences = new LinkedHashSet<>();
+        final Set<String> simpleReferences = new LinkedHashSet<>();
+
+        /**
+         * Tells if this source references the type, using the same rule as the
+         * Eclipse builder: the simple name and the package must be referenced.
+         */
+        boolean references(String typeName) {
+            int slash = typeName.lastIndexOf('/');
+            String simpleName = typeName.substring(Math.max(slash + 1, typeName.lastIndexOf('$') + 1));
+            String packageName = (slash < 0 ? "" : typeName.substring(0, slash).replace('/', '.'));
+            return simpleReferences.contains(simpleName) && (packageName.isEmpty() || qualifiedReferences.contains(packageName));
+        }
+    }
+
+    /** digest of the compiler options and classpath the sources were compiled with */
+    String options;
+
+    /** absolute source path to source info */
+    final Map<String, Source> sources = new LinkedHashMap<>();
+
+    DependencyGraph(String options) {
+        this.options = options;
+    }
+
+    /**
+     * Marks the sources that reference any of the types stale.
+     *
+     * @param except sources that are already being compiled
+     * @return sources that were marked
+     */
+    Set<String> invalidateDependents(Collection<String> typeNames, Collection<String> except) {
+        Set<String> dependents = new LinkedHashSet<>();
+        if (!typeNames.isEmpty()) {
+            for (Map.Entry<String, Source> entry : sources.entrySet()) {
+                if (!except.contains(entry.getKey())) {
+                    for (String typeName : typeNames) {
+                        if (entry.getValue().references(typeName)) {
+                            entry.getValue().lastModified = STALE;
+                            dependents.add(entry.getKey());
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * @return digest of the API hashes of all types, which changes only when
+     *     the API of the module changes
+     */
+    String getApiFingerprint() {
+        Map<String, String> types = new TreeMap<>();
+        for (Source source : sources.values()) {
+            types.putAll(source.types);
+        }
+        return digest(types.toString());
+    }
+
+    /**
+     * @return SHA-1 digest of the text as hex string
+     */
+    static String digest(String text) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8))) {
+                sb.append(String.format("%02x", b & 0xFF));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(text.hashCode());
+        }
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Location of the graph for an output folder: <code>target/classes</code>
+     * is tracked by <code>target/groovy-eclipse-compiler/classes.dependencies</code>.
+     */
+    static File getFile(File outputDirectory) {
+        return new File(outputDirectory.getAbsoluteFile().getParentFile(), "groovy-eclipse-compiler/" + outputDirectory.getName() + ".dependencies");
+    }
+
+    /**
+     * @return graph stored in the file or {@code null} if there is none or it cannot be read
+     */
+    static DependencyGraph load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+            DependencyGraph graph = new DependencyGraph(in.readUTF());
+            for (int i = 0, n = in.readInt(); i < n; i += 1) {
+                String path = in.readUTF();
+                Source source = new Source();
+                source.lastModified = in.readLong();
+                for (int j = 0, m = in.readInt(); j < m; j += 1) {
+                    source.types.put(in.readUTF(), in.readUTF());
+                }
+                for (int j = 0, m = in.readInt(); j < m; j += 1) {
+                    source.qualifiedReferences.add(in.readUTF());
+                }
+                for (int j = 0, m = in.readInt(); j < m; j += 1) {
+                    source.simpleReferences.add(in.readUTF());
+                }
+                graph.sources.put(path, source);
+            }
+            return graph;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    void save(File file) throws IOException {
+        File folder = file.getParentFile();
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Unable to create folder " + folder);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(VERSION);
+            out.writeUTF(options);
+            out.writeInt(sources.size());
+            for (Map.Entry<String, Source> entry : sources.entrySet()) {
+                Source source = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(source.lastModified);
+                out.writeInt(source.types.size());
+                for (Map.Entry<String, String> type : source.types.entrySet()) {
+                    out.writeUTF(type.getKey());
+                    out.writeUTF(type.getValue());
+                }
+                out.writeInt(source.qualifiedReferences.size());
+                for (String name : source.qualifiedReferences) {
+                    out.writeUTF(name);
+                }
+                out.writeInt(source.simpleReferences.size());
+                for (String name : source.simpleReferences) {
+                    out.writeUTF(name);
+                }
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -28,12 +28,17 @@ import java.security.ProtectionDomain;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,6 +51,7 @@ import org.codehaus.plexus.compiler.CompilerMessage.Kind;
 import org.codehaus.plexus.compiler.CompilerOutputStyle;
 import org.codehaus.plexus.compiler.CompilerResult;
 import org.codehaus.plexus.compiler.util.scan.InclusionScanException;
+import org.codehaus.plexus.compiler.util.scan.SimpleSourceInclusionScanner;
 import org.codehaus.plexus.compiler.util.scan.SourceInclusionScanner;
 import org.codehaus.plexus.compiler.util.scan.StaleSourceScanner;
 import org.codehaus.plexus.compiler.util.scan.mapping.SuffixMapping;
@@ -68,6 +74,13 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
 
     private static final String PROBLEM_SEPARATOR = "----------\r?\n";
 
+    private static final long DEFAULT_DAEMON_IDLE_TIMEOUT = TimeUnit.HOURS.toMillis(3);
+
+    private static final Set<String> ADAPTER_OPTIONS = new HashSet<>(Arrays.asList("-daemon", "-daemonIdleMinutes", "-incremental"));
+
+    /** Limit on recompiling dependents within one build; any left over are compiled by the next build. */
+    private static final int MAX_INCREMENTAL_ROUNDS = 10;
+
     public GroovyEclipseCompiler() {
         // Here is a bit of a hack. Maven only wants a single file extension
         // for sources, so we pass it "". Later, we must recalculate for real.
@@ -80,6 +93,15 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
 
     private String javaAgentClass = "";
 
+    private boolean useDaemon = false;
+
+    private boolean incremental = false;
+
+    private long daemonIdleTimeout = DEFAULT_DAEMON_IDLE_TIMEOUT;
+
+    /** Options fingerprint of the build in progress; the rounds of a build share it. */
+    private String optionsFingerprint;
+
     public String getJavaAgentClass() {
         return javaAgentClass;
     }
@@ -97,38 +119,81 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
             throw new CompilerException("Could not find groovy-eclipse-batch artifact. Must add this artifact as an explicit dependency in the pom.");
         }
 
-        String[] args = createCommandLine(config);
-        if (args.length == 0) {
-            getLogger().info("Nothing to compile - all classes are up to date");
+        optionsFingerprint = null;
+        try {
+            String[] args = createCommandLine(config);
+            if (args.length == 0) {
+                getLogger().info("Nothing to compile - all classes are up to date");
 
-            return new CompilerResult(true, Collections.EMPTY_LIST);
-        }
-        if (config.isFork()) {
-            String executable = config.getExecutable();
-            if (isBlank(executable)) {
-                try {
-                    executable = getJavaExecutable();
-                } catch (IOException e) {
-                    getLogger().warn("Unable to autodetect 'java' path, using 'java' from the environment.");
-                    executable = "java";
+                return new CompilerResult(true, Collections.EMPTY_LIST);
+            }
+            CompilerResult result = compile(config, args);
+
+            // sources that depend on a changed API were marked stale by the compile
+            for (int round = 1; incremental && result.isSuccess() && round < MAX_INCREMENTAL_ROUNDS; round += 1) {
+                args = createCommandLine(config);
+                if (args.length == 0) {
+                    break;
                 }
+                CompilerResult next = compile(config, args);
+
+                List<CompilerMessage> messages = new ArrayList<>(result.getCompilerMessages());
+                messages.addAll(next.getCompilerMessages());
+                result = new CompilerResult(next.isSuccess(), messages);
             }
 
+            return result;
+        } finally {
+            optionsFingerprint = null;
+        }
+    }
+
+    private CompilerResult compile(CompilerConfiguration config, String[] args) throws CompilerException {
+        File graphFile = (incremental ? DependencyGraph.getFile(new File(config.getOutputLocation())) : null);
+        if (useDaemon) {
+            try {
+                return compileInDaemon(config, getExecutable(config), args, graphFile);
+            } catch (IOException e) {
+                getLogger().warn("Unable to use the compiler daemon; compiling without it", e);
+            }
+        }
+        if (config.isFork()) {
+            if (graphFile != null) {
+                // dependency information cannot be recorded; start over next time
+                graphFile.delete();
+            }
             String groovyEclipseLocation = getGroovyEclipseBatchLocation();
-            return compileOutOfProcess(config, executable, groovyEclipseLocation, args);
+            return compileOutOfProcess(config, getExecutable(config), groovyEclipseLocation, args);
 
         } else {
             StringWriter out = new StringWriter();
             if (verbose) getLogger().info("Compiler arguments: " + Arrays.toString(args));
-            InternalCompiler.Result result = InternalCompiler.doCompile(args, out, getLogger(), verbose);
+            InternalCompiler.Result result = InternalCompiler.doCompile(args, out, getLogger(), verbose, graphFile);
 
-            List<CompilerMessage> messages = parseMessages(result.success ? 0 : 1, out.getBuffer().toString(), config.isShowWarnings() || config.isVerbose());
-            if (!result.success) {
-                messages.add(formatResult(result.success, result.globalErrorsCount, result.globalWarningsCount));
-            }
+            return createCompilerResult(config, result, out.getBuffer().toString());
+        }
+    }
+
+    private CompilerResult createCompilerResult(CompilerConfiguration config, InternalCompiler.Result result, String output) {
+        List<CompilerMessage> messages = parseMessages(result.success ? 0 : 1, output, config.isShowWarnings() || config.isVerbose());
+        if (!result.success) {
+            messages.add(formatResult(result.success, result.globalErrorsCount, result.globalWarningsCount));
+        }
 
-            return new CompilerResult(result.success, messages);
+        return new CompilerResult(result.success, messages);
+    }
+
+    private String getExecutable(CompilerConfiguration config) {
+        String executable = config.getExecutable();
+        if (isBlank(executable)) {
+            try {
+                executable = getJavaExecutable();
+            } catch (IOException e) {
+                getLogger().warn("Unable to autodetect 'java' path, using 'java' from the environment.");
+                executable = "java";
+            }
         }
+        return executable;
     }
 
     private File[] recalculateStaleFiles(CompilerConfiguration config) throws CompilerException {
@@ -141,7 +206,12 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
             includes = Collections.singleton("**/*");
         }
 
-        Set<File> staleSources = computeStaleSources(config, new StaleSourceScanner(staleMillis, includes, config.getExcludes()));
+        Set<File> staleSources;
+        if (incremental) {
+            staleSources = computeIncrementalSources(config, computeStaleSources(config, new SimpleSourceInclusionScanner(includes, config.getExcludes())));
+        } else {
+            staleSources = computeStaleSources(config, new StaleSourceScanner(staleMillis, includes, config.getExcludes()));
+        }
 
         config.setSourceFiles(staleSources);
 
@@ -174,6 +244,134 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         return staleSources;
     }
 
+    /**
+     * Determines the sources to compile using the dependency graph of the
+     * previous build: sources that changed, were marked stale or whose class
+     * files are missing, and dependents of the types of deleted sources.  Any
+     * change to the compiler options or the classpath means a full compile.
+     *
+     * @param sources all sources of the module
+     */
+    private Set<File> computeIncrementalSources(CompilerConfiguration config, Set<File> sources) throws CompilerException {
+        File outputDirectory = new File(config.getOutputLocation());
+        File graphFile = DependencyGraph.getFile(outputDirectory);
+        if (optionsFingerprint == null) {
+            optionsFingerprint = fingerprintOptions(config);
+        }
+        String options = optionsFingerprint;
+
+        Set<File> staleSources = new TreeSet<>();
+        DependencyGraph graph = DependencyGraph.load(graphFile);
+        if (graph == null || !graph.options.equals(options)) {
+            if (verbose) {
+                getLogger().info("Compiling all sources: " + (graph == null ? "no dependency information" : "compiler options or classpath changed"));
+            }
+            graph = new DependencyGraph(options);
+            for (File source : sources) {
+                if (isSourceFile(source)) {
+                    staleSources.add(source);
+                }
+            }
+        } else {
+            Set<String> paths = new HashSet<>();
+            for (File source : sources) {
+                if (isSourceFile(source)) {
+                    String path = source.getAbsolutePath();
+                    paths.add(path);
+
+                    DependencyGraph.Source info = graph.sources.get(path);
+                    if (info == null || info.lastModified != source.lastModified() || !classFilesExist(outputDirectory, info)) {
+                        staleSources.add(source);
+                    }
+                }
+            }
+
+            Set<String> removedTypes = new LinkedHashSet<>();
+            for (Iterator<Map.Entry<String, DependencyGraph.Source>> it = graph.sources.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<String, DependencyGraph.Source> entry = it.next();
+                if (!paths.contains(entry.getKey())) {
+                    for (String type : entry.getValue().types.keySet()) {
+                        new File(outputDirectory, type + ".class").delete();
+                        removedTypes.add(type);
+                    }
+                    it.remove();
+                }
+            }
+
+            Set<String> stalePaths = new HashSet<>();
+            for (File source : staleSources) {
+                stalePaths.add(source.getAbsolutePath());
+            }
+            for (String path : graph.invalidateDependents(removedTypes, stalePaths)) {
+                staleSources.add(new File(path));
+            }
+        }
+
+        try {
+            graph.save(graphFile);
+        } catch (IOException e) {
+            throw new CompilerException("Error saving dependency information to " + graphFile, e);
+        }
+
+        return staleSources;
+    }
+
+    private static boolean isSourceFile(File file) {
+        String name = file.getName();
+        return (name.endsWith(".groovy") || name.endsWith(".java"));
+    }
+
+    private static boolean classFilesExist(File outputDirectory, DependencyGraph.Source info) {
+        for (String type : info.types.keySet()) {
+            if (!new File(outputDirectory, type + ".class").isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Describes everything besides the sources that affects the compiler output.
+     * Archives are identified by size and time stamp; folders by the API hashes
+     * recorded for them if they are the output of another module compiled by
+     * this adapter, else by the latest time stamp of their class files.
+     */
+    private static String fingerprintOptions(CompilerConfiguration config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(config.getSourceVersion()).append(' ').append(config.getTargetVersion()).append(' ').append(config.getReleaseVersion())
+            .append(' ').append(config.getSourceEncoding()).append(' ').append(config.isDebug()).append(config.getDebugLevel())
+            .append(' ').append(config.isParameters()).append(' ').append(config.getProc()).append(' ').append(config.getAnnotationProcessors() != null ? Arrays.toString(config.getAnnotationProcessors()) : "")
+            .append(' ').append(config.getProcessorPathEntries()).append(' ').append(new TreeMap<>(config.getCustomCompilerArgumentsAsMap()));
+
+        File outputDirectory = new File(config.getOutputLocation()).getAbsoluteFile();
+        List<String> entries = new ArrayList<>(config.getClasspathEntries());
+        if (config.getModulepathEntries() != null) {
+            entries.addAll(config.getModulepathEntries());
+        }
+        for (String entry : entries) {
+            File file = new File(entry);
+            sb.append(File.pathSeparatorChar).append(entry);
+            if (file.isFile()) {
+                sb.append(':').append(file.length()).append(':').append(file.lastModified());
+            } else if (file.isDirectory() && !file.getAbsoluteFile().equals(outputDirectory)) {
+                DependencyGraph graph = DependencyGraph.load(DependencyGraph.getFile(file));
+                sb.append(':').append(graph != null ? graph.getApiFingerprint() : String.valueOf(lastModified(file)));
+            }
+        }
+        return DependencyGraph.digest(sb.toString());
+    }
+
+    private static long lastModified(File folder) {
+        long lastModified = 0;
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                lastModified = Math.max(lastModified, file.isDirectory() ? lastModified(file) : file.lastModified());
+            }
+        }
+        return lastModified;
+    }
+
     private CompilerMessage formatResult(boolean result, int globalErrorsCount, int globalWarningsCount) {
         if (result) {
             return new CompilerMessage("Success!", Kind.NOTE);
@@ -201,8 +399,35 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         return sources;
     }
 
+    /**
+     * Reads the options of this adapter (as opposed to the batch compiler) from
+     * the custom compiler arguments.
+     */
+    private void configureAdapterOptions(CompilerConfiguration config) {
+        useDaemon = false;
+        daemonIdleTimeout = DEFAULT_DAEMON_IDLE_TIMEOUT;
+        incremental = false;
+        for (Map.Entry<String, String> entry : config.getCustomCompilerArgumentsAsMap().entrySet()) {
+            String key = startsWithHyphen(entry.getKey()) ? entry.getKey() : "-" + entry.getKey();
+            String value = entry.getValue();
+            if ("-daemon".equals(key)) {
+                useDaemon = isBlank(value) || Boolean.parseBoolean(value.trim());
+            } else if ("-daemonIdleMinutes".equals(key)) {
+                daemonIdleTimeout = TimeUnit.MINUTES.toMillis(Long.parseLong(value.trim()));
+            } else if ("-incremental".equals(key)) {
+                incremental = isBlank(value) || Boolean.parseBoolean(value.trim());
+            }
+        }
+        if (incremental && config.isFork() && !useDaemon) {
+            getLogger().warn("Incremental compilation is not supported by forked compiles; recompiling changed sources only");
+            incremental = false;
+        }
+    }
+
     @Override
     public String[] createCommandLine(CompilerConfiguration config) throws CompilerException {
+        configureAdapterOptions(config);
+
         File destinationDir = new File(config.getOutputLocation());
         if (!destinationDir.exists()) {
             destinationDir.mkdirs();
@@ -343,8 +568,17 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
             }
         }
 
+        vmArgs.clear();
         for (Map.Entry<String, String> entry : config.getCustomCompilerArgumentsAsMap().entrySet()) {
             String key = entry.getKey();
+            if (ADAPTER_OPTIONS.contains(startsWithHyphen(key) ? key : "-" + key)) {
+                continue; // see configureAdapterOptions
+            }
+            if ("-compileMetrics".equals(startsWithHyphen(key) ? key : "-" + key)) {
+                // the compiler may run in a daemon with another working directory
+                args.put("-compileMetrics", resolveAgainst(config.getWorkingDirectory(), entry.getValue()));
+                continue;
+            }
             if (startsWithHyphen(key)) {
                 if ("-javaAgentClass".equals(key)) {
                     setJavaAgentClass(entry.getValue());
@@ -363,6 +597,35 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         return flattenArgumentsMap(args);
     }
 
+    /**
+     * Compiles in a long-lived compiler process that is shared by the modules
+     * of a build and by subsequent builds; it exits once it has been idle for
+     * <code>daemonIdleMinutes</code> (3 hours by default).
+     */
+    private CompilerResult compileInDaemon(CompilerConfiguration config, String executable, String[] args, File graphFile) throws CompilerException, IOException {
+        List<String> daemonVmArgs = new ArrayList<>();
+        if (isNotBlank(javaAgentClass)) {
+            daemonVmArgs.add("-javaagent:" + getAdditionnalJavaAgentLocation());
+        }
+        if (isNotBlank(config.getMeminitial())) {
+            daemonVmArgs.add("-Xms" + config.getMeminitial());
+        }
+        if (isNotBlank(config.getMaxmem())) {
+            daemonVmArgs.add("-Xmx" + config.getMaxmem());
+        }
+        daemonVmArgs.addAll(vmArgs);
+
+        List<String> classpath = Arrays.asList(getClassLocation(GroovyEclipseCompiler.class.getName()), getGroovyEclipseBatchLocation());
+
+        if (verbose) getLogger().info("Compiler arguments: " + Arrays.toString(args));
+        getLogger().info("Compiling in the compiler daemon using " + classpath.get(1));
+
+        StringBuilder out = new StringBuilder();
+        InternalCompiler.Result result = new CompilerDaemonClient(getLogger(), executable, daemonVmArgs, classpath, daemonIdleTimeout).compile(args, graphFile, out);
+
+        return createCompilerResult(config, result, out.toString());
+    }
+
     private CompilerResult compileOutOfProcess(CompilerConfiguration config, String executable, String groovyEclipseLocation, String[] args) throws CompilerException {
         Commandline cli = new Commandline();
         cli.setWorkingDirectory(config.getWorkingDirectory().getAbsolutePath());
@@ -658,6 +921,13 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         return (key instanceof CharSequence && ((CharSequence) key).charAt(0) == '-');
     }
 
+    private static String resolveAgainst(File baseDir, String path) {
+        if (isBlank(path) || baseDir == null || new File(path).isAbsolute()) {
+            return path;
+        }
+        return new File(baseDir, path).getAbsolutePath();
+    }
+
     /**
      * Linked Hash Map implementation that logs replaced entries.
      */
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
  */
 package org.codehaus.groovy.eclipse.compiler;
 
+import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 
@@ -79,8 +80,16 @@ class InternalCompiler extends CompilationProgress {
         }
     }
 
-    static Result doCompile(String[] args, StringWriter out, Logger logger, boolean verbose) {
-        Main main = new Main(new PrintWriter(out), new PrintWriter(out), /*systemExit:*/ false, /*options:*/ null, new InternalCompiler(logger, verbose));
+    /**
+     * @param graphFile dependency graph to update or {@code null} if compilation is not incremental
+     */
+    static Result doCompile(String[] args, StringWriter out, Logger logger, boolean verbose, File graphFile) {
+        Main main;
+        if (graphFile == null) {
+            main = new Main(new PrintWriter(out), new PrintWriter(out), /*systemExit:*/ false, /*options:*/ null, new InternalCompiler(logger, verbose));
+        } else {
+            main = new RecordingMain(new PrintWriter(out), new PrintWriter(out), new InternalCompiler(logger, verbose), graphFile);
+        }
         return new Result(main.compile(args), main.globalErrorsCount, main.globalWarningsCount);
     }
 }
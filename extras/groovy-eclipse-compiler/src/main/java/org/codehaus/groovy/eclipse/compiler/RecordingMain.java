@@ -0,0 +1,287 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.compiler.CompilationProgress;
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.batch.Main;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
+import org.eclipse.jdt.internal.compiler.env.IBinaryAnnotation;
+import org.eclipse.jdt.internal.compiler.env.IBinaryElementValuePair;
+import org.eclipse.jdt.internal.compiler.env.IBinaryField;
+import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
+import org.eclipse.jdt.internal.compiler.env.IBinaryNestedType;
+
+/**
+ * Batch compiler that records the reference info and API hashes of the units
+ * it compiles into the module's {@link DependencyGraph}.  Sources that depend
+ * on a type whose API changed (or that was removed) are marked stale in the
+ * graph, so that the next round of compilation picks them up.
+ */
+class RecordingMain extends Main {
+
+    private final File graphFile;
+
+    private final PrintWriter errorWriter;
+
+    private final Map<String, DependencyGraph.Source> compiled = new HashMap<>();
+
+    RecordingMain(PrintWriter out, PrintWriter err, CompilationProgress progress, File graphFile) {
+        super(out, err, /*systemExit:*/ false, /*options:*/ null, progress);
+        this.graphFile = graphFile;
+        this.errorWriter = err;
+    }
+
+    @Override
+    public boolean compile(String[] argv) {
+        String[] args = Arrays.copyOf(argv, argv.length + 1);
+        args[argv.length] = "-referenceInfo";
+        boolean success = super.compile(args);
+        if (filenames != null) {
+            try {
+                updateGraph();
+            } catch (IOException e) {
+                // next build will start over
+                graphFile.delete();
+                errorWriter.println("Unable to save dependency information to " + graphFile + ": " + e);
+            }
+        }
+        return success;
+    }
+
+    @Override
+    public void outputClassFiles(CompilationResult unitResult) {
+        // class files are returned to the pool once written, so hash them first
+        if (unitResult != null && !(unitResult.hasErrors() && !proceedOnError)) {
+            DependencyGraph.Source source = new DependencyGraph.Source();
+            // a unit with errors must be compiled again, even if it does not change
+            source.lastModified = (unitResult.hasErrors() ? DependencyGraph.STALE : new File(new String(unitResult.getFileName())).lastModified());
+            for (ClassFile classFile : unitResult.getClassFiles()) {
+                source.types.put(new String(classFile.fileName()), hashAPI(classFile));
+            }
+            if (unitResult.qualifiedReferences != null) {
+                for (char[][] name : unitResult.qualifiedReferences) {
+                    source.qualifiedReferences.add(join(name));
+                }
+            }
+            if (unitResult.simpleNameReferences != null) {
+                for (char[] name : unitResult.simpleNameReferences) {
+                    source.simpleReferences.add(new String(name));
+                }
+            }
+            compiled.put(new File(new String(unitResult.getFileName())).getAbsolutePath(), source);
+        }
+
+        super.outputClassFiles(unitResult);
+    }
+
+    private void updateGraph() throws IOException {
+        DependencyGraph graph = DependencyGraph.load(graphFile);
+        if (graph == null) {
+            throw new IOException("dependency information is missing");
+        }
+
+        Set<String> sources = new LinkedHashSet<>();
+        Set<String> changedTypes = new LinkedHashSet<>();
+        for (String filename : filenames) {
+            String path = new File(filename).getAbsolutePath();
+            sources.add(path);
+
+            DependencyGraph.Source before = graph.sources.get(path);
+            DependencyGraph.Source after = compiled.get(path);
+            if (after == null) {
+                // not compiled because of errors; try again next time
+                after = new DependencyGraph.Source();
+                if (before != null) after.types.putAll(before.types);
+            } else if (before != null) {
+                for (Map.Entry<String, String> type : before.types.entrySet()) {
+                    if (!type.getValue().equals(after.types.get(type.getKey()))) {
+                        changedTypes.add(type.getKey());
+                        if (!after.types.containsKey(type.getKey())) {
+                            deleteClassFile(type.getKey());
+                        }
+                    }
+                }
+                for (String type : after.types.keySet()) {
+                    if (!before.types.containsKey(type)) {
+                        // a new type may hide one from an imported package
+                        changedTypes.add(type);
+                    }
+                }
+            } else {
+                changedTypes.addAll(after.types.keySet());
+            }
+            graph.sources.put(path, after);
+        }
+
+        graph.invalidateDependents(changedTypes, sources);
+        graph.save(graphFile);
+    }
+
+    private void deleteClassFile(String typeName) {
+        if (destinationPath != null && !NONE.equals(destinationPath)) {
+            new File(destinationPath, typeName.replace('/', File.separatorChar) + ".class").delete();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static final int NON_API = ClassFileConstants.AccPrivate | ClassFileConstants.AccSynthetic;
+
+    /**
+     * Digests the parts of the class that dependents can see: modifiers,
+     * supertypes, member types, annotations (with their values, and those of
+     * parameters) and non-private members (including constant values, which
+     * are inlined by the compiler).  Method bodies and private members do not
+     * contribute.
+     */
+    private static String hashAPI(ClassFile classFile) {
+        byte[] bytes = classFile.getBytes();
+        ClassFileReader reader;
+        try {
+            reader = new ClassFileReader(bytes, classFile.fileName());
+        } catch (ClassFormatException e) {
+            return "";
+        }
+
+        List<String> items = new ArrayList<>();
+        items.add("type " + reader.getModifiers() + ' ' + string(reader.getGenericSignature()) + ' ' +
+            string(reader.getSuperclassName()) + ' ' + join(reader.getInterfaceNames(), ","));
+        addAnnotations(items, "type", reader.getAnnotations());
+        if (reader.getMemberTypes() != null) {
+            for (IBinaryNestedType memberType : reader.getMemberTypes()) {
+                items.add("member " + memberType.getModifiers() + ' ' + string(memberType.getName()));
+            }
+        }
+        if (reader.getFields() != null) {
+            for (IBinaryField field : reader.getFields()) {
+                if ((field.getModifiers() & NON_API) == 0) {
+                    String name = string(field.getName());
+                    items.add("field " + field.getModifiers() + ' ' + name + ' ' + string(field.getTypeName()) + ' ' +
+                        string(field.getGenericSignature()) + ' ' + field.getConstant());
+                    addAnnotations(items, name, field.getAnnotations());
+                }
+            }
+        }
+        if (reader.getMethods() != null) {
+            for (IBinaryMethod method : reader.getMethods()) {
+                if ((method.getModifiers() & NON_API) == 0) {
+                    String name = string(method.getSelector()) + string(method.getMethodDescriptor());
+                    items.add("method " + method.getModifiers() + ' ' + name + ' ' + string(method.getGenericSignature()) + ' ' +
+                        join(method.getExceptionTypeNames(), ",") + ' ' + Arrays.deepToString(new Object[] {method.getDefaultValue()}));
+                    addAnnotations(items, name, method.getAnnotations());
+                    for (int i = 0, n = method.getAnnotatedParametersCount(); i < n; i += 1) {
+                        addAnnotations(items, name + " parameter " + i, method.getParameterAnnotations(i, reader.getFileName()));
+                    }
+                }
+            }
+        }
+        // member order in the class file is not significant
+        Collections.sort(items);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String item : items) {
+                digest.update(item.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b & 0xFF));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return String.valueOf(items.hashCode());
+        }
+    }
+
+    private static void addAnnotations(List<String> items, String target, IBinaryAnnotation[] annotations) {
+        if (annotations != null) {
+            for (IBinaryAnnotation annotation : annotations) {
+                items.add("annotation " + target + ' ' + annotationString(annotation));
+            }
+        }
+    }
+
+    /**
+     * Annotation values are part of the API; for example, transforms and
+     * annotation processors of dependents may read them.
+     */
+    private static String annotationString(IBinaryAnnotation annotation) {
+        StringBuilder sb = new StringBuilder(string(annotation.getTypeName())).append('(');
+        IBinaryElementValuePair[] pairs = annotation.getElementValuePairs();
+        if (pairs != null) {
+            for (int i = 0; i < pairs.length; i += 1) {
+                if (i > 0) sb.append(',');
+                sb.append(pairs[i].getName()).append('=').append(valueString(pairs[i].getValue()));
+            }
+        }
+        return sb.append(')').toString();
+    }
+
+    private static String valueString(Object value) {
+        if (value instanceof IBinaryAnnotation) {
+            return annotationString((IBinaryAnnotation) value);
+        }
+        if (value instanceof Object[]) {
+            StringBuilder sb = new StringBuilder("{");
+            for (Object element : (Object[]) value) {
+                if (sb.length() > 1) sb.append(',');
+                sb.append(valueString(element));
+            }
+            return sb.append('}').toString();
+        }
+        // Constant, ClassSignature and EnumConstantSignature describe themselves
+        return String.valueOf(value);
+    }
+
+    private static String string(char[] chars) {
+        return (chars != null ? new String(chars) : "");
+    }
+
+    private static String join(char[][] names) {
+        return join(names, ".");
+    }
+
+    private static String join(char[][] names, String separator) {
+        StringBuilder sb = new StringBuilder();
+        if (names != null) {
+            for (char[] name : names) {
+                if (sb.length() > 0) sb.append(separator);
+                sb.append(name);
+            }
+        }
+        return sb.toString();
+    }
+}
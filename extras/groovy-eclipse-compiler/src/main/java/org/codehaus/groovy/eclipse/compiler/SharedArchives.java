@@ -0,0 +1,152 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+import org.eclipse.jdt.internal.compiler.batch.ClasspathJar;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem;
+
+/**
+ * Keeps the archives of the classpath open, along with their package indexes,
+ * from one compile to the next in the {@link CompilerDaemon}.  An archive is
+ * shared while its length and last-modified time stay the same; otherwise it
+ * is closed and opened again.  Archives with access rules or a destination
+ * are left to the compile that names them.
+ * <p>
+ * On Windows, where an open archive cannot be replaced (say by the build of
+ * an upstream module), archives are closed after each compile and only their
+ * package indexes are kept.
+ */
+final class SharedArchives {
+
+    private SharedArchives() {
+    }
+
+    private static final int MAX_ENTRIES = 1024;
+
+    private static final boolean CLOSE_AFTER_COMPILE = (File.separatorChar == '\\');
+
+    /** Shared archives by absolute path, least recently used first. */
+    private static final Map<String, SharedClasspathJar> archives = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * @return copy of the classpath with its plain archives replaced by shared ones
+     */
+    static synchronized FileSystem.Classpath[] share(FileSystem.Classpath[] classpaths) {
+        FileSystem.Classpath[] shared = classpaths.clone();
+        for (int i = 0; i < shared.length; i += 1) {
+            if (shared[i].getClass() == ClasspathJar.class) {
+                ClasspathJar jar = (ClasspathJar) shared[i];
+                File file = new File(jar.getPath());
+                if (jar.accessRuleSet == null && jar.destinationPath == null && file.isFile()) {
+                    shared[i] = getArchive(file);
+                    // close the archive if it was opened while checking the classpath
+                    jar.reset();
+                }
+            }
+        }
+
+        // archives of this compile were used last, so they are evicted last
+        int maxEntries = Math.max(MAX_ENTRIES, shared.length);
+        for (Iterator<SharedClasspathJar> it = archives.values().iterator(); archives.size() > maxEntries && it.hasNext();) {
+            it.next().close();
+            it.remove();
+        }
+        return shared;
+    }
+
+    private static SharedClasspathJar getArchive(File file) {
+        String key = file.getAbsolutePath();
+        SharedClasspathJar archive = archives.get(key);
+        if (archive != null && (archive.length != file.length() || archive.lastModified != file.lastModified())) {
+            archive.close();
+            archive = null;
+        }
+        if (archive == null) {
+            archive = new SharedClasspathJar(file);
+            archives.put(key, archive);
+        }
+        return archive;
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static final class SharedClasspathJar extends ClasspathJar {
+
+        /** State derived from the archive that reset() discards; the field types vary with the JDT version. */
+        private static final List<Field> INDEX_FIELDS = new ArrayList<>();
+        static {
+            for (String name : new String[] {"packageCache", "module"}) {
+                for (Class<?> type = ClasspathJar.class; type != Object.class; type = type.getSuperclass()) {
+                    try {
+                        Field field = type.getDeclaredField(name);
+                        field.setAccessible(true);
+                        INDEX_FIELDS.add(field);
+                        break;
+                    } catch (NoSuchFieldException ignore) {
+                    }
+                }
+            }
+        }
+
+        final long length, lastModified;
+
+        SharedClasspathJar(File file) {
+            super(file, /*closeZipFileAtEnd:*/ true, /*accessRuleSet:*/ null, /*destinationPath:*/ null);
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        /**
+         * Called at the end of each compile; keeps the package index and, where
+         * possible, the archive for the next one.
+         */
+        @Override
+        public void reset() {
+            ZipFile archive = zipFile;
+            if (!CLOSE_AFTER_COMPILE) {
+                zipFile = null;
+            }
+            Object[] index = new Object[INDEX_FIELDS.size()];
+            try {
+                for (int i = 0; i < index.length; i += 1) {
+                    index[i] = INDEX_FIELDS.get(i).get(this);
+                }
+                super.reset();
+                for (int i = 0; i < index.length; i += 1) {
+                    INDEX_FIELDS.get(i).set(this, index[i]);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            if (!CLOSE_AFTER_COMPILE) {
+                zipFile = archive;
+            }
+        }
+
+        void close() {
+            super.reset();
+        }
+    }
+}
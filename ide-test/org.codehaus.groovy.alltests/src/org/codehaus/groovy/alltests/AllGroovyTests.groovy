@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -142,6 +142,7 @@ import org.junit.runners.Suite
     org.codehaus.groovy.eclipse.test.debug.ConsoleLineTrackerTests,
     org.codehaus.groovy.eclipse.test.debug.DebugBreakpointsTests,
     org.codehaus.groovy.eclipse.test.debug.GroovyLauncherShortcutTests,
+    org.codehaus.groovy.eclipse.test.search.CallHierarchyTests,
     org.codehaus.groovy.eclipse.test.search.FindOccurrencesTests,
     org.codehaus.groovy.eclipse.test.ui.BracketInserterTests,
     org.codehaus.groovy.eclipse.test.ui.GroovyAutoIndenterTests,
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,8 @@ import static org.junit.Assume.assumeFalse
 
 import org.codehaus.groovy.eclipse.codeassist.GroovyContentAssist
 import org.eclipse.jdt.core.Flags
+import org.eclipse.jdt.core.JavaCore
+import org.eclipse.jdt.internal.codeassist.impl.AssistOptions
 import org.eclipse.jface.text.contentassist.ICompletionProposal
 import org.junit.Test
 
@@ -295,4 +297,78 @@ final class DefaultGroovyMethodCompletionTests extends CompletionTestSuite {
         ICompletionProposal[] proposals = createProposalsAtOffset('[].collectEnt', 13)
         proposalExists(proposals, 'collectEntries', 4) // collectEntries(), collectEntries(Closure), collectEntries(Map), collectEntries(Map, Closure)
     }
+
+    @Test
+    void testPrefixMatch() {
+        withoutSubstringMatch {
+            ICompletionProposal[] proposals = createProposalsAtOffset('[].collectEnt', 13)
+            proposalExists(proposals, 'collectEntries', 4)
+            proposalExists(proposals, 'collect', 0)
+        }
+    }
+
+    @Test
+    void testPrefixMiss() {
+        withoutSubstringMatch {
+            ICompletionProposal[] proposals = createProposalsAtOffset('[].collectx', 11)
+            proposalExists(proposals, 'collect', 0)
+            proposalExists(proposals, 'collectEntries', 0)
+        }
+    }
+
+    @Test
+    void testCamelCaseMatch() {
+        withoutSubstringMatch {
+            ICompletionProposal[] proposals = createProposalsAtOffset('[].colE', 7)
+            proposalExists(proposals, 'collectEntries', 4)
+            proposalExists(proposals, 'collect', 0)
+        }
+    }
+
+    @Test
+    void testPrefixMatchPropertyVariant() {
+        withoutSubstringMatch {
+            String contents = '"".toURL().te'
+            ICompletionProposal[] proposals = createProposalsAtOffset(contents, contents.length())
+            proposalExists(proposals, 'text', 1)
+            proposals = createProposalsAtOffset(contents + 'z', contents.length() + 1)
+            proposalExists(proposals, 'text', 0)
+        }
+    }
+
+    @Test
+    void testCategoryChange() {
+        def category = addJavaSource('''\
+            public class StringCategory {
+              public static String barOne(String self) {
+                return self;
+              }
+            }
+            '''.stripIndent(), 'StringCategory')
+        String contents = 'use (StringCategory) {\n  "".bar\n}\n'
+
+        withoutSubstringMatch {
+            ICompletionProposal[] proposals = createProposalsAtOffset(contents, getIndexOf(contents, '.bar'))
+            proposalExists(proposals, 'barOne', 1)
+            proposalExists(proposals, 'barTwo', 0)
+
+            // methods of the changed category must not come from the table of its previous version
+            category.buffer.contents = category.source.replace('barOne', 'barTwo')
+            category.commitWorkingCopy(true, null)
+
+            proposals = createProposalsAtOffset(contents, getIndexOf(contents, '.bar'))
+            proposalExists(proposals, 'barOne', 0)
+            proposalExists(proposals, 'barTwo', 1)
+        }
+    }
+
+    private void withoutSubstringMatch(Closure block) {
+        String substringMatch = JavaCore.getOption(AssistOptions.OPTION_SubstringMatch)
+        setJavaPreference(AssistOptions.OPTION_SubstringMatch, AssistOptions.DISABLED)
+        try {
+            block.call()
+        } finally {
+            setJavaPreference(AssistOptions.OPTION_SubstringMatch, substringMatch)
+        }
+    }
 }
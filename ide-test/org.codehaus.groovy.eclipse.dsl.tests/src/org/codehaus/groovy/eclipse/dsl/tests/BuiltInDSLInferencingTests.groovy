@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,7 +20,9 @@ import static org.junit.Assert.*
 import static org.junit.Assume.assumeFalse
 
 import org.codehaus.groovy.eclipse.core.model.GroovyRuntime
+import org.codehaus.groovy.eclipse.dsl.DSLDStoreManager
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator
+import org.codehaus.groovy.eclipse.dsl.script.DSLDScriptExecutor
 import org.eclipse.core.resources.IResource
 import org.eclipse.jdt.core.IClasspathContainer
 import org.eclipse.jdt.core.IClasspathEntry
@@ -77,6 +79,78 @@ final class BuiltInDSLInferencingTests extends DSLInferencingTestSuite {
         assert frag.exists() : 'DSLD package fragment should exist'
     }
 
+    @Test
+    void testCompiledScriptsAreSaved() {
+        DSLDScriptExecutor.clearCompiledScripts()
+        DSLDStoreManager manager = GroovyDSLCoreActivator.default.contextStoreManager
+        manager.getDSLDStore(project).purgeAll()
+        manager.initialize(project, true)
+
+        File folder = GroovyDSLCoreActivator.default.stateLocation.append('dsld-classes').append(GroovySystem.version).toFile()
+        String[] saved = folder.list()
+        assert saved?.length > 0 : 'Compiled built-in DSLDs should be saved'
+        int pointcuts = manager.getDSLDStore(project).@keyContextMap.values().sum { it.size() }
+
+        // a script that is compiled again is saved again, which changes the time stamp
+        Map<String, Long> timestamps = saved.collectEntries {
+            File file = new File(folder, it)
+            assert file.setLastModified(System.currentTimeMillis() - 3600000)
+            [(it): file.lastModified()]
+        }
+
+        // drop the classes held in memory so that the saved class files are used
+        DSLDScriptExecutor.@compiledScripts.clear()
+        manager.getDSLDStore(project).purgeAll()
+        manager.initialize(project, true)
+
+        assert folder.list().sort() == saved.sort()
+        timestamps.each { name, timestamp ->
+            assert new File(folder, name).lastModified() == timestamp : "$name should be loaded, not compiled again"
+        }
+        assert manager.getDSLDStore(project).@keyContextMap.values().sum { it.size() } == pointcuts
+    }
+
+    @Test
+    void testCompiledScriptsIgnoreSourceFolders() {
+        DSLDStoreManager manager = GroovyDSLCoreActivator.default.contextStoreManager
+        manager.getDSLDStore(project).purgeAll()
+        manager.initialize(project, true)
+
+        File folder = GroovyDSLCoreActivator.default.stateLocation.append('dsld-classes').append(GroovySystem.version).toFile()
+        String[] saved = folder.list()
+        assert saved?.length > 0 : 'Compiled built-in DSLDs should be saved'
+
+        // scripts are compiled against archives only, so a new source folder does not change their key
+        addSourceFolder('other')
+        DSLDScriptExecutor.@compiledScripts.clear()
+        manager.getDSLDStore(project).purgeAll()
+        manager.initialize(project, true)
+
+        assert folder.list().sort() == saved.sort()
+    }
+
+    @Test
+    void testCompiledScriptsArePruned() {
+        DSLDScriptExecutor.clearCompiledScripts()
+        DSLDStoreManager manager = GroovyDSLCoreActivator.default.contextStoreManager
+        manager.getDSLDStore(project).purgeAll()
+        manager.initialize(project, true)
+
+        File folder = GroovyDSLCoreActivator.default.stateLocation.append('dsld-classes').append(GroovySystem.version).toFile()
+        String[] saved = folder.list()
+        assert saved?.length > 0 : 'Compiled built-in DSLDs should be saved'
+
+        // new archives change the key of every script; the entries they replace are no longer used
+        addJUnit(4)
+        DSLDScriptExecutor.@compiledScripts.clear()
+        manager.getDSLDStore(project).purgeAll()
+        manager.initialize(project, true)
+
+        String[] resaved = folder.list()
+        assert resaved.length == saved.length
+        assert !resaved.any { it in saved } : 'Replaced entries should be deleted'
+    }
+
     @Test
     void testDelegate1() {
         String contents = 'class Foo { @Delegate List<Integer> myList }\nnew Foo().get(0)'
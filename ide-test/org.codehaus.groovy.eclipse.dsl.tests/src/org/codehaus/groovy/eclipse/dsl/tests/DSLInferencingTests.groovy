@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package org.codehaus.groovy.eclipse.dsl.tests
 
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator
+import org.codehaus.groovy.eclipse.dsl.lookup.ResolverCache
 import org.codehaus.groovy.eclipse.test.TestProject
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit
 import org.eclipse.jdt.core.groovy.tests.search.InferencingTestSuite
@@ -1238,6 +1239,39 @@ final class DSLInferencingTests extends DSLInferencingTestSuite {
         assertType(contents, 0, contents.length(), 'java.util.Map<java.lang.String,java.util.List<? extends java.lang.annotation.Annotation>>')
     }
 
+    @Test
+    void testWildcardType4() {
+        createDsls '''\
+            contribute(currentType()) {
+              property name:'prop', type:'Map<String, Comparator<? super java.lang.Number>>'
+            }
+            '''.stripIndent()
+        String contents = 'prop'
+        assertType(contents, 0, contents.length(), 'java.util.Map<java.lang.String,java.util.Comparator<? super java.lang.Number>>')
+    }
+
+    @Test
+    void testNestedType1() {
+        createDsls '''\
+            contribute(currentType()) {
+              property name:'prop', type:'Map< Map<String,Integer>, Map<Long , List<String[]>>[] >'
+            }
+            '''.stripIndent()
+        String contents = 'prop'
+        assertType(contents, 0, contents.length(), 'java.util.Map<java.util.Map<java.lang.String,java.lang.Integer>,java.util.Map<java.lang.Long,java.util.List<java.lang.String[]>>[]>')
+    }
+
+    @Test
+    void testResolverCacheEviction() {
+        Map<String, Integer> cache = ResolverCache.newLruMap(2)
+        cache.put('a', 1)
+        cache.put('b', 2)
+        cache.get('a')
+        cache.put('c', 3)
+
+        assert cache.keySet() == ['a', 'c'] as Set : 'least recently used name should be dropped'
+    }
+
     @Test
     void testAnnotatedType1() {
         createDsls '''\
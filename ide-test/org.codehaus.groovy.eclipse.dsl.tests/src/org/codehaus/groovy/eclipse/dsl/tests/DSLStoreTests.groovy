@@ -360,6 +360,31 @@ final class DSLStoreTests extends DSLInferencingTestSuite {
         )
     }
 
+    @Test
+    void testRefreshKeepsUnchangedScripts() {
+        createDsls('currentType().accept { }', 'fields().accept { }')
+        DSLDStoreManager manager = GroovyDSLCoreActivator.default.contextStoreManager
+        manager.initialize(project, true)
+
+        DSLDStore store = manager.getDSLDStore(project)
+        Map<IStorage, Set<IPointcut>> keyContextMap = store.@keyContextMap
+        IPointcut unchanged = keyContextMap[project.getFile('dsl0.dsld')].iterator().next()
+        IPointcut changed = keyContextMap[project.getFile('dsl1.dsld')].iterator().next()
+
+        project.getFile('dsl1.dsld').setContents(new ByteArrayInputStream('fields().accept { }\n'.bytes), true, false, null)
+        manager.initialize(project, true)
+
+        // only the changed script is executed again
+        assert keyContextMap[project.getFile('dsl0.dsld')].iterator().next().is(unchanged)
+        assert !keyContextMap[project.getFile('dsl1.dsld')].iterator().next().is(changed)
+
+        Map<IPointcut, List<IContributionGroup>> pointcutContributionMap = store.@pointcutContributionMap
+        assert pointcutContributionMap.size() == 2
+        pointcutContributionMap.values().each { List<IContributionGroup> groups ->
+            assert groups.size() == 1
+        }
+    }
+
     @Test
     void testDisabledOfFile() {
         createDsls('currentType().accept { }', 'fields().accept { }')
@@ -16,10 +16,13 @@
 package org.codehaus.groovy.eclipse.dsl.tests
 
 import static org.junit.Assert.assertEquals
+import static org.junit.Assert.assertNull
 import static org.junit.Assert.assertTrue
 import static org.junit.Assert.fail
 
+import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut
+import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutFacet
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException
 import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.AndPointcut
 import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.BindPointcut
@@ -442,4 +445,31 @@ final class PointcutCreationTests {
         IPointcut pc = new PointcutScriptExecutor().createPointcut('registerPointcut("mine", { pattern -> null })\nmine()')
         assertEquals('org.codehaus.groovy.eclipse.dsl.pointcuts.impl.UserExtensiblePointcut', pc.getClass().getName())
     }
+
+    @Test
+    void testFacet1() {
+        AbstractPointcut pc = new PointcutScriptExecutor().createPointcut('currentType("java.lang.String") & fileExtension("groovy")').normalize()
+        assertEquals(PointcutFacet.Kind.CURRENT_TYPE, pc.facet.kind)
+        assertEquals(['java.lang.String'] as Set, pc.facet.values)
+    }
+
+    @Test
+    void testFacet2() {
+        AbstractPointcut pc = new PointcutScriptExecutor().createPointcut('currentType(String) | bind(x: currentType("java.util.List"))').normalize()
+        assertEquals(PointcutFacet.Kind.CURRENT_TYPE, pc.facet.kind)
+        assertEquals(['java.lang.String', 'java.util.List'] as Set, pc.facet.values)
+    }
+
+    @Test
+    void testFacet3() {
+        AbstractPointcut pc = new PointcutScriptExecutor().createPointcut('currentType("java.lang.String") | enclosingCallName("foo")').normalize()
+        assertNull(pc.facet)
+    }
+
+    @Test
+    void testFacet4() {
+        AbstractPointcut pc = new PointcutScriptExecutor().createPointcut('enclosingCallName("foo") & currentType(subType("java.lang.Number"))').normalize()
+        assertEquals(PointcutFacet.Kind.ENCLOSING_CALL, pc.facet.kind)
+        assertEquals(['foo'] as Set, pc.facet.values)
+    }
 }
@@ -186,6 +186,36 @@ final class PointcutEvaluationTests extends GroovyEclipseTestSuite {
         return requestor.hasMatches() ? requestor.largestMatch : null
     }
 
+    /**
+     * Evaluates the pointcut for every expression with and without reuse of
+     * earlier outcomes and checks that both agree.
+     *
+     * @return number of matches that reused an earlier outcome
+     */
+    private int evaluateWithReuse(String cuContents, String pointcutText) {
+        GroovyCompilationUnit unit = addGroovySource(cuContents, nextUnitName(), 'p')
+        IPointcut pc = new PointcutScriptExecutor().createPointcut(pointcutText)
+        GroovyDSLDContext context = PointcutEvaluationRequestor.createContext(unit)
+        TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit)
+        visitor.visitCompilationUnit({ ASTNode node, TypeLookupResult result, IJavaElement enclosingElement ->
+            if (result?.scope != null) {
+                context.currentScope = result.scope
+                context.targetType = result.type
+                boolean reused = context.matchesPointcut(pc)
+                Map<String, Collection<Object>> bindings = context.currentBinding.bindings
+
+                context.resetBinding()
+                boolean direct = (pc.matches(context, result.type) != null)
+                assert reused == direct : "Outcome differs for $node"
+                if (direct) {
+                    assert bindings == context.currentBinding.bindings : "Bindings differ for $node"
+                }
+            }
+            return ITypeRequestor.VisitStatus.CONTINUE
+        } as ITypeRequestor)
+        return context.reusedMatchCount
+    }
+
     //--------------------------------------------------------------------------
 
     @Test
@@ -746,4 +776,39 @@ final class PointcutEvaluationTests extends GroovyEclipseTestSuite {
             new BindingResult('x', 'foo'),
             new BindingResult('y', 'Var: XXX'))
     }
+
+    @Test
+    void testReusedMatches1() {
+        int reused = evaluateWithReuse(
+            'class Foo {\n' +
+            '  def bar(int i) {\n' +
+            '    def x = i + 1\n' +
+            '    println x.toString()\n' +
+            '    [1, 2].each { println it * x }\n' +
+            '  }\n' +
+            '}', 'enclosingClass(name("p.Foo")) & bind(m: enclosingMethod(name("bar")))')
+
+        assert reused > 0
+    }
+
+    @Test
+    void testReusedMatches2() {
+        evaluateWithReuse(
+            'foo {\n' +
+            '  bar {\n' +
+            '    XXX\n' +
+            '    "".length()\n' +
+            '  }\n' +
+            '  1.intValue()\n' +
+            '}', 'bind(x: enclosingCall()) & currentType(subType("java.lang.Number")) | bind(y: currentIdentifier("XXX"))')
+    }
+
+    @Test
+    void testReusedMatches3() {
+        evaluateWithReuse(
+            'class Foo {\n' +
+            '  def bar = { String s -> s.length() }\n' +
+            '  static baz() { this.name }\n' +
+            '}', 'bind(c: enclosingClosure()) | isThisType() & enclosingField(name("bar"))')
+    }
 }
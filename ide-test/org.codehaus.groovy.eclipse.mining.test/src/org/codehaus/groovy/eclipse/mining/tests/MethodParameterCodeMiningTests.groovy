@@ -0,0 +1,125 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.mining.tests
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+import org.codehaus.groovy.ast.ModuleNode
+import org.codehaus.groovy.eclipse.mining.internal.MethodParameterCodeMiningProvider
+import org.codehaus.groovy.eclipse.test.GroovyEclipseTestSuite
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit
+import org.eclipse.core.runtime.IAdaptable
+import org.eclipse.core.runtime.NullProgressMonitor
+import org.eclipse.jdt.core.ICompilationUnit
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils
+import org.eclipse.jface.text.ITextViewer
+import org.eclipse.jface.text.codemining.ICodeMining
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+final class MethodParameterCodeMiningTests extends GroovyEclipseTestSuite {
+
+    private static final String CONTENTS = '''\
+        class X {
+          void m(String one, int two) {
+          }
+          void n() {
+            m('a', 2)
+          }
+        }
+        '''.stripIndent()
+
+    private GroovyCompilationUnit unit
+    private MethodParameterCodeMiningProvider provider
+
+    @Before
+    void setUp() {
+        unit = addGroovySource(CONTENTS, 'X')
+        unit.becomeWorkingCopy(null)
+
+        provider = new MethodParameterCodeMiningProvider()
+        provider.context = { Class type -> type.isInstance(unit) ? unit : null } as IAdaptable
+    }
+
+    @After
+    void tearDown() {
+        provider.dispose()
+        unit.discardWorkingCopy()
+    }
+
+    private CompletableFuture<List<? extends ICodeMining>> requestCodeMinings() {
+        // no text widget, so minings are computed for the entire unit
+        provider.provideCodeMinings([getTextWidget: { -> null }] as ITextViewer, new NullProgressMonitor())
+    }
+
+    private static List<String> labels(List<? extends ICodeMining> codeMinings) {
+        codeMinings.collect { "${it.position.offset}:${it.label}".toString() }
+    }
+
+    private static List<String> expectedLabels(String contents) {
+        ["${contents.indexOf("'a'")}:one:".toString(), "${contents.indexOf('2)')}:two:".toString()]
+    }
+
+    @Test
+    void testPendingRequestSuperseded() {
+        ThreadPoolExecutor executor = ReflectionUtils.getPrivateField(MethodParameterCodeMiningProvider, 'EXECUTOR', null)
+        CountDownLatch latch = new CountDownLatch(1)
+        CompletableFuture<List<? extends ICodeMining>> first, second
+        try {
+            // keep every thread of the executor busy so that requests stay queued
+            executor.maximumPoolSize.times {
+                executor.execute { latch.await() }
+            }
+            first = requestCodeMinings()
+            second = requestCodeMinings()
+
+            // newer request completes the queued one without minings
+            assert first.isDone()
+            assert first.get() == null
+            assert !second.isDone()
+        } finally {
+            latch.countDown()
+        }
+
+        assert labels(second.get(10, TimeUnit.SECONDS)) == expectedLabels(CONTENTS)
+        assert first.get() == null
+    }
+
+    @Test
+    void testCachedMiningsReusedUntilEdit() {
+        assert labels(requestCodeMinings().get(10, TimeUnit.SECONDS)) == expectedLabels(CONTENTS)
+
+        // marker shows whether the labels cached with the module are reused or recomputed
+        ModuleNode module = unit.moduleNode
+        Class cacheType = MethodParameterCodeMiningProvider.classLoader.loadClass(MethodParameterCodeMiningProvider.name + '$MiningCache')
+        module.getNodeMetaData(cacheType).labels.put(0, 'marker:')
+
+        assert labels(requestCodeMinings().get(10, TimeUnit.SECONDS)) == ['0:marker:', *expectedLabels(CONTENTS)]
+
+        // an edit produces a new module, whose minings are computed anew at the shifted offsets
+        String insert = '    def x = 1\n'
+        unit.buffer.replace(CONTENTS.indexOf("    m('a'"), 0, insert)
+        unit.reconcile(ICompilationUnit.NO_AST, false, null, null)
+        assert !unit.moduleNode.is(module)
+
+        String changed = unit.source
+        assert labels(requestCodeMinings().get(10, TimeUnit.SECONDS)) == expectedLabels(changed)
+    }
+}
@@ -150,4 +150,45 @@ final class GroovyDocumentScannerTests {
         assertTokens(["def", "a", "=", "3", "+", "4", "<newline>"], tokens)
         scanner.dispose()
     }
+
+    @Test
+    void testIncrementalDocumentEdits() {
+        String text =
+            "class Foo {\n" +
+            "    def a = <***>\n" +
+            "    def b = \"\${ -> \n x }\"\n" +
+            "    def c = [1,\n 2]\n" +
+            "}\n"
+        makeEditor(text)
+
+        IDocument doc = getDocument()
+        GroovyDocumentScanner scanner = new GroovyDocumentScanner(doc)
+        scanner.getLastToken()
+
+        send("3 +\n4")
+        assertSameTokens(doc, scanner)
+
+        editDoc.replace(0, 0, "\n\n")
+        assertSameTokens(doc, scanner)
+
+        editDoc.replace(doc.get().indexOf("[1"), 1, "foo(")
+        assertSameTokens(doc, scanner)
+        scanner.dispose()
+    }
+
+    private void assertSameTokens(IDocument doc, GroovyDocumentScanner scanner) {
+        GroovyDocumentScanner expected = new GroovyDocumentScanner(doc)
+        try {
+            List<Token> expect = expected.getTokens(0, doc.getLength()), actual = scanner.getTokens(0, doc.getLength())
+            assertEquals(expect.size(), actual.size())
+            for (int i = 0; i < expect.size(); i += 1) {
+                assertEquals(expect[i].getType(), actual[i].getType())
+                assertEquals(expect[i].getText(), actual[i].getText())
+                assertEquals(expected.getOffset(expect[i]), scanner.getOffset(actual[i]))
+                assertEquals(expected.getEnd(expect[i]), scanner.getEnd(actual[i]))
+            }
+        } finally {
+            expected.dispose()
+        }
+    }
 }
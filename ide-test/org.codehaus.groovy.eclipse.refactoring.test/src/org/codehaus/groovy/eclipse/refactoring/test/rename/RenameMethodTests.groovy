@@ -123,6 +123,28 @@ final class RenameMethodTests extends RefactoringTestSuite {
         runTest('o.Other', 'FOO', 'BAR')
     }
 
+    @Test
+    void testParallelSearch() {
+        // several groovy units are searched in parallel; matches must still be tailored to the rename
+        ICompilationUnit a = createCU(packageP, 'A.groovy', 'package p\nclass A {\n  def getM() {}\n}\n')
+        ICompilationUnit b = createCU(packageP, 'B.groovy', 'package p\nclass B {\n  def x(A a) {\n    a.getM()\n    a.m\n  }\n}\n')
+        ICompilationUnit c = createCU(packageP, 'C.groovy', 'package p\nclass C {\n  def y(a) {\n    a.getM()\n  }\n}\n')
+
+        RenameJavaElementDescriptor descriptor = createRenameJavaElementDescriptor(IJavaRefactorings.RENAME_METHOD)
+        descriptor.javaElement = a.getType('A').getMethod('getM', new String[0])
+        descriptor.newName = 'getK'
+        descriptor.updateReferences = true
+
+        // dynamic reference is accurate for refactoring, so there is no potential match warning
+        def status = createRefactoring(descriptor).checkAllConditions(new NullProgressMonitor())
+        assert status.isOK() : status.toString()
+
+        assert performRefactoring(descriptor) == null : 'was supposed to pass'
+        // pseudo-property reference is skipped for refactoring
+        assertEqualLines('package p\nclass B {\n  def x(A a) {\n    a.getK()\n    a.m\n  }\n}\n', b.source)
+        assertEqualLines('package p\nclass C {\n  def y(a) {\n    a.getK()\n  }\n}\n', c.source)
+    }
+
     @Test
     void testAnonOverrides() {
         // rename I.run() to sam() and anonymous inners in A should change
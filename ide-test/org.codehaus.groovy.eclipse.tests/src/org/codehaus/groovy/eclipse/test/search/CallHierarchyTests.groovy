@@ -0,0 +1,76 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.test.search
+
+import org.codehaus.groovy.eclipse.test.GroovyEclipseTestSuite
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit
+import org.eclipse.core.runtime.NullProgressMonitor
+import org.eclipse.jdt.core.IMember
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper
+import org.junit.Test
+
+/**
+ * Tests for call hierarchy of methods referenced from Groovy sources.
+ */
+final class CallHierarchyTests extends GroovyEclipseTestSuite {
+
+    private List<String> findCallers(IMember member) {
+        waitForIndex()
+        MethodWrapper[] roots = CallHierarchy.getDefault().getCallerRoots([member] as IMember[])
+        assert roots.length == 1
+        return roots[0].getCalls(new NullProgressMonitor())*.member*.elementName.sort()
+    }
+
+    //--------------------------------------------------------------------------
+
+    @Test
+    void testCallersInSeveralUnits() {
+        // units are searched in parallel; call hierarchy must still receive accurate matches
+        GroovyCompilationUnit unit = addGroovySource('''\
+            package p
+            class A {
+              def m() {}
+            }
+            '''.stripIndent(), 'A', 'p')
+        addGroovySource('''\
+            package p
+            class B {
+              def x(A a) {
+                a.m()
+              }
+            }
+            '''.stripIndent(), 'B', 'p')
+        addGroovySource('''\
+            package p
+            class C {
+              def y(a) {
+                a.m()
+              }
+            }
+            '''.stripIndent(), 'C', 'p')
+        addGroovySource('''\
+            package p
+            class D {
+              def z() {
+                new A().m()
+              }
+            }
+            '''.stripIndent(), 'D', 'p')
+
+        assert findCallers(unit.getType('A').getMethod('m', new String[0])) == ['x', 'y', 'z']
+    }
+}
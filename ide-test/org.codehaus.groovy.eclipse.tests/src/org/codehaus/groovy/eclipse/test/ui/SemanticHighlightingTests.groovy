@@ -2610,6 +2610,86 @@ final class SemanticHighlightingTests extends GroovyEclipseTestSuite {
             new HighlightedTypedPosition(contents.lastIndexOf('getFoo'), 6, METHOD_CALL))
     }
 
+    @Test
+    void testIncrementalUpdate() {
+        String contents = '''\
+            class X {
+              String one(String s) {
+                s.length()
+              }
+              def two(Number n) {
+                n.intValue()
+              }
+            }
+            '''.stripIndent()
+        def unit = addGroovySource(contents, "Highlighting${++counter}")
+        unit.becomeWorkingCopy(null)
+        try {
+            def finder = new GatherSemanticReferences(unit)
+            List<HighlightedTypedPosition> previous = finder.findSemanticHighlightingReferences().toList()
+            char[] source = finder.source
+            assert source == contents.toCharArray()
+            // marker shows that positions of the second method are reused rather than recomputed
+            previous << new HighlightedTypedPosition(contents.indexOf('intValue'), 8, COMMENT)
+            previous.sort()
+
+            int offset = contents.indexOf('s.length()')
+            String insert = 'def x = 42\n    '
+            unit.buffer.replace(offset, 0, insert)
+            String changed = unit.source
+
+            def references = new GatherSemanticReferences(unit).findSemanticHighlightingReferences(
+                previous, source, offset, offset + insert.length(), insert.length()).toList()
+            def expected = new GatherSemanticReferences(unit).findSemanticHighlightingReferences().toList()
+            assertEquals((expected + new HighlightedTypedPosition(changed.indexOf('intValue'), 8, COMMENT)).sort().join('\n'), references.sort().join('\n'))
+
+            // an edit outside of the given region is detected even if it keeps the length
+            unit.buffer.replace(changed.indexOf('two'), 3, 'owt')
+            references = new GatherSemanticReferences(unit).findSemanticHighlightingReferences(
+                previous, source, offset, offset + insert.length(), insert.length()).toList()
+            expected = new GatherSemanticReferences(unit).findSemanticHighlightingReferences().toList()
+            assertEquals(expected.sort().join('\n'), references.sort().join('\n'))
+        } finally {
+            unit.discardWorkingCopy()
+        }
+    }
+
+    @Test
+    void testIncrementalUpdateOfDynamicMethod() {
+        String contents = '''\
+            class X {
+              def one(String s) {
+                s
+              }
+              def two() {
+                one('').length()
+              }
+            }
+            '''.stripIndent()
+        def unit = addGroovySource(contents, "Highlighting${++counter}")
+        unit.becomeWorkingCopy(null)
+        try {
+            def finder = new GatherSemanticReferences(unit)
+            List<HighlightedTypedPosition> previous = finder.findSemanticHighlightingReferences().toList()
+            char[] source = finder.source
+            // marker shows whether positions of the second method are reused or recomputed
+            previous << new HighlightedTypedPosition(contents.indexOf('length'), 6, COMMENT)
+            previous.sort()
+
+            // changes the inferred return type of "one" and so the meaning of "length" in "two"
+            int offset = contents.indexOf('s\n')
+            String insert = '42 + '
+            unit.buffer.replace(offset, 0, insert)
+
+            def references = new GatherSemanticReferences(unit).findSemanticHighlightingReferences(
+                previous, source, offset, offset + insert.length(), insert.length()).toList()
+            def expected = new GatherSemanticReferences(unit).findSemanticHighlightingReferences().toList()
+            assertEquals(expected.sort().join('\n'), references.sort().join('\n'))
+        } finally {
+            unit.discardWorkingCopy()
+        }
+    }
+
     //
     private int counter
 
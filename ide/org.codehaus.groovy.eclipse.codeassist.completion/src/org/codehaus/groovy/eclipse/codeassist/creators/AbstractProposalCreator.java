@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -53,9 +53,19 @@ public abstract class AbstractProposalCreator implements IProposalCreator {
     protected Set<String> favoriteStaticMembers;
 
     public void setNameMatchingStrategy(BiPredicate<String, String> strategy) {
+        setNameMatchingStrategy(strategy, false);
+    }
+
+    /**
+     * @param anchored {@code true} if the strategy accepts only names that
+     *        start like the pattern does (i.e. prefix or camel-case matching)
+     */
+    public void setNameMatchingStrategy(BiPredicate<String, String> strategy, boolean anchored) {
         this.matcher = strategy;
+        this.anchoredMatcher = anchored;
     }
     protected BiPredicate<String, String> matcher = ProposalUtils::looselyMatches;
+    protected boolean anchoredMatcher = true;
 
     //--------------------------------------------------------------------------
 
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.codeassist.creators;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.eclipse.codeassist.ProposalUtils;
+import org.eclipse.jdt.groovy.core.util.GroovyUtils;
+import org.eclipse.jdt.groovy.search.AccessorSupport;
+
+/**
+ * Sorted table of the public static methods of a category class that can be
+ * searched by name prefix.  Tables are kept in the metadata of the category
+ * node, so the default categories (which are shared by all modules) are only
+ * indexed once.
+ */
+final class CategoryMethodTable {
+
+    static CategoryMethodTable forCategory(ClassNode category) {
+        synchronized (category) {
+            CategoryMethodTable table = category.getNodeMetaData(CategoryMethodTable.class);
+            if (table == null) {
+                table = new CategoryMethodTable(category);
+                category.putNodeMetaData(CategoryMethodTable.class, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Returns the part of the pattern that a name must start with to satisfy a
+     * prefix or camel-case match.  Camel-case matching requires an exact match
+     * of the first character and each character up to the first upper-case
+     * letter or digit.
+     */
+    static String getAnchoredPrefix(String pattern) {
+        int i = 1, n = pattern.length();
+        while (i < n) {
+            char c = pattern.charAt(i);
+            if (Character.isUpperCase(c) || Character.isDigit(c) || (c >= 128 && !Character.isJavaIdentifierPart(c))) {
+                break;
+            }
+            i += 1;
+        }
+        return pattern.substring(0, i);
+    }
+
+    //--------------------------------------------------------------------------
+
+    /** Methods that have a self type parameter, keyed by method name. */
+    private final NavigableMap<String, List<MethodNode>> methods = new TreeMap<>();
+
+    /** Getters that have only a self type parameter, keyed by property name. */
+    private final NavigableMap<String, List<MethodNode>> properties = new TreeMap<>();
+
+    private final Set<MethodNode> deprecated = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private CategoryMethodTable(ClassNode category) {
+        for (MethodNode method : category.getAllDeclaredMethods()) {
+            if (method.isStatic() && method.isPublic()) {
+                Parameter[] params = method.getParameters();
+                if (params != null && params.length > 0) {
+                    String methodName = method.getName();
+                    methods.computeIfAbsent(methodName, x -> new ArrayList<>(2)).add(method);
+
+                    if (params.length == 1 && AccessorSupport.create(methodName, true).isAccessorKind(method, true)) {
+                        properties.computeIfAbsent(ProposalUtils.createMockFieldName(methodName), x -> new ArrayList<>(1)).add(method);
+                    }
+                    if (GroovyUtils.isDeprecated(method)) {
+                        deprecated.add(method);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param anchored {@code true} if candidate names must begin with the
+     *        {@linkplain #getAnchoredPrefix anchored prefix} of the pattern
+     */
+    Collection<List<MethodNode>> getMethods(String pattern, boolean anchored) {
+        return select(methods, pattern, anchored);
+    }
+
+    /**
+     * @param anchored {@code true} if candidate property names must begin with
+     *        the {@linkplain #getAnchoredPrefix anchored prefix} of the pattern
+     */
+    Collection<List<MethodNode>> getPropertyMethods(String pattern, boolean anchored) {
+        return select(properties, pattern, anchored);
+    }
+
+    boolean isDeprecated(MethodNode method) {
+        return deprecated.contains(method);
+    }
+
+    private static Collection<List<MethodNode>> select(NavigableMap<String, List<MethodNode>> table, String pattern, boolean anchored) {
+        if (!anchored || pattern == null || pattern.isEmpty()) {
+            return table.values();
+        }
+        String prefix = getAnchoredPrefix(pattern);
+        return table.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,11 @@ package org.codehaus.groovy.eclipse.codeassist.creators;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.FieldNode;
@@ -63,25 +65,30 @@ public class CategoryProposalCreator extends AbstractProposalCreator {
 
         DGMProposalFilter filter = new DGMProposalFilter();
         List<IGroovyProposal> proposals = new ArrayList<>();
+        Map<ClassNode, Boolean> assignable = new IdentityHashMap<>();
+        Predicate<ClassNode> isSelfType = type -> assignable.computeIfAbsent(type, t -> GroovyUtils.isAssignable(selfType, t));
         for (ClassNode category : categories) {
             boolean isDefaultCategory = isDefaultCategory(category);
-            for (MethodNode method : category.getAllDeclaredMethods()) {
-                // check for DGMs filtered by deprecation or user preference
-                if (isDefaultCategory && (GroovyUtils.isDeprecated(method) || filter.isFiltered(method))) {
-                    continue;
+            CategoryMethodTable table = CategoryMethodTable.forCategory(category);
+            for (List<MethodNode> methods : table.getMethods(prefix, anchoredMatcher)) {
+                for (MethodNode method : methods) {
+                    // check for DGMs filtered by deprecation or user preference
+                    if (isDefaultCategory && (table.isDeprecated(method) || filter.isFiltered(method))) {
+                        continue;
+                    }
+                    if (matcher.test(prefix, method.getName()) && isSelfType.test(method.getParameters()[0].getType())) {
+                        proposals.add(new CategoryMethodProposal(method));
+                    }
                 }
-                String methodName = method.getName();
-                if (method.isStatic() && method.isPublic()) {
-                    Parameter[] params = method.getParameters();
-
-                    if (matcher.test(prefix, methodName)) {
-                        if (params.length > 0 && GroovyUtils.isAssignable(selfType, params[0].getType())) {
-                            proposals.add(new CategoryMethodProposal(method));
-                        }
+            }
+            for (List<MethodNode> methods : table.getPropertyMethods(prefix, anchoredMatcher)) {
+                for (MethodNode method : methods) {
+                    if (isDefaultCategory && (table.isDeprecated(method) || filter.isFiltered(method))) {
+                        continue;
                     }
-
-                    if (params.length == 1 && findLooselyMatchedAccessorKind(prefix, methodName, true).isAccessorKind(method, true) &&
-                            hasNoField(selfType, methodName) && GroovyUtils.isAssignable(selfType, params[0].getType())) {
+                    String methodName = method.getName();
+                    if (matcher.test(prefix, ProposalUtils.createMockFieldName(methodName)) &&
+                            hasNoField(selfType, methodName) && isSelfType.test(method.getParameters()[0].getType())) {
                         // add property variant of accessor method
                         proposals.add(new CategoryPropertyProposal(method));
                     }
@@ -310,7 +310,7 @@ public class StatementAndExpressionCompletionProcessor extends AbstractGroovyCom
                 ((AbstractProposalCreator) creator).setFavoriteStaticMembers(context.getFavoriteStaticMembers());
                 ((AbstractProposalCreator) creator).setNameMatchingStrategy((String pattern, String candidate) -> {
                     return ProposalUtils.matches(pattern, candidate, options.camelCaseMatch, options.substringMatch);
-                });
+                }, !options.substringMatch);
             }
             String completionExpression = context.getPerceivedCompletionExpression();
             groovyProposals.addAll(
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,6 @@
 package org.codehaus.groovy.eclipse.dsl;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -36,6 +35,11 @@ import org.eclipse.jdt.internal.core.NonJavaResource;
 
 /**
  * Stores the pointcuts for a single project.
+ * <p>
+ * Lookups are served from an immutable {@link PointcutIndex} snapshot, so
+ * concurrent inferencing threads do not contend for the store's monitor.  The
+ * snapshot is discarded whenever pointcuts are added or purged and is rebuilt
+ * by {@link #buildIndex()} or on the next lookup.
  */
 public class DSLDStore {
 
@@ -43,6 +47,10 @@ public class DSLDStore {
     private final Map<IPointcut, List<IContributionGroup>> pointcutContributionMap = new LinkedHashMap<>();
     /** Maps keys (such as script names) to the pointcuts they produce. */
     private final Map<IStorage, Set<IPointcut>> keyContextMap = new HashMap<>();
+    /** Maps scripts to the hash of the contents that their pointcuts were produced from. */
+    private final Map<IStorage, String> scriptHashes = new HashMap<>();
+    /** Read-only view of {@link #pointcutContributionMap}; {@code null} when it must be rebuilt. */
+    private volatile PointcutIndex pointcutIndex;
 
     public void addContributionGroup(IPointcut pointcut, IContributionGroup contribution) {
         synchronized (pointcutContributionMap) {
@@ -52,6 +60,7 @@ public class DSLDStore {
                 pointcutContributionMap.put(pointcut, contributions);
             }
             contributions.add(contribution);
+            pointcutIndex = null;
         }
 
         IStorage identifier = pointcut.getContainerIdentifier();
@@ -69,6 +78,9 @@ public class DSLDStore {
         if (GroovyLogManager.manager.hasLoggers()) {
             GroovyLogManager.manager.log(TraceCategory.DSL, "Purging pointcut for DSL file " + identifier);
         }
+        synchronized (scriptHashes) {
+            scriptHashes.remove(identifier);
+        }
         Set<IPointcut> pointcuts;
         synchronized (keyContextMap) {
             pointcuts = keyContextMap.remove(identifier);
@@ -78,19 +90,66 @@ public class DSLDStore {
                 for (IPointcut pointcut : pointcuts) {
                     pointcutContributionMap.remove(pointcut);
                 }
+                pointcutIndex = null;
             }
         }
     }
 
     public void purgeAll() {
+        synchronized (scriptHashes) {
+            scriptHashes.clear();
+        }
         synchronized (keyContextMap) {
             keyContextMap.clear();
         }
         synchronized (pointcutContributionMap) {
             pointcutContributionMap.clear();
+            pointcutIndex = null;
+        }
+    }
+
+    /**
+     * @return hash of the contents the script's pointcuts were produced from or
+     *     {@code null} if the script has not been executed successfully
+     */
+    public String getScriptHash(IStorage script) {
+        synchronized (scriptHashes) {
+            return scriptHashes.get(script);
+        }
+    }
+
+    /**
+     * Records that the pointcuts of the script have been produced from contents
+     * with the given hash.  Refreshes skip the script while its hash is unchanged.
+     */
+    public void setScriptHash(IStorage script, String hash) {
+        synchronized (scriptHashes) {
+            scriptHashes.put(script, hash);
         }
     }
 
+    /**
+     * Builds the lookup index for the current set of pointcuts.  Called once all
+     * scripts have been loaded so that the first lookup does not pay for it.
+     */
+    public void buildIndex() {
+        getPointcutIndex();
+    }
+
+    private PointcutIndex getPointcutIndex() {
+        PointcutIndex index = pointcutIndex;
+        if (index == null) {
+            synchronized (pointcutContributionMap) {
+                index = pointcutIndex;
+                if (index == null) {
+                    index = pointcutContributionMap.isEmpty() ? PointcutIndex.EMPTY : PointcutIndex.build(pointcutContributionMap);
+                    pointcutIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     /**
      * Creates a new {@link DSLDStore} based on the pattern passed in
      * only includes {@link IPointcut}s that match the pattern.
@@ -102,13 +161,12 @@ public class DSLDStore {
      */
     public DSLDStore createSubStore(GroovyDSLDContext pattern) {
         DSLDStore subStore = new DSLDStore();
-        synchronized (pointcutContributionMap) {
-            for (Map.Entry<IPointcut, List<IContributionGroup>> entry : pointcutContributionMap.entrySet()) {
-                if (entry.getKey().fastMatch(pattern)) {
-                    subStore.addAllContributions(entry.getKey(), entry.getValue());
-                }
-            }
+        // file extension, project nature, etc. are fixed for the sub-store's lifetime
+        PointcutIndex subIndex = getPointcutIndex().filter(pointcut -> pointcut.fastMatch(pattern));
+        for (PointcutIndex.Entry entry : subIndex.getEntries()) {
+            subStore.pointcutContributionMap.put(entry.pointcut, entry.groups);
         }
+        subStore.pointcutIndex = subIndex;
         return subStore;
     }
 
@@ -120,6 +178,7 @@ public class DSLDStore {
             } else {
                 existing.addAll(contributions);
             }
+            pointcutIndex = null;
         }
     }
 
@@ -138,16 +197,12 @@ public class DSLDStore {
      */
     public List<IContributionElement> findContributions(GroovyDSLDContext pattern, Set<String> disabledScripts) {
         List<IContributionElement> elts = new ArrayList<>();
-        synchronized (pointcutContributionMap) {
-            for (Map.Entry<IPointcut, List<IContributionGroup>> entry : pointcutContributionMap.entrySet()) {
-                IPointcut pointcut = entry.getKey();
-                if (!disabledScripts.contains(DSLDStore.toUniqueString(pointcut.getContainerIdentifier()))) {
-                    pattern.resetBinding();
-                    Collection<?> results = pointcut.matches(pattern, pattern.getCurrentType());
-                    if (results != null) {
-                        for (IContributionGroup group : entry.getValue()) {
-                            elts.addAll(group.getContributions(pattern, pattern.getCurrentBinding()));
-                        }
+        for (PointcutIndex.Entry entry : getPointcutIndex().getCandidates(pattern)) {
+            IPointcut pointcut = entry.pointcut;
+            if (!disabledScripts.contains(DSLDStore.toUniqueString(pointcut.getContainerIdentifier()))) {
+                if (pattern.matchesPointcut(pointcut)) {
+                    for (IContributionGroup group : entry.groups) {
+                        elts.addAll(group.getContributions(pattern, pattern.getCurrentBinding()));
                     }
                 }
             }
@@ -161,6 +216,15 @@ public class DSLDStore {
         }
     }
 
+    /**
+     * @return scripts that have been executed successfully
+     */
+    public IStorage[] getAllScriptKeys() {
+        synchronized (scriptHashes) {
+            return scriptHashes.keySet().toArray(new IStorage[0]);
+        }
+    }
+
     public static String toUniqueString(IStorage storage) {
         if (storage instanceof IFile) {
             return storage.getFullPath().toPortableString();
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.eclipse.dsl.contributions.IContributionGroup;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutFacet;
+import org.eclipse.jdt.groovy.search.VariableScope;
+import org.eclipse.jdt.groovy.search.VariableScope.CallAndType;
+
+/**
+ * Immutable discrimination index over the pointcuts of a {@link DSLDStore}.
+ * Pointcuts that declare a {@link PointcutFacet} are filed under the current
+ * type names or enclosing call names they require; the rest are always
+ * candidates.  Candidates are returned in registration order.
+ */
+final class PointcutIndex {
+
+    static final PointcutIndex EMPTY = new PointcutIndex(Collections.emptyList());
+
+    static final class Entry {
+        final int ordinal;
+        final IPointcut pointcut;
+        final List<IContributionGroup> groups;
+        final PointcutFacet facet;
+
+        Entry(int ordinal, IPointcut pointcut, List<IContributionGroup> groups) {
+            this.ordinal = ordinal;
+            this.pointcut = pointcut;
+            this.groups = groups;
+            this.facet = (pointcut instanceof AbstractPointcut ? ((AbstractPointcut) pointcut).getFacet() : null);
+        }
+    }
+
+    private final List<Entry> entries;
+    private final List<Entry> unindexed = new ArrayList<>();
+    private final Map<String, List<Entry>> byCurrentType = new HashMap<>();
+    private final Map<String, List<Entry>> byEnclosingCall = new HashMap<>();
+
+    /**
+     * @param pointcutContributionMap pointcuts and their contributions in registration order
+     */
+    static PointcutIndex build(Map<IPointcut, List<IContributionGroup>> pointcutContributionMap) {
+        List<Entry> entries = new ArrayList<>(pointcutContributionMap.size());
+        for (Map.Entry<IPointcut, List<IContributionGroup>> entry : pointcutContributionMap.entrySet()) {
+            entries.add(new Entry(entries.size(), entry.getKey(), new ArrayList<>(entry.getValue())));
+        }
+        return new PointcutIndex(entries);
+    }
+
+    private PointcutIndex(List<Entry> entries) {
+        this.entries = entries;
+        for (Entry entry : entries) {
+            if (entry.facet == null) {
+                unindexed.add(entry);
+            } else {
+                Map<String, List<Entry>> index = (entry.facet.kind == PointcutFacet.Kind.CURRENT_TYPE ? byCurrentType : byEnclosingCall);
+                for (String value : entry.facet.values) {
+                    index.computeIfAbsent(value, x -> new ArrayList<>(2)).add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a new index containing the entries whose pointcut satisfies the filter
+     */
+    PointcutIndex filter(Predicate<IPointcut> filter) {
+        List<Entry> filtered = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (filter.test(entry.pointcut)) {
+                filtered.add(entry);
+            }
+        }
+        return new PointcutIndex(filtered);
+    }
+
+    List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return entries whose pointcut may match the given context, in registration order
+     */
+    List<Entry> getCandidates(GroovyDSLDContext pattern) {
+        if (byCurrentType.isEmpty() && byEnclosingCall.isEmpty()) {
+            return entries;
+        }
+        List<Entry> candidates = new ArrayList<>(unindexed);
+        ClassNode currentType = pattern.getCurrentType();
+        if (currentType != null && !byCurrentType.isEmpty()) {
+            List<Entry> matches = byCurrentType.get(currentType.getName());
+            if (matches != null) {
+                candidates.addAll(matches);
+            }
+        }
+        VariableScope currentScope = pattern.getCurrentScope();
+        if (currentScope != null && !byEnclosingCall.isEmpty()) {
+            for (CallAndType callAndType : currentScope.getAllEnclosingMethodCallExpressions()) {
+                List<Entry> matches = byEnclosingCall.get(callAndType.call.getMethodAsString());
+                if (matches != null) {
+                    candidates.addAll(matches);
+                }
+            }
+        }
+        if (candidates.size() > unindexed.size()) {
+            // restore registration order and remove entries found under more than one name
+            candidates.sort((one, two) -> Integer.compare(one.ordinal, two.ordinal));
+            Entry previous = null;
+            for (Iterator<Entry> it = candidates.iterator(); it.hasNext();) {
+                Entry entry = it.next();
+                if (entry == previous) {
+                    it.remove();
+                }
+                previous = entry;
+            }
+        }
+        return candidates;
+    }
+}
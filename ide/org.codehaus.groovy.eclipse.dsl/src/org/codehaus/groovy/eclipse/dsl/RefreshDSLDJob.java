@@ -18,6 +18,7 @@ package org.codehaus.groovy.eclipse.dsl;
 import static org.codehaus.groovy.eclipse.dsl.classpath.DSLDContainerInitializer.GLOBAL_DSLD_SUPPORT;
 import static org.codehaus.groovy.eclipse.dsl.classpath.DSLDContainerInitializer.PLUGIN_DSLD_SUPPORT;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -158,23 +159,54 @@ public class RefreshDSLDJob extends Job {
         }
         monitor.worked(1);
 
-        // purge existing
+        DSLDStore store = GroovyDSLCoreActivator.getDefault().getContextStoreManager().getDSLDStore(project);
+
+        // find dslds
         if (GroovyLogManager.manager.hasLoggers()) {
-            GroovyLogManager.manager.log(TraceCategory.DSL, "Purging old state");
+            GroovyLogManager.manager.log(TraceCategory.DSL, "Finding inferencing DSL scripts");
         }
-        DSLDStore store = GroovyDSLCoreActivator.getDefault().getContextStoreManager().getDSLDStore(project);
-        store.purgeAll();
+        Collection<IStorage> findDSLDFiles = new DSLDResourceVisitor(project).findFiles(monitor);
 
         if (monitor.isCanceled()) {
             return Status.CANCEL_STATUS;
         }
         monitor.worked(1);
 
-        // find dslds
+        Map<IStorage, String> scriptTexts = new HashMap<>();
+        Map<IStorage, String> scriptHashes = new HashMap<>();
+        for (IStorage file : findDSLDFiles) {
+            if (isDSLD(file)) {
+                try {
+                    String scriptText = DSLDScriptExecutor.getContents(file);
+                    scriptTexts.put(file, scriptText);
+                    scriptHashes.put(file, DSLDScriptExecutor.contentHash(scriptText));
+                } catch (IOException | CoreException e) {
+                    GroovyDSLCoreActivator.logException(e);
+                }
+            }
+        }
+
+        // purge the pointcuts of scripts that have been removed or changed; the
+        // rest were produced from the same contents and can be kept as they are
         if (GroovyLogManager.manager.hasLoggers()) {
-            GroovyLogManager.manager.log(TraceCategory.DSL, "Finding inferencing DSL scripts");
+            GroovyLogManager.manager.log(TraceCategory.DSL, "Purging old state");
         }
-        Collection<IStorage> findDSLDFiles = new DSLDResourceVisitor(project).findFiles(monitor);
+        for (IStorage key : store.getAllContextKeys()) {
+            String hash = store.getScriptHash(key);
+            if (hash == null || !hash.equals(scriptHashes.get(key))) {
+                store.purgeIdentifier(key);
+            }
+        }
+        for (IStorage key : store.getAllScriptKeys()) {
+            if (!scriptHashes.containsKey(key)) {
+                store.purgeIdentifier(key);
+            }
+        }
+        List<String> scriptNames = new ArrayList<>(scriptHashes.size());
+        for (IStorage file : scriptHashes.keySet()) {
+            scriptNames.add(file.getName());
+        }
+        DSLDScriptExecutor.retainCompiledScripts(JavaCore.create(project), scriptNames);
 
         if (monitor.isCanceled()) {
             return Status.CANCEL_STATUS;
@@ -183,6 +215,15 @@ public class RefreshDSLDJob extends Job {
 
         // now add the rest
         for (IStorage file : findDSLDFiles) {
+            if (isDSLD(file)) {
+                String hash = scriptHashes.get(file);
+                if (hash == null || hash.equals(store.getScriptHash(file))) {
+                    if (hash != null && GroovyLogManager.manager.hasLoggers()) {
+                        GroovyLogManager.manager.log(TraceCategory.DSL, "Skipping unchanged " + file.getName() + " in project " + project.getName());
+                    }
+                    continue;
+                }
+            }
             if (GroovyLogManager.manager.hasLoggers()) {
                 GroovyLogManager.manager.log(TraceCategory.DSL, "Processing " + file.getName() + " in project " + project.getName());
             }
@@ -190,7 +231,10 @@ public class RefreshDSLDJob extends Job {
 
             if (isDSLD(file)) {
                 DSLDScriptExecutor executor = new DSLDScriptExecutor(JavaCore.create(project));
-                executor.executeScript(file);
+                executor.executeScript(file, scriptTexts.get(file));
+                if (executor.isExecuted()) {
+                    store.setScriptHash(file, scriptHashes.get(file));
+                }
             } else if (isSuggestionFile(file)) {
                 new SuggestionsLoader((IFile) file).loadExistingSuggestions();
             }
@@ -201,6 +245,9 @@ public class RefreshDSLDJob extends Job {
         }
         monitor.worked(6);
 
+        // index the pointcuts now so that inferencing threads find it ready
+        store.buildIndex();
+
         if (event != null) {
             GroovyLogManager.manager.logEnd(event, TraceCategory.DSL);
         }
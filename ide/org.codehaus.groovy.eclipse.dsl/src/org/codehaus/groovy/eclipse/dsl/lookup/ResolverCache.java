@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,8 +15,9 @@
  */
 package org.codehaus.groovy.eclipse.dsl.lookup;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.WeakHashMap;
 
 import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.ClassNode;
@@ -29,19 +30,54 @@ import org.eclipse.jdt.groovy.search.VariableScope;
 /**
  * A wrapper around the JDT resolver that caches resolve requests.
  * Handles classes with type parameters.
+ * <p>
+ * A cache is shared by the DSLD and suggestion lookups of one version of a
+ * module (see {@link #forModule}): the type lookups of every inferencing pass,
+ * content assist and hover on the unit until it is next reconciled.  It is not
+ * shared by the units of a project for two reasons.  Resolved types are nodes
+ * of the resolver, which initialize lazily through its lookup environment and
+ * must not outlive it (see {@link JDTResolver}).  And names, which may be
+ * simple, are resolved through the imports of the module, so neither found nor
+ * missing types carry over to other units.  A reconcile, including the one
+ * after a classpath change, builds a new module and so starts a new cache.
+ * The part of a lookup that does not depend on the unit, parsing the type
+ * name, is cached for all projects by {@link TypeSignature}.
  */
 public class ResolverCache {
 
-    private final Map<String, ClassNode> nameTypeCache;
+    /** Beyond this many names, the least recently used ones are dropped. */
+    private static final int MAX_CACHED = 1000;
+
+    /** resolved types, keyed by the requested name */
+    private final Map<String, ClassNode> nameTypeCache = newLruMap(MAX_CACHED);
+    /** unparameterized types, keyed by erasure name */
+    private final Map<String, ClassNode> erasureTypeCache = newLruMap(MAX_CACHED);
     private final JDTResolver resolver;
     public final ModuleNode module;
 
     public ResolverCache(JDTResolver resolver, ModuleNode module) {
-        this.nameTypeCache = new WeakHashMap<>();
         this.resolver = resolver;
         this.module = module;
     }
 
+    /**
+     * Returns the cache shared by all lookups for the given module and resolver.
+     */
+    public static ResolverCache forModule(JDTResolver resolver, ModuleNode module) {
+        if (module == null) {
+            return new ResolverCache(resolver, module);
+        }
+        synchronized (module) {
+            ResolverCache cache = module.getNodeMetaData(ResolverCache.class);
+            if (cache == null || cache.resolver != resolver) {
+                cache = new ResolverCache(resolver, module);
+                module.removeNodeMetaData(ResolverCache.class);
+                module.putNodeMetaData(ResolverCache.class, cache);
+            }
+            return cache;
+        }
+    }
+
     /**
      * Resolves a class name to a ClassNode.  Using the fully qualified type name,
      * or the array type signature for arrays.  Can specify type parameters, also
@@ -56,75 +92,71 @@ public class ResolverCache {
         }
         ClassNode type = nameTypeCache.get(name);
         if (type == null && resolver != null) {
-            int typeParamEnd = name.lastIndexOf('>');
-            int arrayStart = name.indexOf('[', typeParamEnd);
-            String componentName;
-            int arrayCount = 0;
-            if (arrayStart > 0) {
-                componentName = name.substring(0, arrayStart);
-                arrayCount = calculateArrayCount(name, arrayStart);
-            } else {
-                componentName = name;
-            }
+            type = resolve(TypeSignature.parse(name));
+            nameTypeCache.put(name, type);
+        }
+        return type;
+    }
 
-            String erasureName = componentName;
-            int typeParamStart = -1;
-            if (typeParamEnd > 0) {
-                typeParamStart = componentName.indexOf('<');
-                if (typeParamStart > 0) {
-                    erasureName = componentName.substring(0, typeParamStart);
-                }
-            }
-            type = resolver.resolve(erasureName);
+    private ClassNode resolve(TypeSignature signature) {
+        ClassNode type = erasureTypeCache.get(signature.erasureName);
+        if (type == null) {
+            type = resolver.resolve(signature.erasureName);
             if (type == null) {
                 type = VariableScope.OBJECT_CLASS_NODE;
             }
-            nameTypeCache.put(erasureName, type);
+            erasureTypeCache.put(signature.erasureName, type);
+        }
 
-            // now recur down through the type parameters
-            if (typeParamStart > 0 && type.isUsingGenerics()) {
-                String[] typeParameterNames = componentName.substring(typeParamStart + 1, componentName.length() - 1).split("\\s*,\\s*");
-                ClassNode[] typeParameterTypes = new ClassNode[typeParameterNames.length];
-                for (int i = 0; i < typeParameterNames.length; i += 1) {
-                    typeParameterTypes[i] = resolve(typeParameterNames[i].replaceFirst("^\\?\\s+(extends|super)\\s+", ""));
-                }
-                type = VariableScope.clone(type);
-                GenericsType[] genericsTypes = type.getGenericsTypes();
-                // need to be careful here...there may be too many or too few type parameters
-                for (int i = 0; i < genericsTypes.length && i < typeParameterTypes.length; i += 1) {
-                    if (typeParameterNames[i].startsWith("?")) {
-                        genericsTypes[i] = GenericsUtils.buildWildcardType(typeParameterTypes[i]);
-                    } else {
-                        genericsTypes[i].setPlaceholder(false); // must precede setType
-                        genericsTypes[i].setName(typeParameterTypes[i].getName());
-                        genericsTypes[i].setType(typeParameterTypes[i]);
-                        genericsTypes[i].setUpperBounds(null);
-                        genericsTypes[i].setLowerBound(null);
-                        genericsTypes[i].setWildcard(false);
-                    }
-                    genericsTypes[i].setResolved(true);
+        if (signature.typeArguments == null) {
+            type = GenericsUtils.nonGeneric(type);
+        } else if (type.isUsingGenerics()) {
+            type = VariableScope.clone(type);
+            GenericsType[] genericsTypes = type.getGenericsTypes();
+            // need to be careful here...there may be too many or too few type parameters
+            for (int i = 0; i < genericsTypes.length && i < signature.typeArguments.length; i += 1) {
+                TypeSignature typeArgument = signature.typeArguments[i];
+                ClassNode typeParameterType = resolve(typeArgument);
+                switch (typeArgument.wildcard) {
+                case UNBOUNDED:
+                case EXTENDS:
+                    genericsTypes[i] = GenericsUtils.buildWildcardType(typeParameterType);
+                    break;
+                case SUPER:
+                    genericsTypes[i] = new GenericsType(ClassHelper.makeWithoutCaching("?"), null, typeParameterType);
+                    genericsTypes[i].setWildcard(true);
+                    break;
+                case NONE:
+                    genericsTypes[i].setPlaceholder(false); // must precede setType
+                    genericsTypes[i].setName(typeParameterType.getName());
+                    genericsTypes[i].setType(typeParameterType);
+                    genericsTypes[i].setUpperBounds(null);
+                    genericsTypes[i].setLowerBound(null);
+                    genericsTypes[i].setWildcard(false);
+                    break;
                 }
-                nameTypeCache.put(componentName, type);
+                genericsTypes[i].setResolved(true);
             }
+        }
 
-            while (arrayCount > 0) {
-                arrayCount -= 1;
-                componentName += "[]";
-                type = type.makeArray();
-                nameTypeCache.put(componentName, type);
-            }
+        for (int i = 0; i < signature.arrayDimensions; i += 1) {
+            type = type.makeArray();
         }
-        return (name.indexOf('<') < 0 ? GenericsUtils.nonGeneric(type) : type);
+        return type;
     }
 
-    private int calculateArrayCount(String qName, int arrayStart) {
-        if (arrayStart < 0) {
-            return 0;
-        }
-        int cnt = 1;
-        while ((arrayStart = qName.indexOf('[', arrayStart + 1)) > 0) {
-            cnt += 1;
-        }
-        return cnt;
+    /**
+     * @return thread-safe map that drops its least recently used entry once it
+     *     holds more than {@code maxSize} entries
+     */
+    static <K, V> Map<K, V> newLruMap(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
     }
 }
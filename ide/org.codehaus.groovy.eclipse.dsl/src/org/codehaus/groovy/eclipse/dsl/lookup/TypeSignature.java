@@ -0,0 +1,181 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.lookup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed form of a type name as written in DSLD scripts and suggestions, like
+ * {@code java.util.Map<java.lang.String, java.util.List<? extends Number>>[]}.
+ * Names that cannot be parsed are kept whole as the erasure name, so that they
+ * resolve the same way as any other unknown name.
+ */
+final class TypeSignature {
+
+    enum Wildcard { NONE, UNBOUNDED, EXTENDS, SUPER }
+
+    /** Fully-qualified name of the type without type arguments and array dimensions. */
+    final String erasureName;
+
+    /** Type arguments or {@code null} if the name has none. */
+    final TypeSignature[] typeArguments;
+
+    final int arrayDimensions;
+
+    /** For a type argument, whether it is a wildcard and how this type bounds it. */
+    final Wildcard wildcard;
+
+    private TypeSignature(String erasureName, TypeSignature[] typeArguments, int arrayDimensions, Wildcard wildcard) {
+        this.erasureName = erasureName;
+        this.typeArguments = typeArguments;
+        this.arrayDimensions = arrayDimensions;
+        this.wildcard = wildcard;
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static final int MAX_CACHED = 2000;
+
+    /** Type names are plain strings, so parse results can be shared by all projects. */
+    private static final Map<String, TypeSignature> cache = ResolverCache.newLruMap(MAX_CACHED);
+
+    /**
+     * @param name type name with surrounding whitespace removed
+     */
+    static TypeSignature parse(String name) {
+        TypeSignature signature = cache.get(name);
+        if (signature == null) {
+            signature = new Parser(name).parseTop();
+            cache.put(name, signature);
+        }
+        return signature;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        TypeSignature parseTop() {
+            // array type signatures like "[Ljava.lang.String;" are left to the resolver
+            if (!text.startsWith("[")) {
+                TypeSignature signature = parseType();
+                skipWhitespace();
+                if (signature != null && pos == text.length()) {
+                    return signature;
+                }
+            }
+            return new TypeSignature(text, null, 0, Wildcard.NONE);
+        }
+
+        /**
+         * type := name ( '<' argument ( ',' argument )* '>' )? ( '[' ']' )*
+         */
+        private TypeSignature parseType() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < text.length() && isNameChar(text.charAt(pos))) {
+                pos += 1;
+            }
+            if (pos == start) {
+                return null;
+            }
+            String erasureName = text.substring(start, pos);
+
+            TypeSignature[] typeArguments = null;
+            skipWhitespace();
+            if (accept('<')) {
+                List<TypeSignature> arguments = new ArrayList<>();
+                do {
+                    TypeSignature argument = parseArgument();
+                    if (argument == null) {
+                        return null;
+                    }
+                    arguments.add(argument);
+                } while (accept(','));
+                if (!accept('>')) {
+                    return null;
+                }
+                typeArguments = arguments.toArray(new TypeSignature[arguments.size()]);
+            }
+
+            int dimensions = 0;
+            while (accept('[')) {
+                if (!accept(']')) {
+                    return null;
+                }
+                dimensions += 1;
+            }
+            return new TypeSignature(erasureName, typeArguments, dimensions, Wildcard.NONE);
+        }
+
+        /**
+         * argument := type | '?' ( ( 'extends' | 'super' ) type )?
+         */
+        private TypeSignature parseArgument() {
+            if (!accept('?')) {
+                return parseType();
+            }
+            Wildcard wildcard;
+            if (acceptKeyword("extends")) {
+                wildcard = Wildcard.EXTENDS;
+            } else if (acceptKeyword("super")) {
+                wildcard = Wildcard.SUPER;
+            } else {
+                return new TypeSignature("java.lang.Object", null, 0, Wildcard.UNBOUNDED);
+            }
+            TypeSignature type = parseType();
+            if (type == null) {
+                return null;
+            }
+            return new TypeSignature(type.erasureName, type.typeArguments, type.arrayDimensions, wildcard);
+        }
+
+        private boolean accept(char c) {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos += 1;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            skipWhitespace();
+            int end = pos + keyword.length();
+            if (text.startsWith(keyword, pos) && end < text.length() && !isNameChar(text.charAt(end))) {
+                pos = end;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos += 1;
+            }
+        }
+
+        private static boolean isNameChar(char c) {
+            return (c == '.' || Character.isJavaIdentifierPart(c));
+        }
+    }
+}
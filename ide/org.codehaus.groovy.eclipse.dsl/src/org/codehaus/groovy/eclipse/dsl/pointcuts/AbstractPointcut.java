@@ -17,9 +17,11 @@ package org.codehaus.groovy.eclipse.dsl.pointcuts;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import groovy.lang.Closure;
 
@@ -28,6 +30,7 @@ import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
 import org.codehaus.groovy.eclipse.dsl.contributions.DSLContributionGroup;
 import org.codehaus.groovy.eclipse.dsl.contributions.IContributionGroup;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext.Facet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.AndPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.NotPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.OrPointcut;
@@ -235,6 +238,64 @@ public abstract class AbstractPointcut implements IPointcut {
         return true;
     }
 
+    /**
+     * Returns the static requirement that the context must satisfy for this
+     * pointcut to match.  Used to index pointcuts by the cheap facets of the
+     * context so that non-candidates need not be evaluated.
+     *
+     * @return the facet or {@code null} if this pointcut may match any context
+     */
+    public PointcutFacet getFacet() {
+        return null;
+    }
+
+    /**
+     * @return the facet of the given argument, or {@code null} if it does not have one
+     */
+    protected static PointcutFacet getFacet(Object argument) {
+        return (argument instanceof AbstractPointcut ? ((AbstractPointcut) argument).getFacet() : null);
+    }
+
+    /**
+     * Returns the facets of the context that the outcome of {@link #matches}
+     * and the bindings it makes depend on.  The outcome of a top-level match
+     * is reused while these facets are unchanged.
+     *
+     * @return the facets or {@code null} if they are not known, in which case
+     *         the outcome is never reused
+     * @see GroovyDSLDContext#matchesPointcut(IPointcut)
+     */
+    public Set<Facet> getDependencies() {
+        return null;
+    }
+
+    /**
+     * Adds the dependencies of the pointcut arguments to the given facets.
+     *
+     * @param passesObjectToMatch {@code true} if the arguments are matched
+     *        against this pointcut's object to match rather than against
+     *        objects taken from the given facets
+     * @return the combined facets or {@code null} if an argument's are not known
+     */
+    protected final Set<Facet> dependsOn(boolean passesObjectToMatch, Facet... facets) {
+        Set<Facet> dependencies = EnumSet.noneOf(Facet.class);
+        Collections.addAll(dependencies, facets);
+        for (Object elt : elements.getElements()) {
+            if (elt instanceof IPointcut) {
+                Set<Facet> argumentDependencies = (elt instanceof AbstractPointcut ? ((AbstractPointcut) elt).getDependencies() : null);
+                if (argumentDependencies == null) {
+                    return null;
+                }
+                for (Facet facet : argumentDependencies) {
+                    if (passesObjectToMatch || facet != Facet.OBJECT_TO_MATCH) {
+                        dependencies.add(facet);
+                    }
+                }
+            }
+        }
+        return dependencies;
+    }
+
     @Override
     public void setProject(IProject project) {
         this.project = project;
@@ -15,8 +15,11 @@
  */
 package org.codehaus.groovy.eclipse.dsl.pointcuts;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -37,6 +40,32 @@ import org.eclipse.jdt.groovy.search.VariableScope;
  */
 public class GroovyDSLDContext {
 
+    /**
+     * Parts of the context that the outcome of a pointcut match may depend on.
+     *
+     * @see AbstractPointcut#getDependencies()
+     */
+    public enum Facet {
+        /** The object passed to {@link IPointcut#matches}; the current type for a top-level pointcut. */
+        OBJECT_TO_MATCH,
+        /** The type of the expression being analyzed. */
+        CURRENT_TYPE,
+        /** Whether the expression being analyzed is a primary expression. */
+        PRIMARY_NODE,
+        /** The expression being analyzed and its enclosing assignment. */
+        CURRENT_NODE,
+        /** The enclosing type declaration. */
+        ENCLOSING_TYPE,
+        /** The enclosing method or field declaration. */
+        ENCLOSING_MEMBER,
+        /** The innermost enclosing closure. */
+        ENCLOSING_CLOSURE,
+        /** The enclosing method calls. */
+        ENCLOSING_CALLS,
+        /** The file, its project and their properties; these do not change for a context. */
+        FILE
+    }
+
     public final String[] projectNatures;
 
     /**
@@ -85,9 +114,14 @@ public class GroovyDSLDContext {
 
     private boolean isPrimaryNode;
 
+    /** most recent outcome of each top-level pointcut that declares its dependencies */
+    private final Map<IPointcut, MatchResult> matchResults = new IdentityHashMap<>();
+
+    private int reusedMatchCount;
+
     public GroovyDSLDContext(GroovyCompilationUnit unit, ModuleNode module, JDTResolver jdtResolver) throws CoreException {
         this(getProjectNatures(unit), getFullPathToFile(unit), getPathToPackage(unit));
-        resolverCache = new ResolverCache(jdtResolver, module);
+        resolverCache = ResolverCache.forModule(jdtResolver, module);
         currentProject = unit.getJavaProject();
     }
 
@@ -228,6 +262,101 @@ public class GroovyDSLDContext {
         return false;
     }
 
+    /**
+     * Matches the pointcut against the current type, leaving the bindings that
+     * it makes in the current binding.  The outcome is reused for later matches
+     * of the same pointcut as long as the facets it depends on are unchanged.
+     *
+     * @return {@code true} if the pointcut matches
+     */
+    public boolean matchesPointcut(IPointcut pointcut) {
+        Set<Facet> dependencies = (pointcut instanceof AbstractPointcut ? ((AbstractPointcut) pointcut).getDependencies() : null);
+        if (dependencies == null) {
+            resetBinding();
+            return (pointcut.matches(this, targetType) != null);
+        }
+
+        List<Object> facetValues = getFacetValues(dependencies);
+        MatchResult previous = matchResults.get(pointcut);
+        if (previous != null && previous.isFor(facetValues)) {
+            reusedMatchCount += 1;
+            setCurrentBinding(previous.binding != null ? previous.binding : new BindingSet());
+            return (previous.binding != null);
+        }
+
+        resetBinding();
+        boolean matches = (pointcut.matches(this, targetType) != null);
+        matchResults.put(pointcut, new MatchResult(facetValues, matches ? currentBinding : null));
+        return matches;
+    }
+
+    /**
+     * @return number of pointcut matches that reused an earlier outcome
+     */
+    public int getReusedMatchCount() {
+        return reusedMatchCount;
+    }
+
+    private List<Object> getFacetValues(Set<Facet> facets) {
+        List<Object> values = new ArrayList<>();
+        for (Facet facet : facets) {
+            switch (facet) {
+            case OBJECT_TO_MATCH:
+            case CURRENT_TYPE:
+                values.add(targetType);
+                break;
+            case PRIMARY_NODE:
+                values.add(Boolean.valueOf(isPrimaryNode));
+                break;
+            case CURRENT_NODE:
+                values.add(currentScope.getCurrentNode());
+                values.add(currentScope.getWormhole().get("enclosingAssignment"));
+                break;
+            case ENCLOSING_TYPE:
+                values.add(currentScope.getEnclosingTypeDeclaration());
+                break;
+            case ENCLOSING_MEMBER:
+                values.add(currentScope.getEnclosingMethodDeclaration());
+                values.add(currentScope.getEnclosingFieldDeclaration());
+                break;
+            case ENCLOSING_CLOSURE:
+                values.add(currentScope.getEnclosingClosure());
+                break;
+            case ENCLOSING_CALLS:
+                values.addAll(currentScope.getAllEnclosingMethodCallExpressions());
+                values.add(null); // separator
+                break;
+            case FILE:
+                break;
+            }
+        }
+        return values;
+    }
+
+    private static final class MatchResult {
+        final List<Object> facetValues;
+        /** bindings of a successful match or {@code null} if the pointcut did not match */
+        final BindingSet binding;
+
+        MatchResult(List<Object> facetValues, BindingSet binding) {
+            this.facetValues = facetValues;
+            this.binding = binding;
+        }
+
+        boolean isFor(List<Object> values) {
+            int n = values.size();
+            if (n != facetValues.size()) {
+                return false;
+            }
+            for (int i = 0; i < n; i += 1) {
+                if (values.get(i) != facetValues.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     public void resetBinding() {
         setCurrentBinding(new BindingSet());
     }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.pointcuts;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A static requirement on the context that must be satisfied for a pointcut to
+ * match.  For example, {@code currentType("java.lang.String")} can only match
+ * when the current type's name is {@code java.lang.String}.  Facets are used to
+ * index pointcuts so that only candidates are evaluated for each expression.
+ *
+ * @see AbstractPointcut#getFacet()
+ */
+public final class PointcutFacet {
+
+    public enum Kind {
+        /** The name of the current type must be one of the values. */
+        CURRENT_TYPE,
+        /** The name of one of the enclosing method calls must be one of the values. */
+        ENCLOSING_CALL
+    }
+
+    public final Kind kind;
+
+    public final Set<String> values;
+
+    public PointcutFacet(Kind kind, String value) {
+        this(kind, Collections.singleton(value));
+    }
+
+    private PointcutFacet(Kind kind, Set<String> values) {
+        this.kind = kind;
+        this.values = Collections.unmodifiableSet(values);
+    }
+
+    /**
+     * @return facet satisfied if either of the given facets is satisfied or
+     *         {@code null} if the two cannot be combined
+     */
+    public static PointcutFacet union(PointcutFacet one, PointcutFacet two) {
+        if (one == null || two == null || one.kind != two.kind) {
+            return null;
+        }
+        Set<String> values = new LinkedHashSet<>(one.values);
+        values.addAll(two.values);
+        return new PointcutFacet(one.kind, values);
+    }
+
+    /**
+     * @return the more selective of the given facets, which must both be satisfied
+     */
+    public static PointcutFacet intersection(PointcutFacet one, PointcutFacet two) {
+        if (one == null) {
+            return two;
+        }
+        if (two == null) {
+            return one;
+        }
+        // current type is checked first and is more selective than enclosing calls
+        if (one.kind != two.kind) {
+            return (one.kind == Kind.CURRENT_TYPE ? one : two);
+        }
+        return (one.values.size() <= two.values.size() ? one : two);
+    }
+
+    @Override
+    public String toString() {
+        return kind + "" + values;
+    }
+}
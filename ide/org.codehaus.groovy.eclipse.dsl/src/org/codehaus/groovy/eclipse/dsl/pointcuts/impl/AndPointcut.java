@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,13 @@ package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Set;
 
 import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext.Facet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutFacet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.eclipse.core.resources.IStorage;
 
@@ -102,4 +105,21 @@ public class AndPointcut extends AbstractPointcut {
 //        }
 //        return this;
 //    }
+
+    /**
+     * All arguments must match, so any argument's facet applies.
+     */
+    @Override
+    public PointcutFacet getFacet() {
+        PointcutFacet facet = null;
+        for (Object arg : getArgumentValues()) {
+            facet = PointcutFacet.intersection(facet, getFacet(arg));
+        }
+        return facet;
+    }
+
+    @Override
+    public Set<Facet> getDependencies() {
+        return dependsOn(true);
+    }
 }
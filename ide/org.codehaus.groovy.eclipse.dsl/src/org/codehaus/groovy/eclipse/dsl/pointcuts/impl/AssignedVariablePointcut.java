@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,12 +17,14 @@ package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.codehaus.groovy.ast.Variable;
 import org.codehaus.groovy.ast.expr.BinaryExpression;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext.Facet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.eclipse.core.resources.IStorage;
@@ -76,4 +78,9 @@ public class AssignedVariablePointcut extends AbstractPointcut {
         }
         super.verify();
     }
+
+    @Override
+    public Set<Facet> getDependencies() {
+        return dependsOn(false, Facet.CURRENT_NODE);
+    }
 }
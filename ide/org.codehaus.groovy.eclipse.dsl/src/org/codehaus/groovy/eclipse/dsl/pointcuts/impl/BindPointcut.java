@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,13 @@
 package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 
 import java.util.Collection;
+import java.util.Set;
 
 import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext.Facet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutFacet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.eclipse.core.resources.IStorage;
 
@@ -52,4 +55,14 @@ public class BindPointcut extends AbstractPointcut {
             throw new PointcutVerificationException("A pointcut is required as the single argument to bind", this);
         }
     }
+
+    @Override
+    public PointcutFacet getFacet() {
+        return getFacet(getFirstArgument());
+    }
+
+    @Override
+    public Set<Facet> getDependencies() {
+        return dependsOn(true);
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,13 @@
 package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 
 import java.util.Collection;
+import java.util.Set;
 
 import org.codehaus.groovy.ast.expr.ConstantExpression;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.groovy.ast.expr.VariableExpression;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext.Facet;
 import org.eclipse.core.resources.IStorage;
 
 /**
@@ -49,4 +51,9 @@ public class CurrentIdentifierPointcut extends FilteringPointcut<Expression> {
         }
         return null;
     }
+
+    @Override
+    public Set<Facet> getDependencies() {
+        return dependsOn(false, Facet.CURRENT_NODE);
+    }
 }
@@ -17,10 +17,12 @@ package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
 
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext.Facet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.eclipse.core.resources.IStorage;
 
@@ -56,4 +58,9 @@ public class CurrentTypeIsEnclosingTypePointcut extends AbstractPointcut {
         }
         super.verify();
     }
+
+    @Override
+    public Set<Facet> getDependencies() {
+        return dependsOn(false, Facet.CURRENT_TYPE, Facet.ENCLOSING_TYPE);
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,14 @@ package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
 
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext.Facet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutFacet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.eclipse.core.resources.IStorage;
 
@@ -82,4 +85,20 @@ public class CurrentTypePointcut extends AbstractPointcut {
         }
         throw new PointcutVerificationException("This pointcut expects either no arguments or 1 String or 1 pointcut argument", this);
     }
-}
\ No newline at end of file
+
+    @Override
+    public PointcutFacet getFacet() {
+        Object firstArgument = getFirstArgument();
+        if (firstArgument instanceof String) {
+            return new PointcutFacet(PointcutFacet.Kind.CURRENT_TYPE, (String) firstArgument);
+        } else if (firstArgument instanceof Class) {
+            return new PointcutFacet(PointcutFacet.Kind.CURRENT_TYPE, ((Class<?>) firstArgument).getName());
+        }
+        return null;
+    }
+
+    @Override
+    public Set<Facet> getDependencies() {
+        return dependsOn(false, Facet.CURRENT_TYPE);
+    }
+}
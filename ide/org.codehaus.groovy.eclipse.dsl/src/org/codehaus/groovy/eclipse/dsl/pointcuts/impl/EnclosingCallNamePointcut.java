@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,10 +18,13 @@ package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext.Facet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutFacet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.eclipse.core.resources.IStorage;
 import org.eclipse.jdt.groovy.search.VariableScope.CallAndType;
@@ -86,4 +89,18 @@ public class EnclosingCallNamePointcut extends AbstractPointcut {
         }
         super.verify();
     }
-}
\ No newline at end of file
+
+    @Override
+    public PointcutFacet getFacet() {
+        Object firstArgument = getFirstArgument();
+        if (firstArgument instanceof String) {
+            return new PointcutFacet(PointcutFacet.Kind.ENCLOSING_CALL, (String) firstArgument);
+        }
+        return null;
+    }
+
+    @Override
+    public Set<Facet> getDependencies() {
+        return dependsOn(false, Facet.ENCLOSING_CALLS);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,13 @@ package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Set;
 
 import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext.Facet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutFacet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.eclipse.core.resources.IStorage;
 
@@ -87,4 +90,25 @@ public class OrPointcut extends AbstractPointcut {
             throw new PointcutVerificationException(allArgsArePointcuts, this);
         }
     }
+
+    /**
+     * Any argument may match, so every argument must have a facet of the same kind.
+     */
+    @Override
+    public PointcutFacet getFacet() {
+        Object[] args = getArgumentValues();
+        if (args.length == 0) {
+            return null;
+        }
+        PointcutFacet facet = getFacet(args[0]);
+        for (int i = 1; i < args.length && facet != null; i += 1) {
+            facet = PointcutFacet.union(facet, getFacet(args[i]));
+        }
+        return facet;
+    }
+
+    @Override
+    public Set<Facet> getDependencies() {
+        return dependsOn(true);
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2009-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.script;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import groovy.lang.GroovySystem;
+
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
+import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
+
+/**
+ * Keeps the class files of compiled DSLD scripts in the plug-in's state
+ * location so that scripts can be loaded without compiling them again after a
+ * restart.  Entries are keyed by script content hash, archives hash (the
+ * classes are linked against the types of the archives) and name, within
+ * a folder for the running Groovy version; folders of other versions are
+ * deleted when the cache is first used.
+ * <p>
+ * The entry each project's script uses is tracked.  An entry is deleted once
+ * no script uses it any more, for example after the project's archives change.
+ * Entries from earlier sessions are deleted, oldest first, when there are more
+ * than {@link #MAX_ENTRIES} entries.
+ */
+final class DSLDScriptCache {
+
+    private static final String FOLDER = "dsld-classes";
+
+    private static final String SUFFIX = ".classes";
+
+    private static final int MAX_ENTRIES = 256;
+
+    /** Names of the entries in use, by project and script name. */
+    private static final Map<String, Map<String, String>> references = new HashMap<>();
+
+    private static File location;
+
+    private DSLDScriptCache() {
+    }
+
+    /**
+     * @return class files of the script, keyed by class name with the script
+     *     class first, or {@code null} if the script is not in the cache
+     */
+    static Map<String, byte[]> load(String projectName, String contentHash, String archivesHash, String scriptName) {
+        File file = getFile(contentHash, archivesHash, scriptName);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int n = in.readInt();
+            Map<String, byte[]> classes = new LinkedHashMap<>(n * 2);
+            for (int i = 0; i < n; i += 1) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(name, bytes);
+            }
+            reference(projectName, scriptName, file.getName());
+            return classes;
+        } catch (IOException | RuntimeException e) {
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.DSL, "Discarding unreadable compiled script " + file + ": " + e);
+            }
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * @param classes class files of the script, keyed by class name with the script class first
+     */
+    static void store(String projectName, String contentHash, String archivesHash, String scriptName, Map<String, byte[]> classes) {
+        File file = getFile(contentHash, archivesHash, scriptName);
+        if (file == null) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(classes.size());
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            reference(projectName, scriptName, file.getName());
+            trim(file.getParentFile());
+        } catch (IOException e) {
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.DSL, "Failed to save compiled script " + file + ": " + e);
+            }
+            temp.delete();
+        }
+    }
+
+    /**
+     * Drops the entries used by scripts of the project that are no longer found
+     * and deletes the ones that no other script uses.
+     */
+    static synchronized void retain(String projectName, Collection<String> scriptNames) {
+        Map<String, String> entries = references.get(projectName);
+        if (entries != null) {
+            for (Iterator<Map.Entry<String, String>> it = entries.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<String, String> entry = it.next();
+                if (!scriptNames.contains(entry.getKey())) {
+                    it.remove();
+                    prune(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that the project's script uses the entry.  The entry the script
+     * used before is deleted if no other script uses it.
+     */
+    private static synchronized void reference(String projectName, String scriptName, String entryName) {
+        String previous = references.computeIfAbsent(projectName, x -> new HashMap<>()).put(scriptName, entryName);
+        if (previous != null && !previous.equals(entryName)) {
+            prune(previous);
+        }
+    }
+
+    private static void prune(String entryName) {
+        File folder = getLocation();
+        if (folder != null && !isReferenced(entryName)) {
+            new File(folder, entryName).delete();
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.DSL, "Deleted unused compiled script " + entryName);
+            }
+        }
+    }
+
+    private static boolean isReferenced(String entryName) {
+        for (Map<String, String> entries : references.values()) {
+            if (entries.containsValue(entryName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deletes the oldest entries that are not in use while there are more than
+     * {@link #MAX_ENTRIES}.
+     */
+    private static synchronized void trim(File folder) {
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files != null && files.length > MAX_ENTRIES) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            int excess = files.length - MAX_ENTRIES;
+            for (int i = 0; i < files.length && excess > 0; i += 1) {
+                if (!isReferenced(files[i].getName()) && files[i].delete()) {
+                    excess -= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes all compiled scripts of the running Groovy version.
+     */
+    static synchronized void clear() {
+        references.clear();
+        File folder = getLocation();
+        if (folder != null) {
+            File[] files = folder.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private static File getFile(String contentHash, String archivesHash, String scriptName) {
+        File folder = getLocation();
+        return (folder != null ? new File(folder, contentHash + '-' + archivesHash + '-' + scriptName + SUFFIX) : null);
+    }
+
+    private static synchronized File getLocation() {
+        if (location == null) {
+            GroovyDSLCoreActivator plugin = GroovyDSLCoreActivator.getDefault();
+            if (plugin == null) {
+                return null;
+            }
+            File root;
+            try {
+                root = plugin.getStateLocation().append(FOLDER).toFile();
+            } catch (IllegalStateException e) {
+                // no instance location
+                return null;
+            }
+            String version = GroovySystem.getVersion();
+            File[] folders = root.listFiles();
+            if (folders != null) {
+                for (File folder : folders) {
+                    if (!folder.getName().equals(version)) {
+                        delete(folder);
+                    }
+                }
+            }
+            File folder = new File(root, version);
+            if (!folder.isDirectory() && !folder.mkdirs()) {
+                return null;
+            }
+            location = folder;
+        }
+        return location;
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -16,14 +16,26 @@
 package org.codehaus.groovy.eclipse.dsl.script;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.ref.SoftReference;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import groovy.lang.Binding;
 import groovy.lang.Closure;
@@ -31,18 +43,29 @@ import groovy.lang.GroovyClassLoader;
 import groovy.lang.MissingMethodException;
 import groovy.lang.Script;
 
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
 import org.codehaus.groovy.runtime.IOGroovyMethods;
+import org.codehaus.groovy.tools.GroovyClass;
 import org.codehaus.jdt.groovy.integration.internal.GroovyLanguageSupport;
 import org.eclipse.core.internal.resources.ResourceException;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJarEntryResource;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.Version;
 import org.osgi.framework.wiring.BundleWiring;
@@ -52,16 +75,37 @@ import org.osgi.framework.wiring.BundleWiring;
  */
 public class DSLDScriptExecutor {
 
+    /**
+     * Compiled scripts from archives and external folders, keyed by content hash,
+     * archives and name.  The classes are compiled against and defined by a loader
+     * for the archive that contributes the script and the archives of the project's
+     * classpath (not its source folders), so projects with the same libraries
+     * share them.  Scripts in the workspace are compiled each time.  The class
+     * files of cached scripts are also kept on disk by {@link DSLDScriptCache} for
+     * use by later sessions.
+     */
+    private static final Map<String, SoftReference<Class<?>>> compiledScripts = new ConcurrentHashMap<>();
+
     private final IJavaProject project;
+    private List<File> archives;
     private PointcutFactory factory;
     private String scriptName;
+    private boolean executed;
 
     public DSLDScriptExecutor(IJavaProject project) {
         this.project = project;
     }
 
     public Object executeScript(IStorage scriptFile) {
+        return executeScript(scriptFile, null);
+    }
+
+    /**
+     * @param scriptText contents of the script or {@code null} to read them from the file
+     */
+    public Object executeScript(IStorage scriptFile, String scriptText) {
         scriptName = scriptFile.getName();
+        executed = false;
         String event = null;
         try {
             if (GroovyLogManager.manager.hasLoggers()) {
@@ -70,19 +114,36 @@ public class DSLDScriptExecutor {
             }
             factory = new PointcutFactory(scriptFile, project.getProject());
             try {
-                GroovyClassLoader classLoader = getGroovyClassLoader();
-                String scriptText = getContents(scriptFile);
-                @SuppressWarnings("rawtypes")
-                Class scriptType = null;
-                try {
-                    scriptType = classLoader.parseClass(scriptText, scriptName);
-                } catch (Exception e) {
-                    if (GroovyLogManager.manager.hasLoggers()) {
-                        StringWriter writer = new StringWriter();
-                        e.printStackTrace(new PrintWriter(writer));
-                        GroovyLogManager.manager.log(TraceCategory.DSL, "Attempted to compile " + scriptName + ", but failed because:\n" + writer.getBuffer());
+                if (scriptText == null) {
+                    scriptText = getContents(scriptFile);
+                }
+                String scriptHash = (scriptFile instanceof IFile ? null : contentHash(scriptText));
+                List<File> scriptArchives = (scriptHash != null ? getArchives(scriptFile) : null);
+                String archivesHash = (scriptHash != null ? getArchivesHash(scriptArchives) : null);
+                String cacheKey = (scriptHash != null ? scriptHash + '/' + archivesHash + '/' + scriptName : null);
+                Class<?> scriptType = null;
+                if (cacheKey != null) {
+                    SoftReference<Class<?>> reference = compiledScripts.get(cacheKey);
+                    if (reference != null) {
+                        scriptType = reference.get();
                     }
-                    return null;
+                }
+                if (scriptType == null) {
+                    try {
+                        scriptType = (scriptHash != null ? loadScript(scriptHash, archivesHash, scriptArchives, scriptText) : getGroovyClassLoader().parseClass(scriptText, scriptName));
+                    } catch (Exception e) {
+                        if (GroovyLogManager.manager.hasLoggers()) {
+                            StringWriter writer = new StringWriter();
+                            e.printStackTrace(new PrintWriter(writer));
+                            GroovyLogManager.manager.log(TraceCategory.DSL, "Attempted to compile " + scriptName + ", but failed because:\n" + writer.getBuffer());
+                        }
+                        return null;
+                    }
+                    if (cacheKey != null && Script.class.isAssignableFrom(scriptType)) {
+                        compiledScripts.put(cacheKey, new SoftReference<>(scriptType));
+                    }
+                } else if (GroovyLogManager.manager.hasLoggers()) {
+                    GroovyLogManager.manager.log(TraceCategory.DSL, "Reusing compiled script " + scriptName);
                 }
 
                 if (!Script.class.isAssignableFrom(scriptType)) {
@@ -95,7 +156,9 @@ public class DSLDScriptExecutor {
                 Script dsldScript = (Script) scriptType.newInstance();
                 dsldScript.setBinding(new DSLDScriptBinding(dsldScript));
 
-                return dsldScript.run();
+                Object result = dsldScript.run();
+                executed = true;
+                return result;
 
             } catch (UnsupportedDSLVersion e) {
                 if (GroovyLogManager.manager.hasLoggers()) {
@@ -113,7 +176,132 @@ public class DSLDScriptExecutor {
         }
     }
 
-    private static String getContents(IStorage file) throws IOException, CoreException {
+    /**
+     * Defines the classes of a script from an archive or external folder, using
+     * the class files saved by an earlier session if available.
+     */
+    private Class<?> loadScript(String scriptHash, String archivesHash, List<File> scriptArchives, String scriptText) throws MalformedURLException {
+        GroovyClassLoader loader = getGroovyClassLoader(scriptArchives);
+        Map<String, byte[]> classes = DSLDScriptCache.load(project.getElementName(), scriptHash, archivesHash, scriptName);
+        if (classes != null) {
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.DSL, "Loading saved compiled script " + scriptName);
+            }
+        } else {
+            CompilationUnit unit = new CompilationUnit(CompilerConfiguration.DEFAULT, null, loader);
+            unit.addSource(scriptName, scriptText);
+            unit.compile(Phases.CLASS_GENERATION);
+
+            classes = new LinkedHashMap<>();
+            classes.put(unit.getFirstClassNode().getName(), null);
+            for (Object generated : unit.getClasses()) {
+                GroovyClass groovyClass = (GroovyClass) generated;
+                classes.put(groovyClass.getName(), groovyClass.getBytes());
+            }
+            classes.values().remove(null);
+            DSLDScriptCache.store(project.getElementName(), scriptHash, archivesHash, scriptName, classes);
+        }
+
+        // define all classes before the script class is linked
+        Class<?> scriptType = null;
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Class<?> type = loader.defineClass(entry.getKey(), entry.getValue());
+            if (scriptType == null) {
+                scriptType = type;
+            }
+        }
+        return scriptType;
+    }
+
+    /**
+     * Discards compiled scripts kept in memory and in the plug-in's state location.
+     */
+    public static void clearCompiledScripts() {
+        compiledScripts.clear();
+        DSLDScriptCache.clear();
+    }
+
+    /**
+     * Releases the saved compiled scripts that the project's scripts other than
+     * the named ones were using.
+     */
+    public static void retainCompiledScripts(IJavaProject project, Collection<String> scriptNames) {
+        DSLDScriptCache.retain(project.getElementName(), scriptNames);
+    }
+
+    /**
+     * @return {@code true} if the last script was compiled and run to completion
+     */
+    public boolean isExecuted() {
+        return executed;
+    }
+
+    /**
+     * @return the archive that contributes the script, if any, followed by the
+     *     archives of the project's resolved classpath
+     */
+    private List<File> getArchives(IStorage scriptFile) {
+        if (archives == null) {
+            archives = new ArrayList<>();
+            try {
+                for (IClasspathEntry entry : project.getResolvedClasspath(true)) {
+                    if (entry.getEntryKind() == IClasspathEntry.CPE_LIBRARY) {
+                        File file = toFile(entry.getPath());
+                        if (file.isFile()) {
+                            archives.add(file);
+                        }
+                    }
+                }
+            } catch (JavaModelException e) {
+                GroovyDSLCoreActivator.logException(e);
+            }
+        }
+        List<File> scriptArchives = new ArrayList<>(archives.size() + 1);
+        if (scriptFile instanceof IJarEntryResource) {
+            File file = toFile(((IJarEntryResource) scriptFile).getPackageFragmentRoot().getPath());
+            if (file.isFile()) {
+                scriptArchives.add(file);
+            }
+        }
+        scriptArchives.addAll(archives);
+        return scriptArchives;
+    }
+
+    private static File toFile(IPath path) {
+        IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(path);
+        return (resource != null && resource.getLocation() != null ? resource.getLocation() : path).toFile();
+    }
+
+    /**
+     * @return digest of the archives; archives are identified by size and time
+     *     stamp as well as location
+     */
+    private static String getArchivesHash(List<File> archives) {
+        StringBuilder sb = new StringBuilder();
+        for (File file : archives) {
+            sb.append(File.pathSeparatorChar).append(file.getPath());
+            sb.append(':').append(file.length()).append(':').append(file.lastModified());
+        }
+        return contentHash(sb.toString());
+    }
+
+    /**
+     * @return hex-encoded SHA-1 digest of the script text
+     */
+    public static String contentHash(String scriptText) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(scriptText.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String getContents(IStorage file) throws IOException, CoreException {
         try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getContents()))) {
             return IOGroovyMethods.getText(br);
         } catch (ResourceException e) {
@@ -137,6 +325,21 @@ public class DSLDScriptExecutor {
         return GroovyLanguageSupport.newGroovyClassLoader(project, loader);
     }
 
+    /**
+     * Returns loader suitable for loading classes using the given archives and
+     * the workspace's Eclipse, Groovy and Java runtimes.
+     */
+    private static GroovyClassLoader getGroovyClassLoader(List<File> archives) throws MalformedURLException {
+        Bundle bundle = GroovyDSLCoreActivator.getDefault().getBundle();
+        ClassLoader loader = bundle.adapt(BundleWiring.class).getClassLoader();
+
+        URL[] urls = new URL[archives.size()];
+        for (int i = 0; i < urls.length; i += 1) {
+            urls[i] = archives.get(i).toURI().toURL();
+        }
+        return new GroovyClassLoader(new URLClassLoader(urls, loader));
+    }
+
     protected Object tryRegister(Object args) {
         Object[] nameAndClosure = extractArgsForRegister(args);
         if (nameAndClosure != null) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import org.codehaus.groovy.eclipse.dsl.DSLDStoreManager;
 import org.codehaus.groovy.eclipse.dsl.DSLPreferencesInitializer;
 import org.codehaus.groovy.eclipse.dsl.DisabledScriptsCache;
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
+import org.codehaus.groovy.eclipse.dsl.script.DSLDScriptExecutor;
 import org.codehaus.groovy.eclipse.editor.GroovyEditor;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.internal.filesystem.local.LocalFile;
@@ -398,7 +399,13 @@ public class DSLPreferencesPage extends PreferencePage implements IWorkbenchPref
             public IStatus runInUIThread(IProgressMonitor monitor) {
                 GroovyLogManager.manager.log(TraceCategory.DSL, EVENT);
                 GroovyLogManager.manager.logStart(EVENT);
-                GroovyDSLCoreActivator.getDefault().getContextStoreManager().initializeAll(true);
+                DSLDStoreManager manager = GroovyDSLCoreActivator.getDefault().getContextStoreManager();
+                // refresh keeps the pointcuts of unchanged scripts; purge them to force recompile
+                DSLDScriptExecutor.clearCompiledScripts();
+                for (String project : manager.getAllStores()) {
+                    manager.getDSLDStore(project).purgeAll();
+                }
+                manager.initializeAll(true);
                 if (!DSLPreferencesPage.this.getControl().isDisposed()) {
                     refresh();
                 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
  */
 package org.codehaus.groovy.eclipse.dsl.ui;
 
+import org.codehaus.groovy.eclipse.dsl.DSLDStoreManager;
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IProject;
@@ -30,7 +31,14 @@ public class RefreshDSLDFilesActionDelegate implements IWorkbenchWindowActionDel
 
     @Override
     public void run(IAction action) {
-        GroovyDSLCoreActivator.getDefault().getContextStoreManager().initialize(groovyProjects, false);
+        DSLDStoreManager manager = GroovyDSLCoreActivator.getDefault().getContextStoreManager();
+        // refresh keeps the pointcuts of unchanged scripts; purge them to force re-execution
+        for (IProject project : groovyProjects) {
+            if (project != null && manager.hasDSLDStoreFor(project)) {
+                manager.getDSLDStore(project).purgeAll();
+            }
+        }
+        manager.initialize(groovyProjects, false);
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,27 +18,44 @@ package org.codehaus.groovy.eclipse.mining.internal;
 import static org.codehaus.groovy.runtime.DefaultGroovyMethods.asBoolean;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
 import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.Parameter;
 import org.codehaus.groovy.ast.expr.ArgumentListExpression;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.groovy.ast.expr.MethodCall;
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.codeassist.completions.NamedArgsMethodNode;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
-import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
-import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.InferencingRecord;
 import org.eclipse.jdt.groovy.search.TypeLookupResult;
 import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.IViewportListener;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.codemining.AbstractCodeMiningProvider;
 import org.eclipse.jface.text.codemining.ICodeMining;
 import org.eclipse.jface.text.codemining.LineContentCodeMining;
+import org.eclipse.jface.text.source.ISourceViewerExtension5;
+import org.eclipse.swt.custom.StyledText;
 
 public class MethodParameterCodeMiningProvider extends AbstractCodeMiningProvider {
 
@@ -46,47 +63,195 @@ public class MethodParameterCodeMiningProvider extends AbstractCodeMiningProvide
     // TODO: "argN" from org.codehaus.groovy.vmplugin.v5.Java5.makeParameter(CompileUnit, Type, Class, Annotation[], Member)
     // TODO: "pN" org.codehaus.groovy.classgen.InnerClassVisitor.visitConstructorCallExpression(ConstructorCallExpression)
 
+    /**
+     * Computes code minings off of the common pool, which is shared with
+     * many other clients.  Few threads are needed since each viewer has at
+     * most one request queued at a time.
+     */
+    private static final ExecutorService EXECUTOR;
+    static {
+        int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Groovy Code Minings");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        EXECUTOR = executor;
+    }
+
+    private static final AtomicLong REQUESTED = new AtomicLong();
+    private static final AtomicLong CANCELLED = new AtomicLong();
+
+    /** Request that has been queued but not yet started. */
+    private final AtomicReference<CompletableFuture<List<? extends ICodeMining>>> pending = new AtomicReference<>();
+
+    private volatile ITextViewer viewer;
+    /** Document region shown by the viewer, with one screen of margin on either side. */
+    private volatile int[] visibleRegion;
+    /** Regions covered by the most recent minings. */
+    private volatile List<int[]> coveredRegions;
+
+    private final IViewportListener viewportListener = verticalOffset -> {
+        ITextViewer textViewer = viewer;
+        if (textViewer != null) {
+            int[] region = getVisibleRegion(textViewer);
+            visibleRegion = region;
+            // minings are computed only for the region that was visible; request more when scrolled beyond it
+            List<int[]> covered = coveredRegions;
+            if (covered != null && !covers(covered, region) && textViewer instanceof ISourceViewerExtension5) {
+                ((ISourceViewerExtension5) textViewer).updateCodeMinings();
+            }
+        }
+    };
+
     @Override
     public CompletableFuture<List<? extends ICodeMining>> provideCodeMinings(ITextViewer viewer, IProgressMonitor monitor) {
-        return CompletableFuture.supplyAsync(() -> {
-            if (!monitor.isCanceled()) {
-                GroovyCompilationUnit compilationUnit = getAdapter(GroovyCompilationUnit.class);
-                if (compilationUnit != null && compilationUnit.isConsistent() /*&& compilationUnit.isStructureKnown()*/) {
-                    final int[] lastLine = new int[1];
-                    List<ICodeMining> codeMinings = new ArrayList<>();
-                    TypeInferencingVisitorWithRequestor codeVisitor = new TypeInferencingVisitorFactory().createVisitor(compilationUnit);
-                    codeVisitor.visitCompilationUnit((ASTNode node, TypeLookupResult result, org.eclipse.jdt.core.IJavaElement enclosingElement) -> {
-                        if (node.getEnd() > 0 && !(node instanceof MethodNode) && result.declaration instanceof MethodNode && asBoolean(((MethodNode) result.declaration).getParameters())) {
-                            MethodCall methodCall = null;
-                            if (node instanceof MethodCall) {
-                                methodCall = (MethodCall) node;
-                            } else if (result.scope.getEnclosingNode() instanceof MethodCall) {
-                                methodCall = (MethodCall) result.scope.getEnclosingNode();
-                            }
-
-                            if (methodCall != null) {
-                                provideMethodCallCodeMinings(codeMinings, methodCall, (MethodNode) result.declaration, result.isGroovy);
-                            }
-
-                            // check cancel no more than once per line
-                            if (node.getLineNumber() > lastLine[0]) {
-                                lastLine[0] = node.getLineNumber();
-                                if (monitor.isCanceled()) {
-                                    return VisitStatus.STOP_VISIT;
-                                }
-                            }
+        trackViewport(viewer);
+        int[] region = visibleRegion;
+        if (region == null) {
+            region = new int[] {0, Integer.MAX_VALUE};
+        }
+
+        // a newer request supersedes one that has not started yet
+        CompletableFuture<List<? extends ICodeMining>> future = new CompletableFuture<>();
+        CompletableFuture<List<? extends ICodeMining>> superseded = pending.getAndSet(future);
+        if (superseded != null && superseded.complete(null)) {
+            CANCELLED.incrementAndGet();
+        }
+        REQUESTED.incrementAndGet();
+
+        long queued = System.nanoTime();
+        int[] requestedRegion = region;
+        EXECUTOR.execute(() -> {
+            if (!pending.compareAndSet(future, null)) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<? extends ICodeMining> codeMinings = null;
+            try {
+                if (!monitor.isCanceled()) {
+                    GroovyCompilationUnit compilationUnit = getAdapter(GroovyCompilationUnit.class);
+                    if (compilationUnit != null && compilationUnit.isConsistent() /*&& compilationUnit.isStructureKnown()*/) {
+                        codeMinings = provideCodeMinings(compilationUnit, requestedRegion, monitor);
+                    }
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            if (codeMinings == null && monitor.isCanceled()) {
+                CANCELLED.incrementAndGet();
+            }
+            future.complete(codeMinings);
+
+            if (GroovyLogManager.manager.hasLoggers()) {
+                long end = System.nanoTime();
+                GroovyLogManager.manager.log(TraceCategory.CODE_MINING, String.format(
+                    "Parameter minings: %s in %dms (%dms queued); %d of %d requests cancelled",
+                    codeMinings != null ? codeMinings.size() : "none", TimeUnit.NANOSECONDS.toMillis(end - start),
+                    TimeUnit.NANOSECONDS.toMillis(start - queued), CANCELLED.get(), REQUESTED.get()));
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void dispose() {
+        ITextViewer textViewer = viewer;
+        if (textViewer != null) {
+            textViewer.removeViewportListener(viewportListener);
+            viewer = null;
+        }
+        super.dispose();
+    }
+
+    private void trackViewport(ITextViewer textViewer) {
+        if (viewer == null) {
+            viewer = textViewer;
+            // requests arrive from the reconciler; viewport must be read from the display thread
+            StyledText widget = textViewer.getTextWidget();
+            if (widget != null && !widget.isDisposed()) {
+                widget.getDisplay().asyncExec(() -> {
+                    if (!widget.isDisposed() && viewer == textViewer) {
+                        textViewer.addViewportListener(viewportListener);
+                        visibleRegion = getVisibleRegion(textViewer);
+                    }
+                });
+            }
+        }
+    }
+
+    private static int[] getVisibleRegion(ITextViewer viewer) {
+        int start = viewer.getTopIndexStartOffset(), end = viewer.getBottomIndexEndOffset(), margin = end - start;
+        return new int[] {Math.max(0, start - margin), end + margin};
+    }
+
+    /**
+     * Provides the minings of the current module.  Minings are cached with the
+     * module, so each version of the unit is inferred once for each region.
+     *
+     * @return minings or {@code null} if cancelled
+     */
+    private List<? extends ICodeMining> provideCodeMinings(GroovyCompilationUnit compilationUnit, int[] region, IProgressMonitor monitor) {
+        ModuleNode module = compilationUnit.getModuleNode();
+        if (module == null) {
+            return null;
+        }
+        MiningCache cache;
+        synchronized (module) {
+            cache = module.getNodeMetaData(MiningCache.class);
+            if (cache == null) {
+                cache = new MiningCache();
+                module.putNodeMetaData(MiningCache.class, cache);
+            }
+        }
+
+        List<ICodeMining> codeMinings = new ArrayList<>();
+        synchronized (cache) {
+            if (!covers(cache.covered, region)) {
+                SortedMap<Integer, String> labels = new TreeMap<>();
+                InferencingRecord.replay(compilationUnit, (ASTNode node, TypeLookupResult result, org.eclipse.jdt.core.IJavaElement enclosingElement) -> {
+                    if (monitor.isCanceled()) {
+                        return VisitStatus.STOP_VISIT;
+                    }
+                    if (node.getEnd() > 0 && (node.getEnd() <= region[0] || node.getStart() >= region[1])) {
+                        // skip declarations outside of the region
+                        if (node instanceof ClassNode || node instanceof MethodNode || node instanceof FieldNode) {
+                            return VisitStatus.CANCEL_BRANCH;
                         }
                         return VisitStatus.CONTINUE;
-                    });
+                    }
+                    if (node.getEnd() > 0 && !(node instanceof MethodNode) && result.declaration instanceof MethodNode && asBoolean(((MethodNode) result.declaration).getParameters())) {
+                        MethodCall methodCall = null;
+                        if (node instanceof MethodCall) {
+                            methodCall = (MethodCall) node;
+                        } else if (result.scope.getEnclosingNode() instanceof MethodCall) {
+                            methodCall = (MethodCall) result.scope.getEnclosingNode();
+                        }
 
-                    return codeMinings;
+                        if (methodCall != null) {
+                            provideMethodCallCodeMinings(labels, methodCall, (MethodNode) result.declaration, result.isGroovy);
+                        }
+                    }
+                    return VisitStatus.CONTINUE;
+                });
+                if (monitor.isCanceled()) {
+                    return null;
                 }
+                labels.forEach(cache.labels::putIfAbsent);
+                cache.cover(region);
             }
-            return null;
-        });
+            coveredRegions = new ArrayList<>(cache.covered);
+
+            for (Map.Entry<Integer, String> label : cache.labels.entrySet()) {
+                codeMinings.add(newMethodParameterCodeMining(label.getKey(), label.getValue()));
+            }
+        }
+        return codeMinings;
     }
 
-    private void provideMethodCallCodeMinings(List<ICodeMining> codeMinings, MethodCall methodCall, MethodNode methodNode, boolean isGroovyMethod) {
+    private void provideMethodCallCodeMinings(Map<Integer, String> labels, MethodCall methodCall, MethodNode methodNode, boolean isGroovyMethod) {
         if (methodCall.getArguments() instanceof ArgumentListExpression) {
             //System.err.printf("name:%s, text:%s%n", methodCall.getMethodAsString(), methodCall.getText());
             // TODO: Calls to Closures are seen as method calls: "def code = { a, b -> ... }; code(1, 2);"
@@ -99,14 +264,47 @@ public class MethodParameterCodeMiningProvider extends AbstractCodeMiningProvide
             for (Expression argument : (ArgumentListExpression) methodCall.getArguments()) {
                 //if (argument instanceof MapExpression) continue; // try to skip named args
                 Parameter parameter = parameters[Math.min(i++, parameters.length - 1)];
-                codeMinings.add(newMethodParameterCodeMining(argument, parameter));
+                labels.putIfAbsent(argument.getStart(), parameter.getName() + ':');
             }
         }
     }
 
-    private ICodeMining newMethodParameterCodeMining(Expression argument, Parameter parameter) {
-        LineContentCodeMining codeMining = new LineContentCodeMining(new Position(argument.getStart(), 1), this) {};
-        codeMining.setLabel(parameter.getName() + ':');
+    private ICodeMining newMethodParameterCodeMining(int offset, String label) {
+        LineContentCodeMining codeMining = new LineContentCodeMining(new Position(offset, 1), this) {};
+        codeMining.setLabel(label);
         return codeMining;
     }
+
+    private static boolean covers(List<int[]> regions, int[] region) {
+        for (int[] covered : regions) {
+            if (covered[0] <= region[0] && region[1] <= covered[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Parameter labels of one version of a unit, keyed by argument offset, and
+     * the regions of the unit they have been computed for.
+     */
+    private static final class MiningCache {
+        final SortedMap<Integer, String> labels = new TreeMap<>();
+        final List<int[]> covered = new ArrayList<>();
+
+        void cover(int[] region) {
+            covered.add(region.clone());
+            covered.sort(Comparator.comparingInt(r -> r[0]));
+            // merge overlapping or adjacent regions
+            for (int i = covered.size() - 1; i > 0; i -= 1) {
+                int[] prev = covered.get(i - 1), next = covered.get(i);
+                if (next[0] <= prev[1]) {
+                    prev[1] = Math.max(prev[1], next[1]);
+                    covered.remove(i);
+                }
+            }
+        }
+    }
 }
@@ -15,6 +15,9 @@
  */
 package org.codehaus.groovy.eclipse.refactoring.formatter;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,6 +28,7 @@ import org.codehaus.groovy.antlr.GroovyTokenTypeBridge;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.jdt.groovy.core.util.GroovyScanner;
+import org.eclipse.jdt.groovy.core.util.GroovyScanner.LexerState;
 import org.eclipse.jdt.internal.core.util.Util;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DocumentEvent;
@@ -36,9 +40,14 @@ import org.eclipse.jface.text.ITextSelection;
  * Provides methods to retrieve tokens for a given IDocument presumed to
  * contain Groovy source code.
  * <p>
- * A sophisticated implementation could try to work incrementally and invalidate
- * only some tokens when the document is changed. This implementation is rather
- * naive and clears the whole cache on every document change.
+ * Scanning is incremental: tokens are only produced up to the offset of
+ * interest and the lexer state is recorded at the start of each line (after
+ * every newline token) so that scanning can be resumed from there. When the
+ * document is changed, tokens up to the last recorded state before the change
+ * are kept and tokens after the change are shifted and kept aside. Lexing is
+ * restarted from the recorded state and the kept tokens are reused as soon as
+ * the lexer reaches the start of a line beyond the change in the same state it
+ * was in before.
  */
 public class GroovyDocumentScanner implements IDocumentListener {
 
@@ -57,8 +66,35 @@ public class GroovyDocumentScanner implements IDocumentListener {
      */
     protected List<Token> tokens;
 
+    /**
+     * Lexer states at which scanning of {@link #tokens} may be resumed. This
+     * may be null before we have started reading tokens.
+     */
+    private List<Checkpoint> checkpoints;
+
+    /**
+     * Tokens following the most recent document change, which may be appended
+     * to {@link #tokens} once the lexer is found to be in a matching state.
+     */
+    private List<Token> reusableTokens;
+
+    private List<Checkpoint> reusableCheckpoints;
+
+    /** Indicates that {@link #reusableTokens} extend to the end of file. */
+    private boolean reusableComplete;
+
+    /** Index of the first of {@link #reusableCheckpoints} not yet passed by the lexer. */
+    private int nextReusableCheckpoint;
+
+    /**
+     * Lexer positioned just after the last of the {@link #tokens}. Null if
+     * scanning must be restarted from the last checkpoint.
+     */
     private GroovyScanner tokenScanner;
 
+    /** Indicates that {@link #tokens} extend to the end of file. */
+    private boolean complete;
+
     /** At most this number of scanner errors will be reported */
     private static int logLimit = 4;
 
@@ -73,11 +109,92 @@ public class GroovyDocumentScanner implements IDocumentListener {
 
     @Override
     public void documentChanged(DocumentEvent event) {
-        reset();
     }
 
     @Override
     public void documentAboutToBeChanged(DocumentEvent event) {
+        if (tokens == null) {
+            return;
+        }
+        if (checkpoints == null) {
+            // tokens were not produced by incremental scanning
+            reset();
+            return;
+        }
+        // lexer reads from the document, which is about to change
+        tokenScanner = null;
+        try {
+            String text = event.getText() != null ? event.getText() : "";
+            int damageStartOffset = event.getOffset(), damageEndOffset = damageStartOffset + event.getLength();
+
+            int startLine = document.getLineOfOffset(damageStartOffset);
+            int startCol = damageStartOffset - document.getLineOffset(startLine) + 1;
+            int endLine = document.getLineOfOffset(damageEndOffset);
+            int endCol = damageEndOffset - document.getLineOffset(endLine) + 1;
+            startLine += 1; endLine += 1; // antlr lines start at 1
+
+            // position of the end of the replacement text
+            int newEndLine = startLine + document.computeNumberOfLines(text), newEndCol;
+            if (newEndLine == startLine) {
+                newEndCol = startCol + text.length();
+            } else {
+                int i = text.length();
+                while (i > 0 && text.charAt(i - 1) != '\n' && text.charAt(i - 1) != '\r') {
+                    i -= 1;
+                }
+                newEndCol = text.length() - i + 1;
+            }
+
+            long damageStart = position(startLine, startCol), damageEnd = position(endLine, endCol);
+
+            // collect the tokens after the damaged region that may be reused
+            List<Token> tailTokens;
+            List<Checkpoint> tailCheckpoints;
+            boolean tailComplete;
+            if (reusableTokens != null) {
+                tailTokens = reusableTokens;
+                tailCheckpoints = reusableCheckpoints;
+                tailComplete = reusableComplete;
+            } else {
+                tailTokens = tokens;
+                tailCheckpoints = checkpoints;
+                tailComplete = complete;
+            }
+            int firstTailCheckpoint = NOT_FOUND;
+            for (int i = tailCheckpoints.size() - 1; i >= 0 && tailCheckpoints.get(i).position() >= damageEnd; i -= 1) {
+                firstTailCheckpoint = i;
+            }
+            if (firstTailCheckpoint == NOT_FOUND) {
+                reusableTokens = null;
+                reusableCheckpoints = null;
+            } else {
+                int tokenOffset = tailCheckpoints.get(firstTailCheckpoint).tokenIndex;
+                List<Token> shiftedTokens = new ArrayList<>(tailTokens.size() - tokenOffset);
+                for (Token token : tailTokens.subList(tokenOffset, tailTokens.size())) {
+                    shiftedTokens.add(shift(token, endLine, endCol, newEndLine, newEndCol));
+                }
+                List<Checkpoint> shiftedCheckpoints = new ArrayList<>(tailCheckpoints.size() - firstTailCheckpoint);
+                for (Checkpoint checkpoint : tailCheckpoints.subList(firstTailCheckpoint, tailCheckpoints.size())) {
+                    shiftedCheckpoints.add(checkpoint.shift(tokenOffset, endLine, endCol, newEndLine, newEndCol));
+                }
+                reusableTokens = shiftedTokens;
+                reusableCheckpoints = shiftedCheckpoints;
+                reusableComplete = tailComplete;
+                nextReusableCheckpoint = 0;
+            }
+
+            // keep the tokens up to the last checkpoint before the damaged region
+            int lastCheckpoint = checkpoints.size() - 1;
+            while (lastCheckpoint >= 0 && checkpoints.get(lastCheckpoint).position() >= damageStart) {
+                lastCheckpoint -= 1;
+            }
+            int tokenCount = (lastCheckpoint >= 0 ? checkpoints.get(lastCheckpoint).tokenIndex : 0);
+            tokens = new ArrayList<>(tokens.subList(0, Math.min(tokenCount, tokens.size())));
+            checkpoints = new ArrayList<>(checkpoints.subList(0, lastCheckpoint + 1));
+            complete = false;
+        } catch (BadLocationException e) {
+            reset();
+        }
     }
 
     /**
@@ -85,35 +202,92 @@ public class GroovyDocumentScanner implements IDocumentListener {
      * scanned tokens, to ensure that we have scanned the file at least upto the
      * position that we are interested in.
      * <p>
-     * Current implementation is very naive and just scans the whole file at
-     * once. A smarter implementation could stop scanning when the position of
-     * interest is reached, and keep enough state to be able to scan onward
-     * later if a request for tokens requires it.
+     * Scanning stops at the first token that starts at or after the given
+     * offset; a later request for tokens further on resumes from there.
      */
     protected void ensureScanned(int end) {
         if (tokens == null) {
-            // We haven't started scanning yet. Initialise the scanner and token list.
-            tokenScanner = new GroovyScanner(document.get());
-            tokens = getTokensIncludingEOF();
+            // We haven't started scanning yet. Initialise the token list.
+            tokens = new ArrayList<>();
+            checkpoints = new ArrayList<>();
+            complete = false;
         }
-    }
-
-    private List<Token> getTokensIncludingEOF() {
-        List<Token> result = new ArrayList<>();
-        Token token;
         try {
-            do {
-                token = nextToken();
-                result.add(token);
-            } while (token.getType() != GroovyTokenTypeBridge.EOF);
+            while (!complete && (tokens.isEmpty() || getStartOffset(tokens.get(tokens.size() - 1)) < end)) {
+                if (tokenScanner == null) {
+                    restartScanner();
+                }
+                Token token = nextToken();
+                tokens.add(token);
+                if (token.getType() == GroovyTokenTypeBridge.EOF) {
+                    complete = true;
+                    reusableTokens = null;
+                    reusableCheckpoints = null;
+                } else if (token.getType() == GroovyTokenTypeBridge.NLS) {
+                    GroovySourceToken nls = (GroovySourceToken) token;
+                    Checkpoint checkpoint = new Checkpoint(tokens.size(), nls.getLineLast(), nls.getColumnLast(), tokenScanner.getState());
+                    checkpoints.add(checkpoint);
+                    if (reusableTokens != null) {
+                        tryResync(checkpoint);
+                    }
+                }
+            }
         } catch (BadLocationException bad) {
             // document may be unreconciled
+            complete = true;
         } catch (Exception e) {
+            complete = true;
             if (logLimit-- > 0) {
                 Util.log(e);
             }
         }
-        return result;
+    }
+
+    /**
+     * Starts a new lexer at the last checkpoint, discarding any tokens scanned
+     * after it.
+     */
+    private void restartScanner() throws BadLocationException {
+        if (checkpoints.isEmpty()) {
+            tokens.clear();
+            tokenScanner = new GroovyScanner(new BufferedReader(new DocumentReader(document, 0)), false);
+        } else {
+            Checkpoint checkpoint = checkpoints.get(checkpoints.size() - 1);
+            if (checkpoint.tokenIndex < tokens.size()) {
+                tokens.subList(checkpoint.tokenIndex, tokens.size()).clear();
+            }
+            int offset = GroovyScanner.getOffset(document, checkpoint.line, checkpoint.column);
+            tokenScanner = new GroovyScanner(new BufferedReader(new DocumentReader(document, offset)), false,
+                checkpoint.line, checkpoint.column, checkpoint.state);
+        }
+    }
+
+    /**
+     * Appends the reusable tokens if the lexer has reached the position of one
+     * of their checkpoints in the same state.
+     */
+    private void tryResync(Checkpoint checkpoint) {
+        long position = checkpoint.position();
+        while (nextReusableCheckpoint < reusableCheckpoints.size() && reusableCheckpoints.get(nextReusableCheckpoint).position() < position) {
+            nextReusableCheckpoint += 1;
+        }
+        if (nextReusableCheckpoint >= reusableCheckpoints.size()) {
+            reusableTokens = null;
+            reusableCheckpoints = null;
+        } else {
+            Checkpoint candidate = reusableCheckpoints.get(nextReusableCheckpoint);
+            if (candidate.position() == position && candidate.state.equals(checkpoint.state)) {
+                int tokenDelta = tokens.size() - candidate.tokenIndex;
+                tokens.addAll(reusableTokens.subList(candidate.tokenIndex, reusableTokens.size()));
+                for (Checkpoint reusable : reusableCheckpoints.subList(nextReusableCheckpoint + 1, reusableCheckpoints.size())) {
+                    checkpoints.add(reusable.reindex(tokenDelta));
+                }
+                complete = reusableComplete;
+                tokenScanner = null;
+                reusableTokens = null;
+                reusableCheckpoints = null;
+            }
+        }
     }
 
     private Token nextToken() throws TokenStreamException, BadLocationException {
@@ -130,11 +304,115 @@ public class GroovyDocumentScanner implements IDocumentListener {
     }
 
     /**
-     * Called upon initialisation and upon any change to the document to
-     * invalidate the list of cached tokens.
+     * Called upon initialisation and upon any change to the document that
+     * cannot be handled incrementally to invalidate the list of cached tokens.
      */
-    private void reset() {
+    protected void reset() {
         tokens = null;
+        checkpoints = null;
+        reusableTokens = null;
+        reusableCheckpoints = null;
+        tokenScanner = null;
+        complete = false;
+    }
+
+    private int getStartOffset(Token token) throws BadLocationException {
+        return GroovyScanner.getOffset(document, token.getLine(), token.getColumn());
+    }
+
+    private static long position(int line, int column) {
+        return ((long) line << 32) | column;
+    }
+
+    /**
+     * Creates a copy of the token relocated for a document change that ended at
+     * {@code (endLine, endCol)} before the change and ends at {@code (newEndLine,
+     * newEndCol)} after. The token must start at or after the end of the change.
+     */
+    private static Token shift(Token token, int endLine, int endCol, int newEndLine, int newEndCol) {
+        GroovySourceToken copy = new GroovySourceToken(token.getType());
+        copy.setText(token.getText());
+        copy.setLine(shiftLine(token.getLine(), endLine, newEndLine));
+        copy.setColumn(shiftColumn(token.getLine(), token.getColumn(), endLine, endCol, newEndCol));
+        if (token instanceof GroovySourceToken) {
+            GroovySourceToken gToken = (GroovySourceToken) token;
+            copy.setLineLast(shiftLine(gToken.getLineLast(), endLine, newEndLine));
+            copy.setColumnLast(shiftColumn(gToken.getLineLast(), gToken.getColumnLast(), endLine, endCol, newEndCol));
+        } else {
+            copy.setLineLast(copy.getLine());
+            copy.setColumnLast(copy.getColumn());
+        }
+        return copy;
+    }
+
+    private static int shiftLine(int line, int endLine, int newEndLine) {
+        return line - endLine + newEndLine;
+    }
+
+    private static int shiftColumn(int line, int column, int endLine, int endCol, int newEndCol) {
+        return (line == endLine ? column - endCol + newEndCol : column);
+    }
+
+    /**
+     * Lexer state at the start of a line, together with the number of tokens
+     * that precede it.
+     */
+    private static class Checkpoint {
+        final int tokenIndex;
+        final int line, column;
+        final LexerState state;
+
+        Checkpoint(int tokenIndex, int line, int column, LexerState state) {
+            this.tokenIndex = tokenIndex;
+            this.line = line;
+            this.column = column;
+            this.state = state;
+        }
+
+        long position() {
+            return position(line, column);
+        }
+
+        Checkpoint shift(int tokenOffset, int endLine, int endCol, int newEndLine, int newEndCol) {
+            return new Checkpoint(tokenIndex - tokenOffset,
+                shiftLine(line, endLine, newEndLine), shiftColumn(line, column, endLine, endCol, newEndCol), state);
+        }
+
+        Checkpoint reindex(int tokenDelta) {
+            return new Checkpoint(tokenIndex + tokenDelta, line, column, state);
+        }
+    }
+
+    /**
+     * Reads the contents of a document from a given offset onward.
+     */
+    private static class DocumentReader extends Reader {
+        private final IDocument document;
+        private int offset;
+
+        DocumentReader(IDocument document, int offset) {
+            this.document = document;
+            this.offset = offset;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int n = Math.min(len, document.getLength() - offset);
+            if (n <= 0) {
+                return -1;
+            }
+            try {
+                document.get(offset, n).getChars(0, n, cbuf, off);
+            } catch (BadLocationException e) {
+                throw new IOException(e);
+            }
+            offset += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
     }
 
     /**
@@ -255,7 +533,8 @@ public class GroovyDocumentScanner implements IDocumentListener {
                 endTokenIndex = endTokenIndex - 1;
             }
             Assert.isTrue(startTokenIndex <= endTokenIndex);
-            return tokens.subList(startTokenIndex, endTokenIndex + 1);
+            // copy, since further scanning may append to the token list
+            return new ArrayList<>(tokens.subList(startTokenIndex, endTokenIndex + 1));
         } catch (BadLocationException e) {
             throw new Error(e);
         }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,12 +17,27 @@ package org.codehaus.groovy.eclipse.editor.highlighting;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.preferences.PreferenceConstants;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+import org.eclipse.jdt.groovy.search.InferencingRecord;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
-import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 /**
@@ -32,17 +47,29 @@ import org.eclipse.jface.preference.IPreferenceStore;
 public class GatherSemanticReferences {
 
     private final GroovyCompilationUnit unit;
+    private char[] source;
 
     public GatherSemanticReferences(GroovyCompilationUnit unit) {
         this.unit = isSemanticHighlightingEnabled() ? unit : null;
     }
 
+    /**
+     * @return contents of the working copy the references were last collected
+     *     from or {@code null} if unknown
+     */
+    public char[] getSource() {
+        return source;
+    }
+
     public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences() {
         if (unit != null) {
-            try { // TODO: Time this tasks components and find opportunities to make it run faster.
+            try {
+                ModuleNode module = getWorkingCopyModule(unit);
+                char[] contents = unit.getContents();
                 SemanticHighlightingReferenceRequestor requestor = new SemanticHighlightingReferenceRequestor(unit);
-                TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
-                visitor.visitCompilationUnit(requestor);
+                InferencingRecord.replay(unit, requestor);
+                // unit may have been edited during the visit
+                source = (module != null && getWorkingCopyModule(unit) == module ? contents : null);
                 return requestor.typedPositions;
             } catch (Exception e) {
                 GroovyCore.logException("Semantic highlighting gather failed", e);
@@ -51,6 +78,177 @@ public class GatherSemanticReferences {
         return Collections.emptySet();
     }
 
+    /**
+     * Collects semantic references, reusing the references of a previous version
+     * of the unit for methods and fields that are entirely outside of the changed
+     * region.  Their type inferencing is skipped and their positions are shifted
+     * to account for the change.  Reuse is limited to changes within the body of
+     * a method or constructor with a declared return type, since other edits may
+     * alter the meaning of references elsewhere -- the inferred return type of a
+     * {@code def} method, for example, depends on its body and determines the
+     * highlighting of its call sites; all other cases get a complete pass.  The sources of both versions must match
+     * outside of the changed region, which guards against edits the caller did
+     * not see, like one made while the previous references were collected.
+     *
+     * @param previous references of the previous version in increasing lexical order
+     * @param previousSource source of the previous version (see {@link #getSource()})
+     * @param changeStart start offset of the changed region in the current version
+     * @param changeEnd end offset of the changed region in the current version
+     * @param delta difference in length between the current and previous versions
+     */
+    public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences(
+            List<HighlightedTypedPosition> previous, char[] previousSource, int changeStart, int changeEnd, int delta) {
+        if (unit != null && previous != null) {
+            try {
+                ModuleNode module = unit.getModuleNode();
+                char[] contents = unit.getContents();
+                if (isChangedWithin(previousSource, contents, changeStart, changeEnd, delta) && isWithinMethodBody(module, changeStart, changeEnd)) {
+                    SemanticHighlightingReferenceRequestor requestor = new SemanticHighlightingReferenceRequestor(unit);
+                    Map<IJavaElement, Boolean> reused = new HashMap<>();
+                    factory.createVisitor(unit).visitCompilationUnit((node, result, enclosingElement) -> {
+                        if ((enclosingElement instanceof IMethod || enclosingElement instanceof IField) &&
+                                reused.computeIfAbsent(enclosingElement, member -> reusePositions((IMember) member,
+                                    previous, changeStart, changeEnd, delta, requestor.typedPositions))) {
+                            return VisitStatus.CANCEL_MEMBER;
+                        }
+                        return requestor.acceptASTNode(node, result, enclosingElement);
+                    });
+                    // unit may have been reconciled again during the visit
+                    if (unit.getModuleNode() == module) {
+                        source = contents;
+                        return requestor.typedPositions;
+                    }
+                }
+            } catch (Exception e) {
+                GroovyCore.logException("Semantic highlighting gather failed", e);
+            }
+        }
+        return findSemanticHighlightingReferences();
+    }
+
+    /**
+     * @return module of the working copy or {@code null} if the unit is not a working copy
+     */
+    private static ModuleNode getWorkingCopyModule(GroovyCompilationUnit unit) {
+        ModuleNodeInfo info = unit.getModuleInfo(false);
+        return (info != null ? info.module : null);
+    }
+
+    /**
+     * Tells if the sources differ only within the changed region.
+     *
+     * @param start start offset of the changed region in the current source
+     * @param end end offset of the changed region in the current source
+     * @param delta difference in length between the current and previous sources
+     */
+    private static boolean isChangedWithin(char[] previous, char[] current, int start, int end, int delta) {
+        if (previous == null || current == null || current.length != previous.length + delta ||
+                start < 0 || end < start || end - delta < start || end > current.length) {
+            return false;
+        }
+        for (int i = 0; i < start; i += 1) {
+            if (current[i] != previous[i]) {
+                return false;
+            }
+        }
+        for (int i = end; i < current.length; i += 1) {
+            if (current[i] != previous[i - delta]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells if the range is within the body of a method or constructor and each
+     * method that encloses it (like one of an anonymous inner class within the
+     * body of another) has a declared, non-dynamic return type.
+     */
+    private static boolean isWithinMethodBody(ModuleNode module, int start, int end) {
+        if (start < 0 || end < start) {
+            return false;
+        }
+        boolean enclosed = false;
+        for (ClassNode type : module.getClasses()) {
+            for (MethodNode method : type.getMethods()) {
+                if (isWithinMethodBody(method, start, end)) {
+                    if (method.isDynamicReturnType()) {
+                        return false;
+                    }
+                    enclosed = true;
+                }
+            }
+            for (MethodNode method : type.getDeclaredConstructors()) {
+                if (isWithinMethodBody(method, start, end)) {
+                    enclosed = true;
+                }
+            }
+        }
+        return enclosed;
+    }
+
+    private static boolean isWithinMethodBody(MethodNode method, int start, int end) {
+        Statement code = method.getCode();
+        // script body contains script variable declarations and may enclose other members
+        return (code != null && !method.isScriptBody() && code.getEnd() > 0 && code.getStart() < start && end < code.getEnd());
+    }
+
+    /**
+     * Copies the previous positions within the member's source range if the
+     * member is not affected by the change.
+     *
+     * @return {@code true} if the member's positions have been reused
+     */
+    private static boolean reusePositions(IMember member, List<HighlightedTypedPosition> previous,
+            int changeStart, int changeEnd, int delta, Collection<HighlightedTypedPosition> positions) {
+        ISourceRange range;
+        try {
+            range = member.getSourceRange();
+        } catch (JavaModelException e) {
+            return false;
+        }
+        if (range == null || range.getOffset() < 0 || range.getLength() < 1) {
+            return false;
+        }
+        int start = range.getOffset(), end = start + range.getLength(), shift;
+        if (end <= changeStart) {
+            shift = 0;
+        } else if (start >= changeEnd) {
+            shift = delta;
+        } else {
+            return false;
+        }
+
+        start -= shift;
+        end -= shift;
+        for (int i = indexOf(previous, start), n = previous.size(); i < n; i += 1) {
+            HighlightedTypedPosition pos = previous.get(i);
+            if (pos.getOffset() >= end) {
+                break;
+            }
+            if (pos.getOffset() + pos.getLength() <= end) {
+                positions.add(new HighlightedTypedPosition(pos.getOffset() + shift, pos.getLength(), pos.kind));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return index of the first position at or after the offset
+     */
+    private static int indexOf(List<HighlightedTypedPosition> positions, int offset) {
+        int lo = 0, hi = positions.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (positions.get(mid).getOffset() < offset) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
     private static boolean isSemanticHighlightingEnabled() {
         IPreferenceStore prefs = PreferenceConstants.getPreferenceStore();
         return prefs.getBoolean(PreferenceConstants.GROOVY_SEMANTIC_HIGHLIGHTING);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,8 +23,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -44,6 +42,9 @@ import org.eclipse.jdt.internal.ui.text.JavaPresentationReconciler;
 import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.preference.PreferenceConverter;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.TextAttribute;
 import org.eclipse.jface.text.TextPresentation;
@@ -100,6 +101,12 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
     private SemanticHighlightingPresenter presenter;
     private final Semaphore lock = new Semaphore(1, true);
 
+    private IDocument document;
+    private final ChangedRegion changes = new ChangedRegion();
+    // references from the last pass, in the coordinates of its source
+    private List<HighlightedTypedPosition> previousReferences;
+    private char[] previousSource;
+
     // make these configurable
     private Object mapKeyHighlighting;
     private Object tagKeyHighlighting;
@@ -219,9 +226,19 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
         this.editor = editor;
         presenter = new SemanticHighlightingPresenter();
         presenter.install(viewer, (JavaPresentationReconciler) editor.getGroovyConfiguration().getPresentationReconciler(viewer));
+        document = viewer.getDocument();
+        if (document != null) {
+            document.addDocumentListener(changes);
+        }
     }
 
     public void uninstall() {
+        if (document != null) {
+            document.removeDocumentListener(changes);
+            document = null;
+        }
+        previousReferences = null;
+        previousSource = null;
         presenter.uninstall();
         presenter = null;
         editor = null;
@@ -242,28 +259,49 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
                 presenter.setCanceled(monitor.isCanceled());
                 if (update(monitor, 1)) return;
 
+                // edits since the last pass; references are reused for members outside of them
+                int[] change = changes.reset();
+                List<HighlightedTypedPosition> previous = previousReferences;
+                previousReferences = null;
+
                 GatherSemanticReferences finder = new GatherSemanticReferences(unit);
-                Collection<HighlightedTypedPosition> semanticReferences = finder.findSemanticHighlightingReferences();
+                Collection<HighlightedTypedPosition> semanticReferences;
+                if (forced || change == null || previous == null) {
+                    semanticReferences = finder.findSemanticHighlightingReferences();
+                } else {
+                    semanticReferences = finder.findSemanticHighlightingReferences(previous, previousSource, change[0], change[1], change[2]);
+                }
+                previousReferences = new ArrayList<>(semanticReferences);
+                previousSource = finder.getSource();
                 if (update(monitor, 5)) return;
 
+                // both lists are in increasing lexical order, so matches are found by a single forward merge
+                List<Position> oldPositions = new ArrayList<>(getHighlightedPositions());
                 List<Position> newPositions = new ArrayList<>(semanticReferences.size());
-                List<Position> oldPositions = new LinkedList<>(getHighlightedPositions());
+                boolean[] retained = new boolean[oldPositions.size()];
                 if (update(monitor, 1)) return;
 
-                HighlightedTypedPosition last = null; Position x = null;
+                HighlightedTypedPosition last = null; int x = -1, cursor = 0;
                 for (HighlightedTypedPosition ref : semanticReferences) {
                     if (ref.compareTo(last) != 0) {
                         Position pos = newHighlightedPosition(ref);
-                        x = tryAddPosition(newPositions, oldPositions, pos);
-
+                        while (cursor < oldPositions.size() && oldPositions.get(cursor).getOffset() < pos.getOffset()) {
+                            cursor += 1;
+                        }
+                        x = indexOfPosition(oldPositions, retained, cursor, pos);
+                        if (x >= 0) {
+                            retained[x] = true; // prevent old position from being removed from presentation
+                        } else {
+                            newPositions.add(pos);
+                        }
                     } else if (GET_HIGHLIGHTING != null && (ref.kind == DEPRECATED || ref.kind == UNKNOWN)) {
                         // this and last cover same source range and this indicates deprecated or unknown
                         Position pos = !newPositions.isEmpty() ? newPositions.get(newPositions.size() - 1) : null;
                         if (ref.compareTo(pos) != 0) {
-                            if (ref.compareTo(x) == 0) {
+                            if (x >= 0 && ref.compareTo(oldPositions.get(x)) == 0) {
                                 pos = newHighlightedPosition(last);
                                 newPositions.add(pos);
-                                oldPositions.add(x);
+                                retained[x] = false;
                             } else {
                                 GroovyPlugin.getDefault().logWarning(
                                     String.format("Failed to apply %s semantic at %s",
@@ -280,14 +318,20 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
                     }
                     last = ref;
                 }
+                List<Position> removedPositions = new ArrayList<>();
+                for (int i = 0, n = retained.length; i < n; i += 1) {
+                    if (!retained[i]) {
+                        removedPositions.add(oldPositions.get(i));
+                    }
+                }
                 if (update(monitor, 2)) return;
 
                 TextPresentation textPresentation = null;
                 if (!presenter.isCanceled()) {
-                    textPresentation = presenter.createPresentation(newPositions, oldPositions);
+                    textPresentation = presenter.createPresentation(newPositions, removedPositions);
                 }
                 if (!presenter.isCanceled()) {
-                    updatePresentation(textPresentation, newPositions, oldPositions);
+                    updatePresentation(textPresentation, newPositions, removedPositions);
                 }
                 update(monitor, 1);
             }
@@ -394,17 +438,24 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
         return (Position) ReflectionUtils.invokeConstructor(HIGHLIGHTED_POSITION, pos.offset, pos.length, style, this);
     }
 
-    private Position tryAddPosition(List<Position> newPositions, List<Position> oldPositions, Position maybePosition) {
-        // TODO: Is there a quicker way to search for matches?  These can be sorted easily.
-        for (Iterator<Position> it = oldPositions.iterator(); it.hasNext();) {
-            Position oldPosition = it.next();
-            if (!oldPosition.isDeleted() && oldPosition.equals(maybePosition) && isSameStyle(oldPosition, maybePosition)) {
-                it.remove(); // prevent old position from being removed from presentation
-                return oldPosition;
+    /**
+     * Finds an old position that matches the new one among those that start at
+     * the same offset.  Old positions are in increasing lexical order, so the
+     * search begins from the first one that does not precede the new position.
+     *
+     * @return index of the matching old position or -1 if there is none
+     */
+    private int indexOfPosition(List<Position> oldPositions, boolean[] retained, int from, Position maybePosition) {
+        for (int i = from, n = oldPositions.size(); i < n; i += 1) {
+            Position oldPosition = oldPositions.get(i);
+            if (oldPosition.getOffset() != maybePosition.getOffset()) {
+                break;
+            }
+            if (!retained[i] && !oldPosition.isDeleted() && oldPosition.equals(maybePosition) && isSameStyle(oldPosition, maybePosition)) {
+                return i;
             }
         }
-        newPositions.add(maybePosition);
-        return null;
+        return -1;
     }
 
     private boolean isSameStyle(Position a, Position b) {
@@ -457,4 +508,48 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
 
         display.asyncExec(runnable);
     }
+
+    //--------------------------------------------------------------------------
+
+    /**
+     * Accumulates the region of the document that has been edited since the
+     * last highlighting pass.
+     */
+    private static class ChangedRegion implements IDocumentListener {
+
+        private boolean changed;
+        private int start, end, delta;
+
+        @Override
+        public void documentAboutToBeChanged(DocumentEvent event) {
+        }
+
+        @Override
+        public synchronized void documentChanged(DocumentEvent event) {
+            int offset = event.getOffset(), oldEnd = offset + event.getLength(),
+                newEnd = offset + (event.getText() != null ? event.getText().length() : 0);
+            if (!changed) {
+                changed = true;
+                start = offset;
+                end = newEnd;
+                delta = newEnd - oldEnd;
+            } else {
+                start = Math.min(start, offset);
+                // region end follows the text after it or is absorbed by this edit
+                end = (end >= oldEnd ? end + (newEnd - oldEnd) : newEnd);
+                delta += newEnd - oldEnd;
+            }
+        }
+
+        /**
+         * @return start, end and length delta of the changed region or {@code null} if nothing has changed
+         */
+        synchronized int[] reset() {
+            if (!changed) {
+                return null;
+            }
+            changed = false;
+            return new int[] {start, end, delta};
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,8 +41,7 @@ import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.SourceRange;
 import org.eclipse.jdt.core.dom.CompilationUnit;
-import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
-import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.InferencingRecord;
 import org.eclipse.jdt.internal.core.manipulation.search.IOccurrencesFinder;
 import org.eclipse.jdt.internal.ui.search.FindOccurrencesEngine;
 
@@ -137,8 +136,7 @@ public class GroovyOccurrencesFinder implements IOccurrencesFinder {
                 !(nodeToLookFor instanceof BinaryExpression) &&
                 !(nodeToLookFor instanceof MethodCallExpression)) {
             FindAllReferencesRequestor requestor = new FindAllReferencesRequestor(nodeToLookFor);
-            TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(gunit);
-            visitor.visitCompilationUnit(requestor);
+            InferencingRecord.replay(gunit, requestor);
             Map<ASTNode, Integer> occurences = requestor.getReferences();
             return occurences;
         }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2018 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -113,6 +113,7 @@ public class GroovyConsole extends TextConsole {
                         type.equals(TraceCategory.AST_TRANSFORM.label)) {
                     color = registry.get(JFacePreferences.COUNTER_COLOR);
                 } else if (type.equals(TraceCategory.CODE_SELECT.label) ||
+                        type.equals(TraceCategory.CODE_MINING.label) ||
                         type.equals(TraceCategory.CONTENT_ASSIST.label)) {
                     color = registry.get(JFacePreferences.DECORATIONS_COLOR);
                 } else if (type.equals(TraceCategory.DSL.label)) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2017 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,12 @@ package org.codehaus.groovy.eclipse.ui.console;
 import java.util.Calendar;
 import java.util.Date;
 
+import org.codehaus.groovy.eclipse.CompileMetrics;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.IGroovyLogger;
 import org.codehaus.groovy.eclipse.TraceCategory;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.IToolBarManager;
 import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.widgets.Composite;
@@ -40,6 +43,10 @@ public class GroovyConsolePage extends TextConsolePage implements IGroovyLogger
 
     private CloseConsoleAction fCloseConsoleAction;
 
+    private Action fShowMetricsAction;
+
+    private Action fResetMetricsAction;
+
     public GroovyConsolePage(TextConsole console, IConsoleView view) {
         super(console, view);
     }
@@ -107,6 +114,8 @@ public class GroovyConsolePage extends TextConsolePage implements IGroovyLogger
             fScrollLockAction = null;
         }
         fCloseConsoleAction = null;
+        fShowMetricsAction = null;
+        fResetMetricsAction = null;
         GroovyLogManager.manager.removeLogger(this);
     }
 
@@ -122,6 +131,18 @@ public class GroovyConsolePage extends TextConsolePage implements IGroovyLogger
         super.createActions();
         fScrollLockAction = new ScrollLockAction(getConsoleView());
         fCloseConsoleAction = new CloseConsoleAction(getConsole());
+        fShowMetricsAction = new Action("Show Compile Metrics") {
+            @Override
+            public void run() {
+                log(TraceCategory.COMPILER, "Phase and AST transform timings since startup or last reset:\n" + CompileMetrics.TOTAL.format());
+            }
+        };
+        fResetMetricsAction = new Action("Reset Compile Metrics") {
+            @Override
+            public void run() {
+                CompileMetrics.TOTAL.reset();
+            }
+        };
         setAutoScroll(!fScrollLockAction.isChecked());
     }
 
@@ -137,5 +158,9 @@ public class GroovyConsolePage extends TextConsolePage implements IGroovyLogger
         super.configureToolBar(mgr);
         mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP, fScrollLockAction);
         mgr.appendToGroup(IConsoleConstants.LAUNCH_GROUP, fCloseConsoleAction);
+
+        IMenuManager menu = getSite().getActionBars().getMenuManager();
+        menu.add(fShowMetricsAction);
+        menu.add(fResetMetricsAction);
     }
 }
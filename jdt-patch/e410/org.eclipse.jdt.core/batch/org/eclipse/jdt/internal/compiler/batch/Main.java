@@ -1846,6 +1846,7 @@ public void configure(String[] argv) {
 	final int INSIDE_LIMIT_MODULES = 31;
 	// GROOVY add
 	final int INSIDE_CONFIG_SCRIPT = 100;
+	final int INSIDE_METRICS_REPORT = 101;
 	// GROOVY end
 
 	final int DEFAULT = 0;
@@ -2073,6 +2074,10 @@ public void configure(String[] argv) {
 					mode = INSIDE_CONFIG_SCRIPT;
 					continue;
 				}
+				if (currentArg.equals("-compileMetrics")) { //$NON-NLS-1$
+					mode = INSIDE_METRICS_REPORT;
+					continue;
+				}
 				if (currentArg.equals("-indy")) { //$NON-NLS-1$
 					this.options.merge(CompilerOptions.OPTIONG_GroovyFlags, String.valueOf(CompilerUtils.InvokeDynamic), (String one, String two) -> {
 						return String.valueOf(Integer.parseInt(one) | Integer.parseInt(two));
@@ -3034,6 +3039,12 @@ public void configure(String[] argv) {
 				this.options.put(CompilerOptions.OPTIONG_GroovyCompilerConfigScript, currentArg);
 				mode = DEFAULT;
 				continue;
+			case INSIDE_METRICS_REPORT:
+				if (currentArg.isEmpty() || currentArg.charAt(0) == '-')
+					throw new IllegalArgumentException(String.format("Missing argument to -compileMetrics at ''%s''", currentArg)); //$NON-NLS-1$
+				this.options.put(CompilerOptions.OPTIONG_GroovyCompileMetricsReport, currentArg);
+				mode = DEFAULT;
+				continue;
 			// GROOVY end
 		}
 
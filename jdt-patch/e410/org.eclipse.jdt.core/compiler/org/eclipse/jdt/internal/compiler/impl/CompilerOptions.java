@@ -213,6 +213,8 @@ public class CompilerOptions {
 	public static final String OPTIONG_GroovyProjectName          = "org.eclipse.jdt.core.compiler.groovy.groovyProjectName"; //$NON-NLS-1$
 	public static final String OPTIONG_GroovyCompilerConfigScript = "org.eclipse.jdt.core.compiler.groovy.groovyCompilerConfigScript"; //$NON-NLS-1$
 	public static final String OPTIONG_GroovyExcludeGlobalASTScan = "org.eclipse.jdt.core.compiler.groovy.groovyServiceScanExclude"; //$NON-NLS-1$
+	public static final String OPTIONG_GroovyParallelPhases      = "org.eclipse.jdt.core.compiler.groovy.parallelPhases"; //$NON-NLS-1$
+	public static final String OPTIONG_GroovyCompileMetricsReport = "org.eclipse.jdt.core.compiler.groovy.compileMetricsReport"; //$NON-NLS-1$
 	// GROOVY end
 
 	/**
@@ -488,6 +490,8 @@ public class CompilerOptions {
 	public String groovyProjectName;
 	public String groovyCompilerConfigScript;
 	public String groovyExcludeGlobalASTScan;
+	public boolean groovyParallelPhases; // parse and convert groovy sources concurrently in batch compiles
+	public String groovyCompileMetricsReport; // file to receive phase and transform timings of a batch compile
 	// GROOVY end
 
 	// === Support for Null Annotations: ===
@@ -2110,6 +2114,12 @@ public class CompilerOptions {
 		if ((optionValue = optionsMap.get(OPTIONG_GroovyExcludeGlobalASTScan)) != null) {
 			this.groovyExcludeGlobalASTScan = optionValue;
 		}
+		if ((optionValue = optionsMap.get(OPTIONG_GroovyParallelPhases)) != null) {
+			this.groovyParallelPhases = ENABLED.equals(optionValue);
+		}
+		if ((optionValue = optionsMap.get(OPTIONG_GroovyCompileMetricsReport)) != null) {
+			this.groovyCompileMetricsReport = optionValue;
+		}
 		// GROOVY end
 	}
 
@@ -2139,6 +2149,8 @@ public class CompilerOptions {
 		buf.append("\n\t- build groovy files: ").append((this.buildGroovyFiles == 0 ? "dontknow" : (this.buildGroovyFiles == 1 ? "no" : "yes"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 		buf.append("\n\t- build groovy flags: ").append(Integer.toHexString(this.groovyFlags)); //$NON-NLS-1$
 		buf.append("\n\t- groovy config script: ").append(this.groovyCompilerConfigScript); //$NON-NLS-1$
+		buf.append("\n\t- groovy parallel phases: ").append(this.groovyParallelPhases ? ENABLED : DISABLED); //$NON-NLS-1$
+		buf.append("\n\t- groovy compile metrics report: ").append(this.groovyCompileMetricsReport); //$NON-NLS-1$
 		// GROOVY end
 		buf.append("\n\t- local variables debug attributes: ").append((this.produceDebugAttributes & ClassFileConstants.ATTR_VARS) != 0 ? "ON" : " OFF"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		buf.append("\n\t- line number debug attributes: ").append((this.produceDebugAttributes & ClassFileConstants.ATTR_LINES) != 0 ? "ON" : " OFF"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2016 the original author or authors.
+ * Copyright 2009-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +17,12 @@ package org.codehaus.jdt.groovy.integration;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.JavaModelException;
@@ -122,6 +125,29 @@ public interface LanguageSupport {
 	 */
 	boolean maybePerformDelegatedSearch(PossibleMatch possibleMatch, SearchPattern pattern, SearchRequestor requestor);
 
+	/**
+	 * Performs delegated search for a batch of possible matches.  Implementations
+	 * may search the documents concurrently, but results must be sent to the
+	 * requestor from the calling thread and in the order of the possible matches.
+	 * @param possibleMatches the possible matches to look for
+	 * @param pattern
+	 * @param requestor the requestor to send any completed search results to
+	 * @param monitor the progress monitor used to check for cancellation (may be null)
+	 * @return the possible matches for which the search was performed
+	 */
+	default Set<PossibleMatch> performDelegatedSearch(PossibleMatch[] possibleMatches, SearchPattern pattern, SearchRequestor requestor, IProgressMonitor monitor) {
+		Set<PossibleMatch> searched = new HashSet<>();
+		for (PossibleMatch possibleMatch : possibleMatches) {
+			if (monitor != null && monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			if (maybePerformDelegatedSearch(possibleMatch, pattern, requestor)) {
+				searched.add(possibleMatch);
+			}
+		}
+		return searched;
+	}
+
 	EventHandler getEventHandler();
 
 	void filterNonSourceMembers(BinaryType binaryType);
@@ -821,6 +821,10 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 	protected void internalBeginToCompile(ICompilationUnit[] sourceUnits, int maxUnits) {
 		if (!this.useSingleThread && maxUnits >= ReadManager.THRESHOLD)
 			this.parser.readManager = new ReadManager(sourceUnits, maxUnits);
+		// GROOVY add
+		if (maxUnits > 1)
+			this.parser.prepareToParse(sourceUnits, maxUnits);
+		// GROOVY end
 
 		// Switch the current policy and compilation result for this unit to the requested one.
 		for (int i = 0; i < maxUnits; i++) {
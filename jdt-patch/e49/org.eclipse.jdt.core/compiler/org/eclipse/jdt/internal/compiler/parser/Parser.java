@@ -13228,5 +13228,11 @@ public boolean isParsingModuleDeclaration() {
 public void reset() {
 	// standard Java parser, nothing to do
 }
+/**
+ * Called with the units of a batch compile before any of them is parsed.
+ */
+public void prepareToParse(ICompilationUnit[] sourceUnits, int maxUnits) {
+	// standard Java parser, nothing to do
+}
 // GROOVY end
 }
@@ -23,9 +23,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.zip.ZipFile;
 
@@ -1266,6 +1268,23 @@ protected void locateMatches(JavaProject javaProject, PossibleMatch[] possibleMa
 	// GROOVY add
 	final boolean isInterestingProject = LanguageSupportFactory.isInterestingProject(javaProject.getProject());
 	HashSet<PossibleMatch> alreadyMatched = new HashSet<PossibleMatch>();
+	// identity set: similar matches are equal to their originals but are searched separately
+	Set<PossibleMatch> delegatedMatches = Collections.newSetFromMap(new IdentityHashMap<PossibleMatch, Boolean>());
+	if (isInterestingProject) {
+		// search groovy documents as a batch so that they may be processed concurrently
+		List<PossibleMatch> interestingMatches = new ArrayList<PossibleMatch>();
+		for (int i = start, maxUnits = start + length; i < maxUnits; i++) {
+			PossibleMatch possibleMatch = possibleMatches[i];
+			if (possibleMatch.isInterestingSourceFile() && !skipMatch(javaProject, possibleMatch)) {
+				interestingMatches.add(possibleMatch);
+			}
+		}
+		if (!interestingMatches.isEmpty()) {
+			delegatedMatches.addAll(interestingMatches);
+			alreadyMatched.addAll(LanguageSupportFactory.performDelegatedSearch(
+				interestingMatches.toArray(new PossibleMatch[interestingMatches.size()]), this.pattern, this.requestor, this.progressMonitor));
+		}
+	}
 	// GROOVY end
 	// create and resolve binding (equivalent to beginCompilation() in Compiler)
 	boolean mustResolvePattern = this.pattern.mustResolve;
@@ -1277,7 +1296,7 @@ protected void locateMatches(JavaProject javaProject, PossibleMatch[] possibleMa
 			PossibleMatch possibleMatch = possibleMatches[i];
 			if (skipMatch(javaProject, possibleMatch)) continue;
 			// GROOVY add
-			if (isInterestingProject && possibleMatch.isInterestingSourceFile() && LanguageSupportFactory.maybePerformDelegatedSearch(possibleMatch, this.pattern, this.requestor)) {
+			if (isInterestingProject && possibleMatch.isInterestingSourceFile() && !delegatedMatches.contains(possibleMatch) && LanguageSupportFactory.maybePerformDelegatedSearch(possibleMatch, this.pattern, this.requestor)) {
 				alreadyMatched.add(possibleMatch);
 			}
 			// GROOVY end